@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.asm.amd64.test;
+
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.asm.Assembler.LabelHint;
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Assembler;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.test.AssemblerTest;
+import com.oracle.graal.code.CompilationResult;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.code.CallingConvention;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.RegisterConfig;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.JavaKind;
+
+public class ShortForwardJumpTest extends AssemblerTest {
+
+    @Before
+    public void checkAMD64() {
+        assumeTrue("skipping AMD64 specific test", codeCache.getTarget().arch instanceof AMD64);
+    }
+
+    /**
+     * Emits the same code twice. The second emission must use short forward jumps for the hinted
+     * jumps and still compute the same result.
+     */
+    @Test
+    public void hintedJumpTest() {
+        CodeGenTest test = new CodeGenTest() {
+
+            @Override
+            public byte[] generateCode(CompilationResult compResult, TargetDescription target, RegisterConfig registerConfig, CallingConvention cc) {
+                AMD64Assembler asm = new AMD64Assembler(target);
+                Register ret = registerConfig.getReturnRegister(JavaKind.Int);
+                Label skip = new Label();
+                Label done = new Label();
+                LabelHint[] hints = new LabelHint[2];
+
+                emit(asm, ret, skip, done, hints);
+                int longSize = asm.position();
+                Assert.assertTrue(asm.hasShortJumpCandidates());
+
+                asm.reset();
+                skip.reset();
+                done.reset();
+                emit(asm, ret, skip, done, hints);
+                Assert.assertFalse(asm.hasShortJumpOverflow());
+                Assert.assertEquals(longSize - 4 - 3, asm.position());
+                return asm.close(true);
+            }
+        };
+        assertReturn("intStub", test, 42);
+    }
+
+    private static void emit(AMD64Assembler asm, Register ret, Label skip, Label done, LabelHint[] hints) {
+        asm.movl(ret, 42);
+        asm.cmpl(ret, 42);
+        if (hints[0] == null) {
+            hints[0] = asm.requestLabelHint(skip);
+        }
+        asm.jcc(ConditionFlag.Equal, skip, hints[0]);
+        asm.movl(ret, 1);
+        asm.bind(skip);
+        if (hints[1] == null) {
+            hints[1] = asm.requestLabelHint(done);
+        }
+        asm.jmp(done, hints[1]);
+        asm.movl(ret, 2);
+        asm.bind(done);
+        asm.ret(0);
+    }
+
+    public static int intStub() {
+        return 0;
+    }
+}
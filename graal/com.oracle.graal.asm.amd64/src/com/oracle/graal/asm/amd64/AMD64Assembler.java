@@ -51,6 +51,8 @@ import static jdk.vm.ci.amd64.AMD64.rip;
 import static jdk.vm.ci.amd64.AMD64.rsp;
 import static jdk.vm.ci.code.MemoryBarriers.STORE_LOAD;
 
+import java.util.BitSet;
+
 import com.oracle.graal.asm.Assembler;
 import com.oracle.graal.asm.Label;
 import com.oracle.graal.asm.NumUtil;
@@ -74,6 +76,39 @@ public class AMD64Assembler extends Assembler {
      */
     private static final AMD64Address Placeholder = new AMD64Address(rip);
 
+    /**
+     * Number of bytes by which the displacement of a forward jump observed in a previous emission
+     * may grow before the jump no longer fits an 8-bit displacement. Code only shrinks between two
+     * emissions, except for alignment padding.
+     */
+    private static final int SHORT_JUMP_SAFETY_MARGIN = 16;
+
+    /**
+     * Positions of the forward jumps that were emitted with an 8-bit displacement because of a
+     * {@link LabelHint}.
+     */
+    private final BitSet hintedShortJumps = new BitSet();
+
+    /**
+     * Positions of the forward jumps that were emitted with a 32-bit displacement although a
+     * {@link LabelHint} was available for them.
+     */
+    private final BitSet hintedLongJumps = new BitSet();
+
+    /**
+     * Set if one of the {@link #hintedLongJumps} turned out to be close enough to its target to be
+     * emitted with an 8-bit displacement the next time.
+     */
+    private boolean shortJumpCandidates;
+
+    /**
+     * Set if one of the {@link #hintedShortJumps} could not be patched because its target turned
+     * out to be too far away. The code must then be emitted again without short jump hints.
+     */
+    private boolean shortJumpOverflow;
+
+    private boolean useShortJumpHints = true;
+
     /**
      * The x86 condition codes used for conditional jumps/moves.
      */
@@ -1428,6 +1463,23 @@ public class AMD64Assembler extends Assembler {
 
     }
 
+    /**
+     * Emits a conditional jump to {@code l}. If the label is not bound yet, an 8-bit displacement is
+     * used when {@code hint} shows that the label was close enough in a previous emission of the
+     * same code.
+     */
+    public final void jcc(ConditionFlag cc, Label l, LabelHint hint) {
+        if (!l.isBound() && isShortJump(hint)) {
+            hintedShortJumps.set(position());
+            jccb(cc, l);
+        } else {
+            if (!l.isBound()) {
+                hintedLongJumps.set(position());
+            }
+            jcc(cc, l);
+        }
+    }
+
     public final void jccb(ConditionFlag cc, Label l) {
         if (l.isBound()) {
             int shortSize = 2;
@@ -1473,6 +1525,53 @@ public class AMD64Assembler extends Assembler {
         }
     }
 
+    /**
+     * Emits an unconditional jump to {@code l}, using an 8-bit displacement for an unbound label if
+     * {@code hint} allows it. See {@link #jcc(ConditionFlag, Label, LabelHint)}.
+     */
+    public final void jmp(Label l, LabelHint hint) {
+        if (!l.isBound() && isShortJump(hint)) {
+            hintedShortJumps.set(position());
+            jmpb(l);
+        } else {
+            if (!l.isBound()) {
+                hintedLongJumps.set(position());
+            }
+            jmp(l);
+        }
+    }
+
+    private boolean isShortJump(LabelHint hint) {
+        if (!useShortJumpHints || hint == null || !hint.isValid()) {
+            return false;
+        }
+        int shortSize = 2;
+        int disp = hint.getTarget() - hint.getPosition();
+        return disp >= 0 && isByte(disp - shortSize + SHORT_JUMP_SAFETY_MARGIN);
+    }
+
+    /**
+     * Determines if emitting the code again could use 8-bit displacements for some forward jumps.
+     */
+    public boolean hasShortJumpCandidates() {
+        return shortJumpCandidates;
+    }
+
+    /**
+     * Determines if one of the short jumps chosen based on a {@link LabelHint} did not reach its
+     * target. In that case the emitted code is invalid and must be discarded.
+     */
+    public boolean hasShortJumpOverflow() {
+        return shortJumpOverflow;
+    }
+
+    /**
+     * Enables or disables the use of {@link LabelHint}s for choosing short forward jumps.
+     */
+    public void setUseShortJumpHints(boolean useShortJumpHints) {
+        this.useShortJumpHints = useShortJumpHints;
+    }
+
     public final void jmp(Register entry) {
         int encode = prefixAndEncode(entry.encoding);
         emitByte(0xFF);
@@ -2514,6 +2613,55 @@ public class AMD64Assembler extends Assembler {
         emitOperandHelper(dst, src);
     }
 
+    public final void movdqu(AMD64Address dst, Register src) {
+        assert src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        simdPrefix(src, Register.None, dst, VexSimdPrefix.VEX_SIMD_F3, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0x7F);
+        emitOperandHelper(src, dst);
+    }
+
+    public final void vmovdqu(AMD64Address dst, Register src) {
+        assert supports(CPUFeature.AVX);
+        assert src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_256bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        vexPrefix(dst, Register.None, src, VexSimdPrefix.VEX_SIMD_F3, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0x7F);
+        emitOperandHelper(src, dst);
+    }
+
+    /**
+     * Emits a non-temporal 16-byte store. The destination must be 16-byte aligned.
+     */
+    public final void movntdq(AMD64Address dst, Register src) {
+        assert src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        simdPrefix(src, Register.None, dst, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0xE7);
+        emitOperandHelper(src, dst);
+    }
+
+    /**
+     * Emits a non-temporal 32-byte store. The destination must be 32-byte aligned.
+     */
+    public final void vmovntdq(AMD64Address dst, Register src) {
+        assert supports(CPUFeature.AVX);
+        assert src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_256bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        vexPrefix(dst, Register.None, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0xE7);
+        emitOperandHelper(src, dst);
+    }
+
+    /**
+     * Orders all preceding stores, including non-temporal ones, before any subsequent store.
+     */
+    public final void sfence() {
+        emitByte(0x0F);
+        emitByte(0xAE);
+        emitByte(0xF8);
+    }
+
     public final void vzeroupper() {
         assert supports(CPUFeature.AVX);
         AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
@@ -2521,6 +2669,32 @@ public class AMD64Assembler extends Assembler {
         emitByte(0x77);
     }
 
+    /**
+     * Emits {@code vfmadd231sd dst, src1, src2}, which computes {@code dst = src1 * src2 + dst}
+     * with a single rounding.
+     */
+    public final void vfmadd231sd(Register dst, Register src1, Register src2) {
+        assert supports(CPUFeature.FMA);
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src1.getRegisterCategory().equals(AMD64.XMM) && src2.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ true, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = vexPrefixAndEncode(dst, src1, src2, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F_38, attributes);
+        emitByte(0xB9);
+        emitByte(0xC0 | encode);
+    }
+
+    /**
+     * Emits {@code vfmadd231ss dst, src1, src2}, which computes {@code dst = src1 * src2 + dst}
+     * with a single rounding.
+     */
+    public final void vfmadd231ss(Register dst, Register src1, Register src2) {
+        assert supports(CPUFeature.FMA);
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src1.getRegisterCategory().equals(AMD64.XMM) && src2.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = vexPrefixAndEncode(dst, src1, src2, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F_38, attributes);
+        emitByte(0xB9);
+        emitByte(0xC0 | encode);
+    }
+
     public final void movslq(AMD64Address dst, int imm32) {
         prefixq(dst);
         emitByte(0xC7);
@@ -2665,6 +2839,10 @@ public class AMD64Assembler extends Assembler {
              * behaving code we should always fail with an exception instead of having an assert.
              */
             if (!NumUtil.isByte(imm8)) {
+                if (hintedShortJumps.get(branch)) {
+                    shortJumpOverflow = true;
+                    return;
+                }
                 throw new InternalError("branch displacement out of range: " + imm8);
             }
             emitByte(imm8, branch + 1);
@@ -2678,6 +2856,10 @@ public class AMD64Assembler extends Assembler {
 
             int imm32 = branchTarget - (branch + 4 + off);
             emitInt(imm32, branch + off);
+
+            if (hintedLongJumps.get(branch) && isByte(branchTarget - (branch + 2) + SHORT_JUMP_SAFETY_MARGIN)) {
+                shortJumpCandidates = true;
+            }
         }
     }
 
@@ -2685,6 +2867,15 @@ public class AMD64Assembler extends Assembler {
         testl(AMD64.rax, address);
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        hintedShortJumps.clear();
+        hintedLongJumps.clear();
+        shortJumpCandidates = false;
+        shortJumpOverflow = false;
+    }
+
     @Override
     public void align(int modulus) {
         if (position() % modulus != 0) {
@@ -619,6 +619,32 @@ public class CompilationResult {
         return hasUnsafeAccess;
     }
 
+    /**
+     * Copies the machine code and the code related information of another, closed compilation
+     * result that has no infopoints and no exception handlers into this object. The
+     * {@linkplain #getAssumptions() assumptions}, {@linkplain #getMethods() methods},
+     * {@linkplain #getEntryBCI() entry BCI} and {@linkplain #getName() name} of this object are not
+     * changed.
+     */
+    public void copyCodeFrom(CompilationResult other) {
+        checkOpen();
+        assert other.closed && other.infopoints.isEmpty() && other.exceptionHandlers.isEmpty() : other;
+        dataSection.shareAll(other.dataSection);
+        dataPatches.addAll(other.dataPatches);
+        marks.addAll(other.marks);
+        if (other.annotations != null) {
+            for (CodeAnnotation annotation : other.annotations) {
+                addAnnotation(annotation);
+            }
+        }
+        totalFrameSize = other.totalFrameSize;
+        maxInterpreterFrameSize = other.maxInterpreterFrameSize;
+        customStackArea = other.customStackArea;
+        targetCode = other.targetCode;
+        targetCodeSize = other.targetCodeSize;
+        hasUnsafeAccess = other.hasUnsafeAccess;
+    }
+
     /**
      * Clears the information in this object pertaining to generating code. That is, the
      * {@linkplain #getMarks() marks}, {@linkplain #getInfopoints() infopoints},
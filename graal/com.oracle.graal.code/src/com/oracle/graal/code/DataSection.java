@@ -228,6 +228,12 @@ public final class DataSection implements Iterable<Data> {
     private int sectionAlignment;
     private int sectionSize;
 
+    /**
+     * Determines if the layout of this section was copied from another section by
+     * {@link #shareAll(DataSection)}.
+     */
+    private boolean sharedLayout;
+
     @Override
     public int hashCode() {
         // DataSection instances should not be used as hash map keys
@@ -262,6 +268,7 @@ public final class DataSection implements Iterable<Data> {
      */
     public DataSectionReference insertData(Data data) {
         checkOpen();
+        assert !sharedLayout;
         synchronized (data) {
             if (data.ref == null) {
                 data.ref = new DataSectionReference();
@@ -278,6 +285,7 @@ public final class DataSection implements Iterable<Data> {
     public void addAll(DataSection other) {
         checkOpen();
         other.checkOpen();
+        assert !sharedLayout;
 
         for (Data data : other.dataItems) {
             assert data.ref != null;
@@ -286,6 +294,22 @@ public final class DataSection implements Iterable<Data> {
         other.dataItems.clear();
     }
 
+    /**
+     * Makes this empty {@link DataSection} share the {@link Data} items and the layout of the
+     * provided {@linkplain #closed() closed} {@link DataSection}. The items keep their
+     * {@link DataSectionReference}s and offsets, so {@link #close()} does not lay them out again.
+     * No other items can be added to this section.
+     */
+    public void shareAll(DataSection other) {
+        checkOpen();
+        other.checkClosed();
+        assert dataItems.isEmpty();
+        dataItems.addAll(other.dataItems);
+        sectionAlignment = other.sectionAlignment;
+        sectionSize = other.sectionSize;
+        sharedLayout = true;
+    }
+
     /**
      * Determines if this object has been {@link #close() closed}.
      */
@@ -301,6 +325,10 @@ public final class DataSection implements Iterable<Data> {
     public void close() {
         checkOpen();
         closed = true;
+        if (sharedLayout) {
+            // the offsets of the shared references are already set
+            return;
+        }
 
         // simple heuristic: put items with larger alignment requirement first
         dataItems.sort((a, b) -> a.alignment - b.alignment);
@@ -411,5 +439,6 @@ public final class DataSection implements Iterable<Data> {
         this.dataItems.clear();
         this.sectionAlignment = 0;
         this.sectionSize = 0;
+        this.sharedLayout = false;
     }
 }
@@ -95,6 +95,7 @@ import com.oracle.graal.lir.amd64.AMD64ArithmeticLIRGeneratorTool;
 import com.oracle.graal.lir.amd64.AMD64Binary;
 import com.oracle.graal.lir.amd64.AMD64BinaryConsumer;
 import com.oracle.graal.lir.amd64.AMD64ClearRegisterOp;
+import com.oracle.graal.lir.amd64.AMD64FusedMultiplyAddOp;
 import com.oracle.graal.lir.amd64.AMD64MathIntrinsicOp;
 import com.oracle.graal.lir.amd64.AMD64MulDivOp;
 import com.oracle.graal.lir.amd64.AMD64ShiftOp;
@@ -912,6 +913,14 @@ public class AMD64ArithmeticLIRGenerator extends ArithmeticLIRGenerator implemen
         return result;
     }
 
+    @Override
+    public Value emitFusedMultiplyAdd(Value x, Value y, Value z) {
+        Variable result = getLIRGen().newVariable(LIRKind.combine(x, y, z));
+        assert ((AMD64Kind) x.getPlatformKind()).isXMM() && x.getPlatformKind() == y.getPlatformKind() && x.getPlatformKind() == z.getPlatformKind();
+        getLIRGen().append(new AMD64FusedMultiplyAddOp(result, getLIRGen().asAllocatable(x), getLIRGen().asAllocatable(y), getLIRGen().asAllocatable(z)));
+        return result;
+    }
+
     protected AMD64LIRGenerator getAMD64LIRGen() {
         return (AMD64LIRGenerator) getLIRGen();
     }
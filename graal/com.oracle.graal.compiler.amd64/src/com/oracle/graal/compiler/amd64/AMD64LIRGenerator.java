@@ -49,7 +49,6 @@ import com.oracle.graal.lir.ConstantValue;
 import com.oracle.graal.lir.LIRFrameState;
 import com.oracle.graal.lir.LIRValueUtil;
 import com.oracle.graal.lir.LabelRef;
-import com.oracle.graal.lir.StandardOp.JumpOp;
 import com.oracle.graal.lir.SwitchStrategy;
 import com.oracle.graal.lir.Variable;
 import com.oracle.graal.lir.amd64.AMD64AddressValue;
@@ -65,6 +64,7 @@ import com.oracle.graal.lir.amd64.AMD64ControlFlow.FloatCondMoveOp;
 import com.oracle.graal.lir.amd64.AMD64ControlFlow.ReturnOp;
 import com.oracle.graal.lir.amd64.AMD64ControlFlow.StrategySwitchOp;
 import com.oracle.graal.lir.amd64.AMD64ControlFlow.TableSwitchOp;
+import com.oracle.graal.lir.amd64.AMD64JumpOp;
 import com.oracle.graal.lir.amd64.AMD64Move;
 import com.oracle.graal.lir.amd64.AMD64Move.CompareAndSwapOp;
 import com.oracle.graal.lir.amd64.AMD64Move.MembarOp;
@@ -217,7 +217,7 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
     @Override
     public void emitJump(LabelRef label) {
         assert label != null;
-        append(new JumpOp(label));
+        append(new AMD64JumpOp(label));
     }
 
     @Override
@@ -267,6 +267,19 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
         return result;
     }
 
+    /**
+     * Emits a conditional move based on an integer compare of {@code left} with memory.
+     */
+    public Variable emitConditionalMoveMemory(AMD64Kind cmpKind, Value left, AMD64AddressValue right, LIRFrameState state, Condition cond, Value trueValue, Value falseValue) {
+        assert cmpKind.isInteger() : cmpKind;
+        boolean mirrored = emitCompareMemory(cmpKind, left, right, state);
+        Condition finalCondition = mirrored ? cond.mirror() : cond;
+
+        Variable result = newVariable(trueValue.getValueKind());
+        append(new CondMoveOp(result, finalCondition, load(trueValue), loadNonConst(falseValue)));
+        return result;
+    }
+
     @Override
     public Variable emitIntegerTestMove(Value left, Value right, Value trueValue, Value falseValue) {
         emitIntegerTest(left, right);
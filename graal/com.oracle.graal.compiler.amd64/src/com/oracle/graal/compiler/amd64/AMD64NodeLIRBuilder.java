@@ -29,7 +29,10 @@ import jdk.vm.ci.meta.Value;
 
 import com.oracle.graal.compiler.gen.NodeLIRBuilder;
 import com.oracle.graal.lir.LIRFrameState;
+import com.oracle.graal.lir.LabelRef;
+import com.oracle.graal.lir.StandardOp.JumpOp;
 import com.oracle.graal.lir.amd64.AMD64Call;
+import com.oracle.graal.lir.amd64.AMD64JumpOp;
 import com.oracle.graal.lir.gen.LIRGeneratorTool;
 import com.oracle.graal.nodes.DeoptimizingNode;
 import com.oracle.graal.nodes.FixedNode;
@@ -56,6 +59,11 @@ public abstract class AMD64NodeLIRBuilder extends NodeLIRBuilder {
         append(new AMD64Call.IndirectCallOp(callTarget.targetMethod(), result, parameters, temps, targetAddress, callState));
     }
 
+    @Override
+    protected JumpOp newJumpOp(LabelRef ref) {
+        return new AMD64JumpOp(ref);
+    }
+
     @Override
     protected boolean peephole(ValueNode valueNode) {
         if ((valueNode instanceof IntegerDivNode) || (valueNode instanceof IntegerRemNode)) {
@@ -147,6 +147,32 @@ public class AMD64NodeMatchRules extends NodeMatchRules {
         };
     }
 
+    /**
+     * Only integer, pointer and object compares are matched, so the compared memory is never of
+     * a float kind.
+     */
+    protected ComplexMatchResult emitCompareConditionalMoveMemory(CompareNode compare, ValueNode value, Access access, ValueNode trueValue, ValueNode falseValue) {
+        Condition cond = compare.condition();
+        AMD64Kind kind = getMemoryKind(access);
+        assert !kind.isXMM() : "float compares are not matched: " + compare;
+
+        if (value.isConstant()) {
+            JavaConstant constant = value.asJavaConstant();
+            if (constant != null && kind == AMD64Kind.QWORD && !constant.getJavaKind().isObject() && !NumUtil.isInt(constant.asLong())) {
+                // Only imm32 as long
+                return null;
+            }
+        }
+
+        // emitConditionalMoveMemory expects the memory on the right, see emitCompareBranchMemory.
+        Condition finalCondition = GraphUtil.unproxify(compare.getX()) == access ? cond.mirror() : cond;
+        return builder -> {
+            Value other = operand(value);
+            AMD64AddressValue address = (AMD64AddressValue) operand(access.getAddress());
+            return getLIRGeneratorTool().emitConditionalMoveMemory(kind, other, address, getState(access), finalCondition, operand(trueValue), operand(falseValue));
+        };
+    }
+
     private ComplexMatchResult emitIntegerTestBranchMemory(IfNode x, ValueNode value, Access access) {
         LabelRef trueLabel = getLIRBlock(x.trueSuccessor());
         LabelRef falseLabel = getLIRBlock(x.falseSuccessor());
@@ -260,6 +286,20 @@ public class AMD64NodeMatchRules extends NodeMatchRules {
         return emitCompareBranchMemory(root, compare, value, access);
     }
 
+    @MatchRule("(Conditional (IntegerEquals=compare value Read=access) trueValue falseValue)")
+    @MatchRule("(Conditional (IntegerLessThan=compare value Read=access) trueValue falseValue)")
+    @MatchRule("(Conditional (IntegerBelow=compare value Read=access) trueValue falseValue)")
+    @MatchRule("(Conditional (IntegerEquals=compare value FloatingRead=access) trueValue falseValue)")
+    @MatchRule("(Conditional (IntegerLessThan=compare value FloatingRead=access) trueValue falseValue)")
+    @MatchRule("(Conditional (IntegerBelow=compare value FloatingRead=access) trueValue falseValue)")
+    @MatchRule("(Conditional (PointerEquals=compare value Read=access) trueValue falseValue)")
+    @MatchRule("(Conditional (PointerEquals=compare value FloatingRead=access) trueValue falseValue)")
+    @MatchRule("(Conditional (ObjectEquals=compare value Read=access) trueValue falseValue)")
+    @MatchRule("(Conditional (ObjectEquals=compare value FloatingRead=access) trueValue falseValue)")
+    public ComplexMatchResult conditionalCompareMemory(CompareNode compare, ValueNode value, Access access, ValueNode trueValue, ValueNode falseValue) {
+        return emitCompareConditionalMoveMemory(compare, value, access, trueValue, falseValue);
+    }
+
     @MatchRule("(Or (LeftShift=lshift value Constant) (UnsignedRightShift=rshift value Constant))")
     public ComplexMatchResult rotateLeftConstant(LeftShiftNode lshift, UnsignedRightShiftNode rshift) {
         if ((lshift.getShiftAmountMask() & (lshift.getY().asJavaConstant().asInt() + rshift.getY().asJavaConstant().asInt())) == 0) {
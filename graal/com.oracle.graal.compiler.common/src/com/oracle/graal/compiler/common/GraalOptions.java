@@ -82,6 +82,9 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Expert)
     public static final OptionValue<Integer> MaximumEscapeAnalysisArrayLength = new OptionValue<>(32);
 
+    @Option(help = "Maximum number of array entries a non-constant index may select from for the array to stay virtual.", type = OptionType.Expert)
+    public static final OptionValue<Integer> MaximumEscapeAnalysisIndexRange = new OptionValue<>(8);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> PEAInliningHints = new OptionValue<>(false);
 
@@ -115,6 +118,12 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> UseLoopLimitChecks = new OptionValue<>(true);
 
+    @Option(help = "Remove or hoist out of the loop the overflow checks of exact arithmetic on loop counters.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> EliminateLoopOverflowChecks = new OptionValue<>(true);
+
+    @Option(help = "Replace range checks of loop counters in counted loops by a single check in front of the loop.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> LoopPredication = new OptionValue<>(true);
+
     // debugging settings
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> ZapStackOnMethodEntry = new OptionValue<>(false);
@@ -215,12 +224,18 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptCanonicalizer = new OptionValue<>(true);
 
+    @Option(help = "Record the nodes that change between canonicalizer runs and only process these nodes instead of the whole graph.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> IncrementalCanonicalization = new OptionValue<>(false);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptDeoptimizationGrouping = new OptionValue<>(true);
 
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptScheduleOutOfLoops = new OptionValue<>(true);
 
+    @Option(help = "Reuse the previous schedule of a graph, or at least its control flow graph, if the graph did not change in a relevant way since.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> IncrementalScheduling = new OptionValue<>(false);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptEliminateGuards = new OptionValue<>(true);
 
@@ -236,6 +251,9 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptFloatingReads = new OptionValue<>(true);
 
+    @Option(help = "Value number fixed reads and guards and move loop-invariant ones out of loops.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> OptFixedNodeValueNumbering = new OptionValue<>(false);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptEliminatePartiallyRedundantGuards = new OptionValue<>(true);
 
@@ -248,6 +266,58 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptPushThroughPi = new OptionValue<>(true);
 
+    @Option(help = "Move cold blocks to the end of the code emitting order.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> HotColdSplitting = new OptionValue<>(true);
+
+    @Option(help = "Blocks with a probability below this value are considered cold by HotColdSplitting.", type = OptionType.Expert)
+    public static final OptionValue<Double> ColdBlockProbability = new OptionValue<>(0.001);
+
+    @Option(help = "Loop headers with a probability below this value are not aligned.", type = OptionType.Expert)
+    public static final OptionValue<Double> MinAlignedLoopProbability = new OptionValue<>(1.0);
+
+    @Option(help = "Emit code a second time to use short jumps for forward branches that turned out to be close to their target.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> ShortForwardJumps = new OptionValue<>(true);
+
+    @Option(help = "Replace diamonds with unpredictable branches by conditional moves.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> OptConditionalMoves = new OptionValue<>(true);
+
+    @Option(help = "Diamonds whose branch probability is below this value or above its complement are not converted to conditional moves.", type = OptionType.Expert)
+    public static final OptionValue<Double> ConditionalMoveMinProbability = new OptionValue<>(0.2);
+
+    @Option(help = "Maximum number of conditional moves a single diamond is replaced with.", type = OptionType.Expert)
+    public static final OptionValue<Integer> MaxConditionalMovesPerDiamond = new OptionValue<>(2);
+
+    @Option(help = "Remove write barriers of stores into freshly allocated objects and merge redundant card marks.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> OptEliminateWriteBarriers = new OptionValue<>(true);
+
+    @Option(help = "Reserve TLAB memory once for consecutive allocations without an intervening safepoint.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> OptMergeAllocations = new OptionValue<>(true);
+
+    @Option(help = "Maximum number of bytes reserved at once for merged allocations.", type = OptionType.Expert)
+    public static final OptionValue<Integer> MaxMergedAllocationSize = new OptionValue<>(1024);
+
+    @Option(help = "Merge synchronized regions on the same object that are separated by a few nodes.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> OptLockCoarsening = new OptionValue<>(true);
+
+    @Option(help = "Maximum number of fixed nodes between two synchronized regions that are merged.", type = OptionType.Expert)
+    public static final OptionValue<Integer> MaxLockCoarseningGap = new OptionValue<>(8);
+
+    @Option(help = "Copy disjoint primitive arrays with inline vector loops instead of calling an arraycopy stub.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> OptInlineArrayCopy = new OptionValue<>(true);
+
+    @Option(help = "Minimum number of bytes copied by an inline arraycopy before non-temporal stores are used.", type = OptionType.Expert)
+    public static final OptionValue<Integer> ArrayCopyNonTemporalThreshold = new OptionValue<>(1024 * 1024);
+
+    @Option(help = "Speculate that OSR locals have the types seen while parsing, guarded by a deoptimization.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> OSRSpeculateLocalTypes = new OptionValue<>(true);
+
+    @Option(help = "Omit filling in the stack trace of exceptions that never escape the compilation unit. " +
+                   "A deoptimization rematerializes such exceptions without a stack trace.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> OptEliminateExceptionStackTraces = new OptionValue<>(false);
+
+    @Option(help = "Inlining bonus for call sites passing a fresh allocation to a parameter that does not escape the callee.", type = OptionType.Expert)
+    public static final OptionValue<Double> EscapeSummaryInliningBonus = new OptionValue<>(2.0);
+
     @Option(help = "Allow backend to match complex expressions.", type = OptionType.Debug)
     public static final OptionValue<Boolean> MatchExpressions = new OptionValue<>(true);
 
@@ -260,6 +330,15 @@ public final class GraalOptions {
     @Option(help = "Use a cache for snippet graphs.", type = OptionType.Debug)
     public static final OptionValue<Boolean> UseSnippetGraphCache = new OptionValue<>(true);
 
+    @Option(help = "Cache the parsed and canonicalized graphs of inlining candidates across compilations.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> UseInlineeGraphCache = new OptionValue<>(false);
+
+    @Option(help = "Maximum number of graphs kept in the inlinee graph cache.", type = OptionType.Expert)
+    public static final OptionValue<Integer> InlineeGraphCacheSize = new OptionValue<>(512);
+
+    @Option(help = "Only cache the graphs of inlining candidates whose profiles are mature.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> InlineeGraphCacheMatureProfilesOnly = new OptionValue<>(true);
+
     @Option(help = "Enable expensive assertions", type = OptionType.Debug)
     public static final OptionValue<Boolean> DetailedAsserts = new StableOptionValue<Boolean>() {
         @Override
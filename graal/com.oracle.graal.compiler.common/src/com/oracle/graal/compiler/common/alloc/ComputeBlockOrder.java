@@ -29,6 +29,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
 
+import com.oracle.graal.compiler.common.GraalOptions;
 import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
 import com.oracle.graal.compiler.common.cfg.Loop;
 
@@ -38,12 +39,23 @@ import com.oracle.graal.compiler.common.cfg.Loop;
  * produce a straight sequence always following the most likely successor. Then it will continue
  * with the most likely path that was left out during this process. The process iteratively
  * continues until all blocks are scheduled. Additionally, it is guaranteed that all blocks of a
- * loop are scheduled before any block following the loop is scheduled.
+ * loop are scheduled before any block following the loop is scheduled, with the exception of cold
+ * blocks described below.
+ *
+ * If {@link GraalOptions#HotColdSplitting} is enabled, the machine code generation order defers
+ * cold blocks, i.e., blocks with a probability below {@link GraalOptions#ColdBlockProbability},
+ * until all other blocks are scheduled. Exception paths, deoptimization stubs and slow paths then
+ * end up together at the end of the method and no longer dilute the instruction cache footprint
+ * of the hot code. Cold blocks of a loop are therefore placed after the blocks following the loop.
+ * Loop headers and loop ends are never cold, so the order of the remaining blocks of a loop is not
+ * affected. The linear scan order does not split hot and cold blocks.
  *
  * The machine code generator order includes reordering of loop headers such that the backward jump
- * is a conditional jump if there is only one loop end block. Additionally, the target of loop
- * backward jumps are always marked as aligned. Aligning the target of conditional jumps does not
- * bring a measurable benefit and is therefore avoided to keep the code size small.
+ * is a conditional jump if there is only one loop end block. Additionally, the targets of loop
+ * backward jumps are marked as aligned if the loop header has a probability of at least
+ * {@link GraalOptions#MinAlignedLoopProbability}. Aligning the target of conditional jumps or of
+ * rarely executed loops does not bring a measurable benefit and is therefore avoided to keep the
+ * code size small.
  *
  * The linear scan register allocator order has an additional mechanism that prevents merge nodes
  * from being scheduled if there is at least one highly likely predecessor still unscheduled. This
@@ -89,21 +101,41 @@ public final class ComputeBlockOrder {
         List<T> order = new ArrayList<>();
         BitSet visitedBlocks = new BitSet(blockCount);
         PriorityQueue<T> worklist = initializeWorklist(startBlock, visitedBlocks);
-        computeCodeEmittingOrder(order, worklist, visitedBlocks);
+        if (GraalOptions.HotColdSplitting.getValue()) {
+            PriorityQueue<T> coldWorklist = new PriorityQueue<>(INITIAL_WORKLIST_CAPACITY, new BlockOrderComparator<>());
+            computeCodeEmittingOrder(order, worklist, visitedBlocks, coldWorklist);
+            computeCodeEmittingOrder(order, coldWorklist, visitedBlocks, null);
+        } else {
+            computeCodeEmittingOrder(order, worklist, visitedBlocks, null);
+        }
         assert checkOrder(order, blockCount);
         return order;
     }
 
     /**
-     * Iteratively adds paths to the code emission block order.
+     * Iteratively adds paths to the code emission block order. If {@code coldWorklist} is not
+     * null, cold blocks are added to it instead of the order.
      */
-    private static <T extends AbstractBlockBase<T>> void computeCodeEmittingOrder(List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks) {
+    private static <T extends AbstractBlockBase<T>> void computeCodeEmittingOrder(List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks, PriorityQueue<T> coldWorklist) {
         while (!worklist.isEmpty()) {
             T nextImportantPath = worklist.poll();
-            addPathToCodeEmittingOrder(nextImportantPath, order, worklist, visitedBlocks);
+            if (coldWorklist != null && isCold(nextImportantPath)) {
+                coldWorklist.add(nextImportantPath);
+            } else {
+                addPathToCodeEmittingOrder(nextImportantPath, order, worklist, visitedBlocks, coldWorklist);
+            }
         }
     }
 
+    /**
+     * Determines whether a block is executed rarely enough to be moved out of the hot code. Loop
+     * headers and loop ends are never considered cold so that a loop header skipped in
+     * {@link #addPathToCodeEmittingOrder} is still placed directly after its loop end.
+     */
+    private static <T extends AbstractBlockBase<T>> boolean isCold(T block) {
+        return block.probability() < GraalOptions.ColdBlockProbability.getValue() && !block.isLoopHeader() && !block.isLoopEnd();
+    }
+
     /**
      * Iteratively adds paths to the linear scan block order.
      */
@@ -156,10 +188,18 @@ public final class ComputeBlockOrder {
         return null;
     }
 
+    /**
+     * Determines if the loop starting at {@code loopHeader} is executed often enough to be worth
+     * aligning the target of its backward jump.
+     */
+    private static <T extends AbstractBlockBase<T>> boolean isFrequentLoop(T loopHeader) {
+        return loopHeader.probability() >= GraalOptions.MinAlignedLoopProbability.getValue();
+    }
+
     /**
      * Add a linear path to the code emission order greedily following the most likely successor.
      */
-    private static <T extends AbstractBlockBase<T>> void addPathToCodeEmittingOrder(T initialBlock, List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks) {
+    private static <T extends AbstractBlockBase<T>> void addPathToCodeEmittingOrder(T initialBlock, List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks, PriorityQueue<T> coldWorklist) {
         T block = initialBlock;
         while (block != null) {
             // Skip loop headers if there is only a single loop end block to
@@ -167,7 +207,7 @@ public final class ComputeBlockOrder {
             if (!skipLoopHeader(block)) {
 
                 // Align unskipped loop headers as they are the target of the backward jump.
-                if (block.isLoopHeader()) {
+                if (block.isLoopHeader() && isFrequentLoop(block)) {
                     block.setAlign(true);
                 }
                 addBlock(block, order);
@@ -184,7 +224,7 @@ public final class ComputeBlockOrder {
                 // as they are the target
                 // of the backward jump.
                 for (T successor : loop.getHeader().getSuccessors()) {
-                    if (successor.getLoopDepth() == block.getLoopDepth()) {
+                    if (successor.getLoopDepth() == block.getLoopDepth() && isFrequentLoop(loop.getHeader())) {
                         successor.setAlign(true);
                     }
                 }
@@ -192,6 +232,11 @@ public final class ComputeBlockOrder {
 
             T mostLikelySuccessor = findAndMarkMostLikelySuccessor(block, visitedBlocks);
             enqueueSuccessors(block, worklist, visitedBlocks);
+            if (mostLikelySuccessor != null && coldWorklist != null && isCold(mostLikelySuccessor)) {
+                // End the path here and continue it in the cold part of the code.
+                coldWorklist.add(mostLikelySuccessor);
+                mostLikelySuccessor = null;
+            }
             block = mostLikelySuccessor;
         }
     }
@@ -387,6 +387,57 @@ public class IntegerStamp extends PrimitiveStamp {
         }
     }
 
+    public static boolean subtractionOverflows(long x, long y, int bits) {
+        long result = x - y;
+        if (bits == 64) {
+            return ((x ^ y) & (x ^ result)) < 0;
+        } else {
+            return result < CodeUtil.minValue(bits) || result > CodeUtil.maxValue(bits);
+        }
+    }
+
+    public static boolean multiplicationOverflows(long x, long y, int bits) {
+        long result = x * y;
+        if (bits == 64) {
+            return x != 0 && (result / x != y || (x == -1 && y == Long.MIN_VALUE));
+        } else {
+            // the product of two values of at most 32 bits cannot overflow a long
+            assert bits <= 32;
+            return result < CodeUtil.minValue(bits) || result > CodeUtil.maxValue(bits);
+        }
+    }
+
+    /**
+     * Determines whether the sum of any two values described by {@code a} and {@code b} can be
+     * outside the range of their common bit width.
+     */
+    public static boolean addCanOverflow(IntegerStamp a, IntegerStamp b) {
+        assert a.getBits() == b.getBits();
+        int bits = a.getBits();
+        return addOverflowsPositively(a.upperBound(), b.upperBound(), bits) || addOverflowsNegatively(a.lowerBound(), b.lowerBound(), bits);
+    }
+
+    /**
+     * Determines whether the difference of any two values described by {@code a} and {@code b} can
+     * be outside the range of their common bit width.
+     */
+    public static boolean subtractCanOverflow(IntegerStamp a, IntegerStamp b) {
+        assert a.getBits() == b.getBits();
+        int bits = a.getBits();
+        return subtractionOverflows(a.upperBound(), b.lowerBound(), bits) || subtractionOverflows(a.lowerBound(), b.upperBound(), bits);
+    }
+
+    /**
+     * Determines whether the product of any two values described by {@code a} and {@code b} can be
+     * outside the range of their common bit width.
+     */
+    public static boolean multiplicationCanOverflow(IntegerStamp a, IntegerStamp b) {
+        assert a.getBits() == b.getBits();
+        int bits = a.getBits();
+        return multiplicationOverflows(a.lowerBound(), b.lowerBound(), bits) || multiplicationOverflows(a.lowerBound(), b.upperBound(), bits) ||
+                        multiplicationOverflows(a.upperBound(), b.lowerBound(), bits) || multiplicationOverflows(a.upperBound(), b.upperBound(), bits);
+    }
+
     public static long carryBits(long x, long y) {
         return (x + y) ^ x ^ y;
     }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests that structurally identical graphs share their machine code.
+ */
+public class CompilationResultCacheTest extends GraalCompilerTest {
+
+    static class A {
+        int x;
+
+        int getX() {
+            return x;
+        }
+    }
+
+    static class B {
+        int y;
+
+        int getY() {
+            return y;
+        }
+    }
+
+    static class C {
+        static double scale(double v) {
+            return v * 3.5 + 1.25;
+        }
+    }
+
+    static class D {
+        static double scale(double v) {
+            return v * 3.5 + 1.25;
+        }
+    }
+
+    public static int returnOne() {
+        return 1;
+    }
+
+    public static int returnTwo() {
+        return 2;
+    }
+
+    @SuppressWarnings("unused")
+    public static int secondAfterDouble(double d, int a) {
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static int secondAfterLong(long l, int a) {
+        return a;
+    }
+
+    @Test
+    public void testAccessors() {
+        ResolvedJavaMethod getX = getResolvedJavaMethod(A.class, "getX");
+        ResolvedJavaMethod getY = getResolvedJavaMethod(B.class, "getY");
+        CompilationResult first = compile(getX, null);
+        CompilationResult second = compile(getY, null);
+        Assert.assertSame(first.getTargetCode(), second.getTargetCode());
+        Assert.assertEquals(getY, second.getMethods()[0]);
+    }
+
+    /**
+     * Reuses a result whose floating point constants are placed in the data section.
+     */
+    @Test
+    public void testDataSectionConstants() {
+        ResolvedJavaMethod scaleC = getResolvedJavaMethod(C.class, "scale");
+        ResolvedJavaMethod scaleD = getResolvedJavaMethod(D.class, "scale");
+        CompilationResult first = compile(scaleC, null);
+        CompilationResult second = compile(scaleD, null);
+        Assert.assertSame(first.getTargetCode(), second.getTargetCode());
+        Assert.assertTrue(second.getDataSection().getSectionSize() > 0);
+        Assert.assertEquals(first.getDataSection().getSectionSize(), second.getDataSection().getSectionSize());
+        test(scaleC, null, 2.0);
+        test(scaleD, null, 2.0);
+    }
+
+    @Test
+    public void testConstants() {
+        CompilationResult first = compile(getResolvedJavaMethod("returnOne"), null);
+        CompilationResult second = compile(getResolvedJavaMethod("returnTwo"), null);
+        Assert.assertNotSame(first.getTargetCode(), second.getTargetCode());
+        test("returnOne");
+        test("returnTwo");
+    }
+
+    /**
+     * The unused first parameters are removed from both graphs, but {@code a} is passed in a
+     * different register since floating point and integer arguments are assigned independently.
+     */
+    @Test
+    public void testParameterKinds() {
+        CompilationResult first = compile(getResolvedJavaMethod("secondAfterDouble"), null);
+        CompilationResult second = compile(getResolvedJavaMethod("secondAfterLong"), null);
+        Assert.assertNotSame(first.getTargetCode(), second.getTargetCode());
+        test("secondAfterDouble", 1.5, 42);
+        test("secondAfterLong", 15L, 42);
+    }
+
+    static class E {
+        int z;
+
+        int getZ() {
+            return z;
+        }
+    }
+
+    static class F {
+        int w;
+
+        int getW() {
+            return w;
+        }
+    }
+
+    /**
+     * Results are not shared between compilations with different overridden options.
+     */
+    @SuppressWarnings("try")
+    @Test
+    public void testOptions() {
+        ResolvedJavaMethod getZ = getResolvedJavaMethod(E.class, "getZ");
+        ResolvedJavaMethod getW = getResolvedJavaMethod(F.class, "getW");
+        CompilationResult first = compile(getZ, null);
+        CompilationResult second;
+        try (OverrideScope s = OptionValue.override(GraalOptions.OptImplicitNullChecks, false)) {
+            second = compile(getW, null);
+        }
+        Assert.assertNotSame(first.getTargetCode(), second.getTargetCode());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.api.directives.GraalDirectives;
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.compiler.common.alloc.ComputeBlockOrder;
+import com.oracle.graal.compiler.common.cfg.Loop;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+/**
+ * Tests that {@link GraalOptions#HotColdSplitting} moves cold blocks to the end of the code
+ * emitting order without changing the order of the other blocks.
+ */
+public class ComputeBlockOrderTest extends GraalCompilerTest {
+
+    public static int rareCall(int value) {
+        return value * 31;
+    }
+
+    public static int coldBlockInLoopSnippet(int[] array) {
+        int sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            int value = array[i];
+            if (GraalDirectives.injectBranchProbability(ControlFlowGraph.MIN_PROBABILITY, value < 0)) {
+                sum += rareCall(value);
+            }
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testColdBlockInLoop() {
+        StructuredGraph graph = parseEager("coldBlockInLoopSnippet", AllowAssumptions.YES);
+        new CanonicalizerPhase().apply(graph, new PhaseContext(getProviders()));
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+
+        List<Block> order = codeEmittingOrder(cfg, true);
+        List<Block> unsplitOrder = codeEmittingOrder(cfg, false);
+
+        int firstCold = -1;
+        for (int i = 0; i < order.size(); i++) {
+            if (isCold(order.get(i))) {
+                if (firstCold == -1) {
+                    firstCold = i;
+                }
+            } else {
+                Assert.assertEquals("hot block " + order.get(i) + " follows a cold block", -1, firstCold);
+            }
+        }
+        Assert.assertNotEquals("expected a cold block", -1, firstCold);
+        Assert.assertEquals(hotBlocks(unsplitOrder), hotBlocks(order));
+
+        for (Loop<Block> loop : cfg.getLoops()) {
+            Block header = loop.getHeader();
+            if (loop.numBackedges() == 1) {
+                for (Block predecessor : header.getPredecessors()) {
+                    if (predecessor.isLoopEnd() && predecessor.getLoop() == loop) {
+                        Assert.assertEquals("loop header must follow its only loop end", order.indexOf(predecessor) + 1, order.indexOf(header));
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("try")
+    private static List<Block> codeEmittingOrder(ControlFlowGraph cfg, boolean hotColdSplitting) {
+        try (OverrideScope s = OptionValue.override(GraalOptions.HotColdSplitting, hotColdSplitting)) {
+            return ComputeBlockOrder.computeCodeEmittingOrder(cfg.getBlocks().length, cfg.getStartBlock());
+        }
+    }
+
+    private static boolean isCold(Block block) {
+        return block.probability() < GraalOptions.ColdBlockProbability.getValue() && !block.isLoopHeader() && !block.isLoopEnd();
+    }
+
+    private static List<Block> hotBlocks(List<Block> order) {
+        List<Block> hot = new ArrayList<>();
+        for (Block block : order) {
+            if (!isCold(block)) {
+                hot.add(block);
+            }
+        }
+        return hot;
+    }
+}
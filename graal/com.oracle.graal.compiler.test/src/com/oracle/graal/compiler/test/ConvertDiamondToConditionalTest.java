@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.ConvertDiamondToConditionalPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class ConvertDiamondToConditionalTest extends GraalCompilerTest {
+
+    public static int cheapArmsSnippet(int a, int b) {
+        int result;
+        if (a < b) {
+            result = a + 1;
+        } else {
+            result = b - 1;
+        }
+        return result;
+    }
+
+    public static int divisionSnippet(int a, int b) {
+        int result;
+        if (a < b) {
+            result = a / b;
+        } else {
+            result = b;
+        }
+        return result;
+    }
+
+    public static int nestedArithmeticSnippet(int a, int b) {
+        int result;
+        if (a < b) {
+            result = (a + 1) * b;
+        } else {
+            result = b;
+        }
+        return result;
+    }
+
+    @Test
+    public void testCheapArms() {
+        StructuredGraph graph = convert("cheapArmsSnippet", 0.5);
+        Assert.assertEquals(0, graph.getNodes(IfNode.TYPE).count());
+        Assert.assertEquals(1, graph.getNodes().filter(ConditionalNode.class).count());
+        test("cheapArmsSnippet", 1, 2);
+        test("cheapArmsSnippet", 2, 1);
+    }
+
+    @Test
+    public void testPredictableBranch() {
+        StructuredGraph graph = convert("cheapArmsSnippet", 0.99);
+        Assert.assertEquals(1, graph.getNodes(IfNode.TYPE).count());
+    }
+
+    @Test
+    public void testDivision() {
+        StructuredGraph graph = convert("divisionSnippet", 0.5);
+        Assert.assertEquals(1, graph.getNodes(IfNode.TYPE).count());
+    }
+
+    @Test
+    public void testNestedArithmetic() {
+        StructuredGraph graph = convert("nestedArithmeticSnippet", 0.5);
+        Assert.assertEquals(1, graph.getNodes(IfNode.TYPE).count());
+        test("nestedArithmeticSnippet", 1, 2);
+    }
+
+    private StructuredGraph convert(String snippet, double trueSuccessorProbability) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        new CanonicalizerPhase().apply(graph, new PhaseContext(getProviders()));
+        for (IfNode ifNode : graph.getNodes(IfNode.TYPE)) {
+            ifNode.setTrueSuccessorProbability(trueSuccessorProbability);
+        }
+        new ConvertDiamondToConditionalPhase().apply(graph);
+        return graph;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.memory.ReadNode;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FixedNodeValueNumberingPhase;
+import com.oracle.graal.phases.common.FloatingReadPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.common.RemoveValueProxyPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+import jdk.vm.ci.meta.JavaKind;
+import sun.misc.Unsafe;
+
+/**
+ * Tests the phase at its position in the mid tier, where the only reads that are still fixed are
+ * the ones that must not float, such as unsafe reads without a guard.
+ */
+public class FixedNodeValueNumberingTest extends GraalCompilerTest {
+
+    private static final long OFFSET = Unsafe.ARRAY_INT_BASE_OFFSET + Unsafe.ARRAY_INT_INDEX_SCALE;
+
+    public static int readTwiceSnippet(int[] array, long offset) {
+        return UNSAFE.getInt(array, offset) + UNSAFE.getInt(array, offset);
+    }
+
+    @Test
+    public void testReadTwice() {
+        StructuredGraph graph = prepareGraph("readTwiceSnippet");
+        Assert.assertEquals(1, arrayReads(graph));
+        test("readTwiceSnippet", new int[]{1, 2, 3}, OFFSET);
+    }
+
+    public static int readAfterWriteSnippet(int[] array, long offset, long otherOffset, int a) {
+        int x = UNSAFE.getInt(array, offset);
+        UNSAFE.putInt(array, otherOffset, a);
+        return x + UNSAFE.getInt(array, offset);
+    }
+
+    @Test
+    public void testReadAfterWrite() {
+        StructuredGraph graph = prepareGraph("readAfterWriteSnippet");
+        Assert.assertEquals(2, arrayReads(graph));
+        test("readAfterWriteSnippet", new int[]{1, 2, 3}, OFFSET, OFFSET, 5);
+    }
+
+    public static int invariantReadSnippet(int[] array, long offset, int n) {
+        int sum = 0;
+        int i = 0;
+        do {
+            sum += UNSAFE.getInt(array, offset);
+            i++;
+        } while (i < n);
+        return sum;
+    }
+
+    /**
+     * An unsafe read is fixed because it may depend on a check that is not its guard, so it stays
+     * in the loop even though its address is invariant and it is executed in every iteration.
+     */
+    @Test
+    public void testInvariantRead() {
+        StructuredGraph graph = prepareGraph("invariantReadSnippet");
+        Assert.assertEquals(1, arrayReadsInLoops(graph));
+        test("invariantReadSnippet", new int[]{1, 2, 3}, OFFSET, 10);
+    }
+
+    public static int checkedReadSnippet(int[] array, long offset, int n) {
+        int sum = 0;
+        int i = 0;
+        do {
+            if (offset < OFFSET + 8) {
+                sum += UNSAFE.getInt(array, offset);
+            }
+            i++;
+        } while (i < n);
+        return sum;
+    }
+
+    /**
+     * The read is only safe after the check on the offset and must not be moved in front of the
+     * loop.
+     */
+    @Test
+    public void testCheckedRead() {
+        StructuredGraph graph = prepareGraph("checkedReadSnippet");
+        Assert.assertEquals(1, arrayReadsInLoops(graph));
+        test("checkedReadSnippet", new int[]{1, 2, 3}, OFFSET, 10);
+    }
+
+    /**
+     * Applies the phases of the mid tier up to the position of the phase under test.
+     */
+    private StructuredGraph prepareGraph(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        PhaseContext context = new PhaseContext(getProviders());
+        CanonicalizerPhase canonicalizer = new CanonicalizerPhase();
+        canonicalizer.apply(graph, context);
+        new LoweringPhase(canonicalizer, LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+        new FloatingReadPhase().apply(graph);
+        canonicalizer.apply(graph, context);
+        new RemoveValueProxyPhase().apply(graph);
+        new FixedNodeValueNumberingPhase().apply(graph);
+        return graph;
+    }
+
+    private static boolean isArrayRead(ReadNode read) {
+        return read.getLocationIdentity().equals(NamedLocationIdentity.getArrayLocation(JavaKind.Int));
+    }
+
+    private static int arrayReads(StructuredGraph graph) {
+        return graph.getNodes().filter(ReadNode.class).filter(n -> isArrayRead((ReadNode) n)).count();
+    }
+
+    private static int arrayReadsInLoops(StructuredGraph graph) {
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+        return graph.getNodes().filter(ReadNode.class).filter(n -> isArrayRead((ReadNode) n) && cfg.blockFor(n).getLoop() != null).count();
+    }
+}
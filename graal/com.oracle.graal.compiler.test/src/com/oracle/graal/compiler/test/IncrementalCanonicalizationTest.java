@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import static com.oracle.graal.compiler.common.GraalOptions.IncrementalCanonicalization;
+
+import org.junit.Test;
+
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.StructuredGraph.GuardsStage;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.MulNode;
+import com.oracle.graal.nodes.java.StoreFieldNode;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class IncrementalCanonicalizationTest extends GraalCompilerTest {
+
+    public static int testSnippet(int a, int b, int c) {
+        return a * b + c;
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testChangedNodeIsCanonicalized() {
+        try (OverrideScope s = OptionValue.override(IncrementalCanonicalization, true)) {
+            StructuredGraph graph = parseEager("testSnippet", AllowAssumptions.YES);
+            PhaseContext context = new PhaseContext(getProviders());
+            new CanonicalizerPhase().apply(graph, context);
+            assertTrue(graph.getChangedNodes() != null && graph.getChangedNodes().isEmpty());
+
+            MulNode mul = graph.getNodes().filter(MulNode.class).first();
+            ValueNode x = mul.getX();
+            mul.setX(graph.addWithoutUnique(new AddNode(x, ConstantNode.forInt(0, graph))));
+            assertTrue(graph.getChangedNodes().contains(mul));
+
+            new CanonicalizerPhase().apply(graph, context);
+            assertTrue(mul.getX() == x);
+            assertDeepEquals(1, graph.getNodes().filter(AddNode.class).count());
+            assertTrue(graph.getChangedNodes().isEmpty());
+        }
+    }
+
+    static int sink;
+
+    public static int branchSnippet(int a) {
+        if (a > 0) {
+            sink = a;
+        }
+        return 0;
+    }
+
+    /**
+     * Removing the only fixed node of a branch leaves an empty branch, which is only noticed when
+     * the predecessors of the removed node are processed.
+     */
+    @Test
+    @SuppressWarnings("try")
+    public void testRemovedFixedNode() {
+        try (OverrideScope s = OptionValue.override(IncrementalCanonicalization, true)) {
+            StructuredGraph graph = parseEager("branchSnippet", AllowAssumptions.YES);
+            PhaseContext context = new PhaseContext(getProviders());
+            new CanonicalizerPhase().apply(graph, context);
+            assertDeepEquals(1, graph.getNodes().filter(IfNode.class).count());
+
+            graph.removeFixed(graph.getNodes().filter(StoreFieldNode.class).first());
+            new CanonicalizerPhase().apply(graph, context);
+            assertDeepEquals(0, graph.getNodes().filter(IfNode.class).count());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testStateChangeRequiresFullRun() {
+        try (OverrideScope s = OptionValue.override(IncrementalCanonicalization, true)) {
+            StructuredGraph graph = parseEager("testSnippet", AllowAssumptions.YES);
+            PhaseContext context = new PhaseContext(getProviders());
+            new CanonicalizerPhase().apply(graph, context);
+            graph.setGuardsStage(GuardsStage.FIXED_DEOPTS);
+            assertTrue(graph.getChangedNodes() == null);
+            new CanonicalizerPhase().apply(graph, context);
+            assertTrue(graph.getChangedNodes() != null);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import static com.oracle.graal.compiler.common.GraalOptions.IncrementalScheduling;
+
+import org.junit.Test;
+
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.ReturnNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.StructuredGraph.ScheduleResult;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.debug.BlackholeNode;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.schedule.SchedulePhase;
+import com.oracle.graal.phases.schedule.SchedulePhase.SchedulingStrategy;
+
+public class IncrementalSchedulingTest extends GraalCompilerTest {
+
+    public static int testSnippet(int a, int b) {
+        int sum = 0;
+        for (int i = 0; i < a; i++) {
+            sum += i * b + 3;
+        }
+        return sum;
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testUnchanged() {
+        try (OverrideScope s = OptionValue.override(IncrementalScheduling, true)) {
+            StructuredGraph graph = parseEager("testSnippet", AllowAssumptions.YES);
+            new SchedulePhase(SchedulingStrategy.LATEST).apply(graph);
+            ScheduleResult first = graph.getLastSchedule();
+            new SchedulePhase(SchedulingStrategy.LATEST).apply(graph);
+            assertTrue(graph.getLastSchedule() == first);
+            new SchedulePhase(SchedulingStrategy.EARLIEST).apply(graph);
+            assertTrue(graph.getLastSchedule() != first);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testFloatingNodeChanged() {
+        try (OverrideScope s = OptionValue.override(IncrementalScheduling, true)) {
+            StructuredGraph graph = parseEager("testSnippet", AllowAssumptions.YES);
+            new SchedulePhase(SchedulingStrategy.LATEST).apply(graph);
+            ScheduleResult first = graph.getLastSchedule();
+            AddNode add = graph.getNodes().filter(AddNode.class).filter(n -> ((AddNode) n).getY().isConstant()).first();
+            add.setY(ConstantNode.forInt(5, graph));
+            new SchedulePhase(SchedulingStrategy.LATEST).apply(graph);
+            ScheduleResult second = graph.getLastSchedule();
+            assertTrue(second != first);
+            assertTrue(second.getCFG() == first.getCFG());
+            assertSameSchedule(graph, second);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testFixedNodeChanged() {
+        try (OverrideScope s = OptionValue.override(IncrementalScheduling, true)) {
+            StructuredGraph graph = parseEager("testSnippet", AllowAssumptions.YES);
+            new SchedulePhase(SchedulingStrategy.LATEST).apply(graph);
+            ScheduleResult first = graph.getLastSchedule();
+            ReturnNode ret = graph.getNodes(ReturnNode.TYPE).first();
+            graph.addBeforeFixed(ret, graph.add(new BlackholeNode(ret.result())));
+            new SchedulePhase(SchedulingStrategy.LATEST).apply(graph);
+            ScheduleResult second = graph.getLastSchedule();
+            assertTrue(second.getCFG() != first.getCFG());
+            assertSameSchedule(graph, second);
+        }
+    }
+
+    /**
+     * Checks that {@code schedule} assigns all nodes to the same blocks as a schedule computed from
+     * scratch.
+     */
+    private static void assertSameSchedule(StructuredGraph graph, ScheduleResult schedule) {
+        SchedulePhase.Instance fresh = new SchedulePhase.Instance();
+        fresh.run(graph, SchedulingStrategy.LATEST, true);
+        for (Node node : graph.getNodes()) {
+            if (schedule.getNodeToBlockMap().get(node) == null) {
+                assertTrue(fresh.getCFG().blockFor(node) == null);
+            } else {
+                assertTrue(node.toString(), schedule.getNodeToBlockMap().get(node).getBeginNode() == fresh.getCFG().blockFor(node).getBeginNode());
+            }
+        }
+    }
+}
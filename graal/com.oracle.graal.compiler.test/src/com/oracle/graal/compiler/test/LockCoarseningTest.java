@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Test;
+
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.java.MonitorExitNode;
+import com.oracle.graal.nodes.java.RawMonitorEnterNode;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
+import com.oracle.graal.phases.common.GuardLoweringPhase;
+import com.oracle.graal.phases.common.LockCoarseningPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+public class LockCoarseningTest extends GraalCompilerTest {
+
+    static class A {
+
+        int value;
+
+        public synchronized void add(int x) {
+            value += x;
+        }
+    }
+
+    static int field1;
+    static int field2;
+
+    public static void testGapSnippet(A x, int a) {
+        synchronized (x) {
+            field1 = a;
+        }
+        field2 = a + 1;
+        synchronized (x) {
+            field1 += a;
+        }
+    }
+
+    @Test
+    public void testGap() {
+        test("testGapSnippet", new A(), 3);
+        checkLocks("testGapSnippet", 1);
+    }
+
+    public static int testSynchronizedMethodSnippet(A x, int a, int b) {
+        x.add(a);
+        field1 = b;
+        x.add(b);
+        return x.value;
+    }
+
+    @Test
+    public void testSynchronizedMethod() {
+        test("testSynchronizedMethodSnippet", new A(), 1, 2);
+        checkLocks("testSynchronizedMethodSnippet", 1);
+    }
+
+    public static void testDifferentObjectsSnippet(A x, A y, int a) {
+        synchronized (x) {
+            field1 = a;
+        }
+        field2 = a;
+        synchronized (y) {
+            field1 += a;
+        }
+    }
+
+    @Test
+    public void testDifferentObjects() {
+        test("testDifferentObjectsSnippet", new A(), new A(), 3);
+        checkLocks("testDifferentObjectsSnippet", 2);
+    }
+
+    public static void testCallSnippet(A x, Object o) {
+        synchronized (x) {
+            field1 = 1;
+        }
+        field2 = o.hashCode();
+        synchronized (x) {
+            field1 = 2;
+        }
+    }
+
+    /**
+     * A call between the regions can deoptimize, so the lock must not be held during it.
+     */
+    @Test
+    public void testCall() {
+        test("testCallSnippet", new A(), "o");
+        checkLocks("testCallSnippet", 2);
+    }
+
+    private void checkLocks(String snippet, int expectedLocks) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(snippet);
+        StructuredGraph graph = parseEager(method, AllowAssumptions.YES);
+        HighTierContext context = getDefaultHighTierContext();
+        new CanonicalizerPhase().apply(graph, context);
+        new InliningPhase(new CanonicalizerPhase()).apply(graph, context);
+        new CanonicalizerPhase().apply(graph, context);
+        new DeadCodeEliminationPhase().apply(graph);
+        new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+        MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo());
+        new GuardLoweringPhase().apply(graph, midContext);
+        new LockCoarseningPhase().apply(graph);
+        assertDeepEquals(expectedLocks, graph.getNodes().filter(RawMonitorEnterNode.class).count());
+        assertDeepEquals(expectedLocks, graph.getNodes().filter(MonitorExitNode.class).count());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.loop.phases.LoopPredicationPhase;
+import com.oracle.graal.nodes.DeoptimizingGuard;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FloatingReadPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.common.RemoveValueProxyPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.DeoptimizationReason;
+
+public class LoopPredicationTest extends GraalCompilerTest {
+
+    public static int sumUpSnippet(int[] array, int start, int end) {
+        int sum = 0;
+        for (int i = start; i < end; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    /**
+     * The array length is read in the loop, after a null check of the array. The length is read in
+     * front of the loop if the array is not null and the predicate replaces both the bounds check
+     * and the null check.
+     */
+    @Test
+    public void testSumUp() {
+        StructuredGraph graph = predicate("sumUpSnippet");
+        Assert.assertEquals(0, guardsInLoops(graph, DeoptimizationReason.BoundsCheckException));
+        Assert.assertEquals(0, guardsInLoops(graph, DeoptimizationReason.NullCheckException));
+        test("sumUpSnippet", null, 0, 0);
+        int[] array = {1, 2, 3, 4, 5};
+        test("sumUpSnippet", array, 0, 5);
+        test("sumUpSnippet", array, 1, 3);
+        test("sumUpSnippet", array, 3, 1);
+        test("sumUpSnippet", array, 0, 6);
+        test("sumUpSnippet", array, -1, 3);
+    }
+
+    /**
+     * A loop that is not entered must not deoptimize for a null array.
+     */
+    @Test
+    public void testEmptyRangeNullArray() throws InvalidInstalledCodeException {
+        InstalledCode code = getCode(getResolvedJavaMethod("sumUpSnippet"), null, true);
+        Assert.assertEquals(0, code.executeVarargs(null, 0, 0));
+        Assert.assertEquals(0, code.executeVarargs(null, 3, 1));
+        Assert.assertTrue(code.isValid());
+    }
+
+    public static int sumDownSnippet(int[] array, int start) {
+        int sum = 0;
+        for (int i = start; i >= 0; i -= 2) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSumDown() {
+        Assert.assertEquals(0, guardsInLoops(predicate("sumDownSnippet"), DeoptimizationReason.BoundsCheckException));
+        int[] array = {1, 2, 3, 4, 5};
+        test("sumDownSnippet", array, 4);
+        test("sumDownSnippet", array, 3);
+        test("sumDownSnippet", array, -1);
+        test("sumDownSnippet", array, 5);
+    }
+
+    public static int sumEarlyExitSnippet(int[] array, int end) {
+        int sum = 0;
+        for (int i = 0; i < end; i++) {
+            if (sum > 100) {
+                break;
+            }
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSumEarlyExit() {
+        int[] array = {50, 50, 50, 50};
+        test("sumEarlyExitSnippet", array, 4);
+        test("sumEarlyExitSnippet", array, 10);
+    }
+
+    /**
+     * Applies the phase at the position it has in the mid tier, i.e., after floating reads.
+     */
+    private StructuredGraph predicate(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        HighTierContext highContext = getDefaultHighTierContext();
+        CanonicalizerPhase canonicalizer = new CanonicalizerPhase();
+        new LoweringPhase(canonicalizer, LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, highContext);
+        new FloatingReadPhase().apply(graph);
+        new RemoveValueProxyPhase().apply(graph);
+        canonicalizer.apply(graph, highContext);
+        MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo());
+        new LoopPredicationPhase().apply(graph, midContext);
+        canonicalizer.apply(graph, highContext);
+        return graph;
+    }
+
+    private static int guardsInLoops(StructuredGraph graph, DeoptimizationReason reason) {
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+        return graph.getNodes().filter(GuardNode.class).filter(n -> ((DeoptimizingGuard) n).getReason() == reason && cfg.blockFor(((GuardNode) n).getAnchor().asNode()).getLoop() != null).count();
+    }
+}
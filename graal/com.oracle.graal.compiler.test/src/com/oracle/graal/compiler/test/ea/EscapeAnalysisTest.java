@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.compiler.test.ea;
 
+import static com.oracle.graal.compiler.common.GraalOptions.OptEliminateExceptionStackTraces;
+
 import jdk.vm.ci.meta.JavaConstant;
 
 import org.junit.Assert;
@@ -34,6 +36,8 @@ import com.oracle.graal.loop.phases.LoopPeelingPhase;
 import com.oracle.graal.nodes.extended.ValueAnchorNode;
 import com.oracle.graal.nodes.virtual.AllocatedObjectNode;
 import com.oracle.graal.nodes.virtual.CommitAllocationNode;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.schedule.SchedulePhase;
 import com.oracle.graal.virtual.phases.ea.PartialEscapePhase;
@@ -370,4 +374,154 @@ public class EscapeAnalysisTest extends EATestBase {
     public void testDeoptMonitor() {
         test("testDeoptMonitorSnippet", new Object(), 0);
     }
+
+    public static int testLocalExceptionSnippet(int a) {
+        try {
+            if (a < 0) {
+                throw new IllegalArgumentException();
+            }
+            return a;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testLocalException() {
+        try (OverrideScope s = OptionValue.override(OptEliminateExceptionStackTraces, true)) {
+            testEscapeAnalysis("testLocalExceptionSnippet", null, false);
+            test("testLocalExceptionSnippet", 1);
+            test("testLocalExceptionSnippet", -1);
+        }
+    }
+
+    static int fillInStackTraceCount;
+
+    static class CountingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            fillInStackTraceCount++;
+            return super.fillInStackTrace();
+        }
+    }
+
+    public static int testOverriddenFillInStackTraceSnippet(int a) {
+        fillInStackTraceCount = 0;
+        try {
+            if (a < 0) {
+                throw new CountingException();
+            }
+            return a;
+        } catch (CountingException e) {
+            return fillInStackTraceCount;
+        }
+    }
+
+    /**
+     * An override of {@link Throwable#fillInStackTrace()} must still be called.
+     */
+    @Test
+    @SuppressWarnings("try")
+    public void testOverriddenFillInStackTrace() {
+        try (OverrideScope s = OptionValue.override(OptEliminateExceptionStackTraces, true)) {
+            test("testOverriddenFillInStackTraceSnippet", 1);
+            test("testOverriddenFillInStackTraceSnippet", -1);
+        }
+    }
+
+    public static int testVariableIndexLoadSnippet(int i) {
+        int[] array = new int[]{1, 2, 3, 4};
+        return array[i & 3];
+    }
+
+    @Test
+    public void testVariableIndexLoad() {
+        testEscapeAnalysis("testVariableIndexLoadSnippet", null, false);
+        for (int i = 0; i < 4; i++) {
+            test("testVariableIndexLoadSnippet", i);
+        }
+    }
+
+    public static int testVariableIndexStoreSnippet(int i) {
+        byte[] array = new byte[4];
+        array[i & 3] = (byte) i;
+        return array[0] + array[1] * 3 + array[2] * 5 + array[3] * 7;
+    }
+
+    @Test
+    public void testVariableIndexStore() {
+        testEscapeAnalysis("testVariableIndexStoreSnippet", null, false);
+        for (int i = 0; i < 8; i++) {
+            test("testVariableIndexStoreSnippet", i);
+        }
+    }
+
+    public static int testLoopPhiMergeSnippet(int n) {
+        TestClassInt t = new TestClassInt(0, 0);
+        for (int i = 0; i < n; i++) {
+            t = new TestClassInt(t.x + i, t.y + 1);
+        }
+        return t.x + t.y;
+    }
+
+    @Test
+    public void testLoopPhiMerge() {
+        testEscapeAnalysis("testLoopPhiMergeSnippet", null, false);
+        test("testLoopPhiMergeSnippet", 10);
+    }
+
+    public static boolean testLoopPhiIdentitySnippet(int n) {
+        TestClassInt first = new TestClassInt(0, 0);
+        TestClassInt t = first;
+        for (int i = 0; i < n; i++) {
+            t = new TestClassInt(t.x + i, t.y + 1);
+        }
+        return t == first;
+    }
+
+    @Test
+    public void testLoopPhiIdentity() {
+        test("testLoopPhiIdentitySnippet", 0);
+        test("testLoopPhiIdentitySnippet", 3);
+    }
+
+    public static boolean testPhiIdentityEscapesToLaterMergeSnippet(boolean c1, boolean c2) {
+        TestClassInt x = new TestClassInt(1, 0);
+        TestClassInt p;
+        TestClassInt r;
+        if (c1) {
+            p = c2 ? x : new TestClassInt(2, 0);
+            r = x;
+        } else {
+            p = null;
+            r = new TestClassInt(3, 0);
+        }
+        return r == p;
+    }
+
+    @Test
+    public void testPhiIdentityEscapesToLaterMerge() {
+        test("testPhiIdentityEscapesToLaterMergeSnippet", true, true);
+        test("testPhiIdentityEscapesToLaterMergeSnippet", true, false);
+        test("testPhiIdentityEscapesToLaterMergeSnippet", false, true);
+    }
+
+    public static boolean testPhiIdentityUsedAfterLaterMergeSnippet(boolean c1, boolean c2) {
+        TestClassInt x = new TestClassInt(1, 0);
+        TestClassInt p = null;
+        if (c1) {
+            p = c2 ? x : new TestClassInt(2, 0);
+        }
+        return x == p;
+    }
+
+    @Test
+    public void testPhiIdentityUsedAfterLaterMerge() {
+        test("testPhiIdentityUsedAfterLaterMergeSnippet", true, true);
+        test("testPhiIdentityUsedAfterLaterMergeSnippet", true, false);
+        test("testPhiIdentityUsedAfterLaterMergeSnippet", false, true);
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.inlining;
+
+import static com.oracle.graal.phases.common.inlining.EscapeSummary.EscapeState.ARG_ESCAPE;
+import static com.oracle.graal.phases.common.inlining.EscapeSummary.EscapeState.GLOBAL_ESCAPE;
+import static com.oracle.graal.phases.common.inlining.EscapeSummary.EscapeState.NO_ESCAPE;
+import static com.oracle.graal.phases.common.inlining.EscapeSummary.EscapeState.RETURNED;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.phases.common.inlining.EscapeSummary;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+public class EscapeSummaryTest extends GraalCompilerTest {
+
+    static class Box {
+        Object value;
+        int count;
+    }
+
+    static Object sink;
+
+    public static int readSnippet(Box b) {
+        b.count++;
+        return b.count;
+    }
+
+    public static Object returnSnippet(Box b, Object o) {
+        if (b.count > 0) {
+            return b;
+        }
+        return o;
+    }
+
+    public static void storeSnippet(Box b, Object o) {
+        b.value = o;
+    }
+
+    public static void staticStoreSnippet(Box b) {
+        sink = b;
+    }
+
+    public static native void notInlined(Object o);
+
+    public static void callSnippet(Box b) {
+        notInlined(b);
+    }
+
+    public static int calleeSummarySnippet(Box b) {
+        return readSnippet(b);
+    }
+
+    public static void nestedCalleeSummarySnippet(Box b, Object o) {
+        storeSnippet(b, o);
+    }
+
+    public static Object recursiveSnippet(Box b, int n) {
+        return n <= 0 ? b : recursiveSnippet(b, n - 1);
+    }
+
+    private EscapeSummary summary(String snippet) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(snippet);
+        return EscapeSummary.get(method, parseEager(method, AllowAssumptions.YES), callee -> callee.hasBytecodes() ? parseEager(callee, AllowAssumptions.YES) : null);
+    }
+
+    @Test
+    public void testNoEscape() {
+        Assert.assertEquals(NO_ESCAPE, summary("readSnippet").getState(0));
+    }
+
+    @Test
+    public void testReturned() {
+        EscapeSummary s = summary("returnSnippet");
+        Assert.assertEquals(RETURNED, s.getState(0));
+        Assert.assertEquals(RETURNED, s.getState(1));
+    }
+
+    @Test
+    public void testStored() {
+        EscapeSummary s = summary("storeSnippet");
+        Assert.assertEquals(NO_ESCAPE, s.getState(0));
+        Assert.assertEquals(GLOBAL_ESCAPE, s.getState(1));
+        Assert.assertEquals(GLOBAL_ESCAPE, summary("staticStoreSnippet").getState(0));
+    }
+
+    /**
+     * The summary of a callee is computed on demand, so that it does not matter whether the callee
+     * was summarized before.
+     */
+    @Test
+    public void testNestedCall() {
+        EscapeSummary s = summary("nestedCalleeSummarySnippet");
+        Assert.assertEquals(NO_ESCAPE, s.getState(0));
+        Assert.assertEquals(GLOBAL_ESCAPE, s.getState(1));
+    }
+
+    @Test
+    public void testRecursiveCall() {
+        Assert.assertEquals(ARG_ESCAPE, summary("recursiveSnippet").getState(0));
+    }
+
+    @Test
+    public void testCall() {
+        Assert.assertEquals(ARG_ESCAPE, summary("callSnippet").getState(0));
+        Assert.assertEquals(NO_ESCAPE, summary("calleeSummarySnippet").getState(0));
+    }
+}
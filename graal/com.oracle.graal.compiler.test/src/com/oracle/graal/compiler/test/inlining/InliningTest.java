@@ -22,12 +22,16 @@
  */
 package com.oracle.graal.compiler.test.inlining;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import jdk.vm.ci.code.site.InfopointReason;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.oracle.graal.compiler.common.GraalOptions;
 import com.oracle.graal.compiler.test.GraalCompilerTest;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
@@ -38,11 +42,15 @@ import com.oracle.graal.nodes.Invoke;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.BasePhase;
 import com.oracle.graal.phases.OptimisticOptimizations;
 import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
 import com.oracle.graal.phases.common.inlining.InliningPhase;
+import com.oracle.graal.phases.common.inlining.info.elem.InlineeGraphPrefetcher;
 import com.oracle.graal.phases.tiers.HighTierContext;
 
 public class InliningTest extends GraalCompilerTest {
@@ -71,6 +79,107 @@ public class InliningTest extends GraalCompilerTest {
         assertInlined(getGraph("invokeMethodOnStaticFinalFieldSnippet", false));
     }
 
+    @SuppressWarnings("try")
+    @Test
+    public void testCostBenefitInlining() {
+        try (OverrideScope s = OptionValue.override(InliningPhase.Options.CostBenefitInlining, true)) {
+            assertInlined(getGraph("invokeStaticSnippet", false));
+            assertInlined(getGraph("invokeConstructorSnippet", false));
+            assertInlined(getGraph("invokeFinalMethodSnippet", false));
+            assertInlined(getGraph("invokeMethodOnFinalClassSnippet", false));
+        }
+    }
+
+    public static int invokeLargeMethodSnippet(int a) {
+        return largeMethod(a);
+    }
+
+    static int largeMethod(int a) {
+        int result = a;
+        for (int i = 0; i < a; i++) {
+            if (i % 3 == 0) {
+                result += i * 7;
+            } else if (i % 5 == 0) {
+                result ^= i;
+            } else {
+                result -= a / (i + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A callee that is not trivial is only inlined while it fits into the budget of the
+     * compilation.
+     */
+    @SuppressWarnings("try")
+    @Test
+    public void testCostBenefitInliningBudget() {
+        try (OverrideScope s = OptionValue.override(InliningPhase.Options.CostBenefitInlining, true)) {
+            assertInlined(getGraph("invokeLargeMethodSnippet", false));
+        }
+        try (OverrideScope s = OptionValue.override(InliningPhase.Options.CostBenefitInlining, true, GraalOptions.MaximumDesiredSize, 30)) {
+            assertNotInlined(getGraph("invokeLargeMethodSnippet", false));
+        }
+    }
+
+    @SuppressWarnings("try")
+    @Test
+    public void testInlineeGraphCache() {
+        try (OverrideScope s = OptionValue.override(GraalOptions.UseInlineeGraphCache, true, GraalOptions.InlineeGraphCacheMatureProfilesOnly, false)) {
+            ParseCountingPhase counter = new ParseCountingPhase();
+            PhaseSuite<HighTierContext> graphBuilderSuite = getDefaultGraphBuilderSuite();
+            graphBuilderSuite.appendPhase(counter);
+
+            assertInlined(getGraph("invokeFinalMethodSnippet", graphBuilderSuite));
+            int parsed = counter.count;
+            assertTrue("the inlinee was not parsed", parsed > 0);
+
+            assertInlined(getGraph("invokeFinalMethodSnippet", graphBuilderSuite));
+            assertDeepEquals("the inlinee was parsed again instead of being taken from the cache", parsed, counter.count);
+        }
+    }
+
+    /**
+     * Counts the graphs built by the graph builder suite it is appended to.
+     */
+    private static final class ParseCountingPhase extends BasePhase<HighTierContext> {
+
+        int count;
+
+        @Override
+        protected void run(StructuredGraph graph, HighTierContext context) {
+            count++;
+        }
+    }
+
+    @SuppressWarnings("try")
+    @Test
+    public void testParallelInlineeParsing() {
+        try (OverrideScope s = OptionValue.override(InliningPhase.Options.ParallelInlineeParsing, true)) {
+            assertInlined(getGraph("invokeStaticSnippet", false));
+            assertInlined(getGraph("invokeConstructorSnippet", false));
+            assertInlined(getGraph("invokeFinalMethodSnippet", false));
+            assertManyMethodInfopoints(assertInlined(getGraph("invokeMethodOnFinalClassSnippet", true)));
+
+            StructuredGraph graph = parseEager("invokeFinalMethodSnippet", AllowAssumptions.YES);
+            HighTierContext context = new HighTierContext(getProviders(), getDefaultGraphBuilderSuite(), OptimisticOptimizations.ALL);
+            InlineeGraphPrefetcher prefetcher = new InlineeGraphPrefetcher(context, new CanonicalizerPhase());
+            prefetcher.prefetch(graph);
+            Set<ResolvedJavaMethod> callees = new HashSet<>();
+            for (Invoke invoke : graph.getInvokes()) {
+                callees.add(invoke.callTarget().targetMethod());
+            }
+            assertTrue(!callees.isEmpty());
+            for (ResolvedJavaMethod callee : callees) {
+                StructuredGraph calleeGraph = prefetcher.take(callee, graph);
+                assertTrue("callee was not prefetched: " + callee, calleeGraph != null);
+                assertTrue(calleeGraph.method().equals(callee));
+            }
+            prefetcher.cancel();
+        }
+    }
+
     @Ignore("would need read elimination/EA before inlining")
     @Test
     public void testDependentStaticBindableInlining() {
@@ -234,15 +343,23 @@ public class InliningTest extends GraalCompilerTest {
         return superClass.protectedOverriddenMethod();
     }
 
-    @SuppressWarnings("try")
     private StructuredGraph getGraph(final String snippet, final boolean eagerInfopointMode) {
+        PhaseSuite<HighTierContext> graphBuilderSuite = eagerInfopointMode
+                        ? getCustomGraphBuilderSuite(GraphBuilderConfiguration.getDefault(getDefaultGraphBuilderPlugins()).withFullInfopoints(true))
+                        : getDefaultGraphBuilderSuite();
+        return getGraph(snippet, eagerInfopointMode, graphBuilderSuite);
+    }
+
+    private StructuredGraph getGraph(final String snippet, PhaseSuite<HighTierContext> graphBuilderSuite) {
+        return getGraph(snippet, false, graphBuilderSuite);
+    }
+
+    @SuppressWarnings("try")
+    private StructuredGraph getGraph(final String snippet, final boolean eagerInfopointMode, PhaseSuite<HighTierContext> graphBuilderSuite) {
         try (Scope s = Debug.scope("InliningTest", new DebugDumpScope(snippet, true))) {
             ResolvedJavaMethod method = getResolvedJavaMethod(snippet);
             StructuredGraph graph = eagerInfopointMode ? parseDebug(method, AllowAssumptions.YES) : parseEager(method, AllowAssumptions.YES);
             try (Scope s2 = Debug.scope("Inlining", graph)) {
-                PhaseSuite<HighTierContext> graphBuilderSuite = eagerInfopointMode
-                                ? getCustomGraphBuilderSuite(GraphBuilderConfiguration.getDefault(getDefaultGraphBuilderPlugins()).withFullInfopoints(true))
-                                : getDefaultGraphBuilderSuite();
                 HighTierContext context = new HighTierContext(getProviders(), graphBuilderSuite, OptimisticOptimizations.ALL);
                 Debug.dump(Debug.BASIC_LOG_LEVEL, graph, "Graph");
                 new CanonicalizerPhase().apply(graph, context);
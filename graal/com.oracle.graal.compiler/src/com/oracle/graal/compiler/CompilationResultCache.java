@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler;
+
+import static com.oracle.graal.compiler.GraalCompilerOptions.CompilationResultCacheMaxNodes;
+import static com.oracle.graal.compiler.GraalCompilerOptions.CompilationResultCacheSize;
+import static com.oracle.graal.compiler.GraalCompilerOptions.ReuseCompilationResults;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.compiler.common.Fields;
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.ObjectStamp;
+import com.oracle.graal.compiler.target.Backend;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.NodeMap;
+import com.oracle.graal.graph.Position;
+import com.oracle.graal.lir.asm.CompilationResultBuilderFactory;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.ScheduleResult;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.options.OptionValue;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.Signature;
+import jdk.vm.ci.runtime.JVMCICompiler;
+
+/**
+ * Keeps the compilation results of small graphs so that the back end can be skipped for a later
+ * graph with the same {@linkplain Fingerprint structural fingerprint}. Many generated methods, such
+ * as accessors, compile to the same code.
+ *
+ * Only graphs without {@linkplain FrameState frame states} are considered. Their code contains no
+ * debug information and therefore nothing that refers to the compiled method. The fingerprint
+ * includes all constants. Object types in stamps and the identities of memory locations are not
+ * part of the fingerprint since the schedule is fixed and code generation does not depend on them.
+ * Unused parameters are removed from the graph, so the fingerprint also includes the kinds of the
+ * parameters and of the return value, which determine the calling convention.
+ *
+ * Results are only shared between compilations with the same {@linkplain OptionValue#getOverrides()
+ * overridden options}.
+ */
+final class CompilationResultCache {
+
+    private static final DebugCounter ReusedCompilationResults = Debug.counter("ReusedCompilationResults");
+
+    /**
+     * The structural fingerprint of a scheduled graph together with the inputs to the back end
+     * that are not part of the graph.
+     */
+    static final class Fingerprint {
+        private final Backend backend;
+        private final boolean hasReceiver;
+        private final boolean hasUnsafeAccess;
+        private final JavaKind[] parameterKinds;
+        private final JavaKind returnKind;
+        private final Map<OptionValue<?>, Object> options;
+        private final List<Object> elements;
+        private final int hash;
+
+        private Fingerprint(Backend backend, boolean hasReceiver, boolean hasUnsafeAccess, JavaKind[] parameterKinds, JavaKind returnKind, Map<OptionValue<?>, Object> options,
+                        List<Object> elements) {
+            this.backend = backend;
+            this.hasReceiver = hasReceiver;
+            this.hasUnsafeAccess = hasUnsafeAccess;
+            this.parameterKinds = parameterKinds;
+            this.returnKind = returnKind;
+            this.options = options;
+            this.elements = elements;
+            this.hash = elements.hashCode() * 31 + Arrays.hashCode(parameterKinds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Fingerprint) {
+                Fingerprint that = (Fingerprint) obj;
+                return this.hash == that.hash && this.backend == that.backend && this.hasReceiver == that.hasReceiver && this.hasUnsafeAccess == that.hasUnsafeAccess &&
+                                this.returnKind == that.returnKind && Arrays.equals(this.parameterKinds, that.parameterKinds) && this.elements.equals(that.elements);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Marker elements for the abstracted parts of the fingerprint.
+     */
+    private enum Abstraction {
+        ANY_LOCATION,
+        IMMUTABLE_LOCATION,
+        MUTABLE_LOCATION,
+        NO_NODE
+    }
+
+    private static final class ObjectStampAbstraction {
+        private final boolean nonNull;
+        private final boolean alwaysNull;
+
+        ObjectStampAbstraction(ObjectStamp stamp) {
+            this.nonNull = stamp.nonNull();
+            this.alwaysNull = stamp.alwaysNull();
+        }
+
+        @Override
+        public int hashCode() {
+            return (nonNull ? 1 : 0) + (alwaysNull ? 2 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof ObjectStampAbstraction) {
+                ObjectStampAbstraction that = (ObjectStampAbstraction) obj;
+                return this.nonNull == that.nonNull && this.alwaysNull == that.alwaysNull;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The maximum number of distinct sets of overridden options for which results are kept.
+     */
+    private static final int MAX_OPTION_SCOPES = 8;
+
+    /**
+     * The cached results for each set of overridden options.
+     */
+    private static final Map<Map<OptionValue<?>, Object>, Map<Fingerprint, CompilationResult>> caches = new LinkedHashMap<Map<OptionValue<?>, Object>, Map<Fingerprint, CompilationResult>>(16,
+                    0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Map<OptionValue<?>, Object>, Map<Fingerprint, CompilationResult>> eldest) {
+            return size() > MAX_OPTION_SCOPES;
+        }
+    };
+
+    private static Map<Fingerprint, CompilationResult> cacheFor(Map<OptionValue<?>, Object> options) {
+        assert Thread.holdsLock(caches);
+        Map<Fingerprint, CompilationResult> cache = caches.get(options);
+        if (cache == null) {
+            cache = new LinkedHashMap<Fingerprint, CompilationResult>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Fingerprint, CompilationResult> eldest) {
+                    return size() > CompilationResultCacheSize.getValue();
+                }
+            };
+            caches.put(options, cache);
+        }
+        return cache;
+    }
+
+    private CompilationResultCache() {
+    }
+
+    /**
+     * Computes the fingerprint of a graph after the low tier.
+     *
+     * @return {@code null} if the compilation result for {@code graph} must not be shared
+     */
+    static Fingerprint fingerprint(StructuredGraph graph, Backend backend, ResolvedJavaMethod installedCodeOwner, CompilationResult compilationResult,
+                    CompilationResultBuilderFactory factory) {
+        if (!ReuseCompilationResults.getValue() || compilationResult.getClass() != CompilationResult.class || factory != CompilationResultBuilderFactory.Default) {
+            return null;
+        }
+        if (graph.method() == null || graph.getEntryBCI() != JVMCICompiler.INVOCATION_ENTRY_BCI || graph.getNodeCount() > CompilationResultCacheMaxNodes.getValue()) {
+            return null;
+        }
+        if (graph.getNodes().filter(FrameState.class).isNotEmpty()) {
+            return null;
+        }
+        ScheduleResult schedule = graph.getLastSchedule();
+        if (schedule == null) {
+            return null;
+        }
+        FingerprintBuilder builder = new FingerprintBuilder(graph);
+        for (Block block : schedule.getCFG().getBlocks()) {
+            for (Node node : schedule.nodesFor(block)) {
+                builder.describe(node);
+            }
+        }
+        boolean hasReceiver = installedCodeOwner != null && !installedCodeOwner.isStatic();
+        ResolvedJavaMethod method = graph.method();
+        Signature signature = method.getSignature();
+        JavaKind[] parameterKinds = signature.toParameterKinds(!method.isStatic());
+        JavaKind returnKind = signature.getReturnKind();
+        return new Fingerprint(backend, hasReceiver, graph.hasUnsafeAccess(), parameterKinds, returnKind, OptionValue.getOverrides(), builder.elements);
+    }
+
+    /**
+     * Describes nodes in schedule order. Each node is numbered on first encounter and its inputs
+     * and successors refer to nodes by number.
+     */
+    private static final class FingerprintBuilder {
+        private final NodeMap<Integer> ids;
+        private final List<Object> elements = new ArrayList<>();
+        private int nextId;
+
+        FingerprintBuilder(StructuredGraph graph) {
+            this.ids = graph.createNodeMap();
+        }
+
+        int describe(Node node) {
+            Integer id = ids.get(node);
+            if (id != null) {
+                return id;
+            }
+            // Number the node before its inputs to handle cycles through phis.
+            int newId = nextId++;
+            ids.set(node, newId);
+            NodeClass<?> nodeClass = node.getNodeClass();
+            List<Object> description = new ArrayList<>();
+            description.add(nodeClass);
+            Fields data = nodeClass.getData();
+            for (int i = 0; i < data.getCount(); i++) {
+                description.add(abstractValue(data.get(node, i)));
+            }
+            for (Position pos : node.inputPositions()) {
+                addEdge(pos, pos.get(node), description);
+            }
+            for (Position pos : node.successorPositions()) {
+                addEdge(pos, pos.get(node), description);
+            }
+            elements.add(newId);
+            elements.addAll(description);
+            return newId;
+        }
+
+        private void addEdge(Position pos, Node target, List<Object> description) {
+            description.add(pos.getIndex());
+            description.add(pos.getSubIndex());
+            description.add(target == null ? Abstraction.NO_NODE : describe(target));
+        }
+    }
+
+    private static Object abstractValue(Object value) {
+        if (value instanceof LocationIdentity) {
+            LocationIdentity location = (LocationIdentity) value;
+            if (location.isAny()) {
+                return Abstraction.ANY_LOCATION;
+            }
+            return location.isImmutable() ? Abstraction.IMMUTABLE_LOCATION : Abstraction.MUTABLE_LOCATION;
+        }
+        if (value != null && value.getClass() == ObjectStamp.class) {
+            return new ObjectStampAbstraction((ObjectStamp) value);
+        }
+        return value;
+    }
+
+    /**
+     * Fills {@code compilationResult} with the code of an earlier compilation that has the same
+     * fingerprint.
+     *
+     * @return {@code true} if the code was reused, {@code false} if the back end must be run
+     */
+    static boolean reuse(Fingerprint fingerprint, StructuredGraph graph, CompilationResult compilationResult) {
+        CompilationResult cached;
+        synchronized (caches) {
+            cached = cacheFor(fingerprint.options).get(fingerprint);
+        }
+        if (cached == null) {
+            return false;
+        }
+        compilationResult.copyCodeFrom(cached);
+        if (graph.getAssumptions() != null && !graph.getAssumptions().isEmpty()) {
+            compilationResult.setAssumptions(graph.getAssumptions().toArray());
+        }
+        compilationResult.setMethods(graph.method(), graph.getInlinedMethods());
+        compilationResult.setBytecodeSize(graph.getBytecodeSize());
+        compilationResult.close();
+        ReusedCompilationResults.increment();
+        return true;
+    }
+
+    static void add(Fingerprint fingerprint, CompilationResult compilationResult) {
+        if (compilationResult.getInfopoints().isEmpty() && compilationResult.getExceptionHandlers().isEmpty()) {
+            synchronized (caches) {
+                cacheFor(fingerprint.options).put(fingerprint, compilationResult);
+            }
+        }
+    }
+}
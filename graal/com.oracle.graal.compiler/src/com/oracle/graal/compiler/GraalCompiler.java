@@ -171,7 +171,13 @@ public class GraalCompiler {
             assert !r.graph.isFrozen();
             try (Scope s0 = Debug.scope("GraalCompiler", r.graph, r.providers.getCodeCache())) {
                 emitFrontEnd(r.providers, r.backend, r.graph, r.graphBuilderSuite, r.optimisticOpts, r.profilingInfo, r.suites);
-                emitBackEnd(r.graph, null, r.installedCodeOwner, r.backend, r.compilationResult, r.factory, null, r.lirSuites);
+                CompilationResultCache.Fingerprint fingerprint = CompilationResultCache.fingerprint(r.graph, r.backend, r.installedCodeOwner, r.compilationResult, r.factory);
+                if (fingerprint == null || !CompilationResultCache.reuse(fingerprint, r.graph, r.compilationResult)) {
+                    emitBackEnd(r.graph, null, r.installedCodeOwner, r.backend, r.compilationResult, r.factory, null, r.lirSuites);
+                    if (fingerprint != null) {
+                        CompilationResultCache.add(fingerprint, r.compilationResult);
+                    }
+                }
             } catch (Throwable e) {
                 throw Debug.handle(e);
             }
@@ -48,6 +48,12 @@ public class GraalCompilerOptions {
     public static final OptionValue<Boolean> ExitVMOnException = new OptionValue<>(false);
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> PrintStackTraceOnException = new OptionValue<>(false);
+    @Option(help = "Reuse the machine code of an earlier compilation whose final graph is structurally identical.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> ReuseCompilationResults = new OptionValue<>(true);
+    @Option(help = "Maximum number of compilation results kept for reuse.", type = OptionType.Expert)
+    public static final OptionValue<Integer> CompilationResultCacheSize = new OptionValue<>(1024);
+    @Option(help = "Maximum number of nodes in a graph whose compilation result is kept for reuse.", type = OptionType.Expert)
+    public static final OptionValue<Integer> CompilationResultCacheMaxNodes = new OptionValue<>(200);
     // @formatter:on
 
 }
@@ -37,6 +37,7 @@ import com.oracle.graal.nodes.IfNode;
 import com.oracle.graal.nodes.PiNode;
 import com.oracle.graal.nodes.calc.AddNode;
 import com.oracle.graal.nodes.calc.AndNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
 import com.oracle.graal.nodes.calc.FloatConvertNode;
 import com.oracle.graal.nodes.calc.FloatEqualsNode;
 import com.oracle.graal.nodes.calc.FloatLessThanNode;
@@ -64,6 +65,7 @@ import com.oracle.graal.nodes.memory.WriteNode;
 @MatchableNode(nodeClass = FloatConvertNode.class, inputs = {"value"})
 @MatchableNode(nodeClass = FloatingReadNode.class, inputs = {"address"})
 @MatchableNode(nodeClass = IfNode.class, inputs = {"condition"})
+@MatchableNode(nodeClass = ConditionalNode.class, inputs = {"condition", "trueValue", "falseValue"})
 @MatchableNode(nodeClass = SubNode.class, inputs = {"x", "y"})
 @MatchableNode(nodeClass = LeftShiftNode.class, inputs = {"x", "y"})
 @MatchableNode(nodeClass = NarrowNode.class, inputs = {"value"})
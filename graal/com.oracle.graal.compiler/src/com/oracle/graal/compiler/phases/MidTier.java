@@ -23,28 +23,36 @@
 package com.oracle.graal.compiler.phases;
 
 import static com.oracle.graal.compiler.common.GraalOptions.ConditionalElimination;
+import static com.oracle.graal.compiler.common.GraalOptions.EliminateLoopOverflowChecks;
 import static com.oracle.graal.compiler.common.GraalOptions.ImmutableCode;
+import static com.oracle.graal.compiler.common.GraalOptions.LoopPredication;
 import static com.oracle.graal.compiler.common.GraalOptions.OptCanonicalizer;
 import static com.oracle.graal.compiler.common.GraalOptions.OptDeoptimizationGrouping;
 import static com.oracle.graal.compiler.common.GraalOptions.OptEliminatePartiallyRedundantGuards;
+import static com.oracle.graal.compiler.common.GraalOptions.OptFixedNodeValueNumbering;
 import static com.oracle.graal.compiler.common.GraalOptions.OptFloatingReads;
+import static com.oracle.graal.compiler.common.GraalOptions.OptLockCoarsening;
 import static com.oracle.graal.compiler.common.GraalOptions.OptPushThroughPi;
 import static com.oracle.graal.compiler.common.GraalOptions.OptReadElimination;
 import static com.oracle.graal.compiler.common.GraalOptions.ReassociateInvariants;
 import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
 import static com.oracle.graal.compiler.common.GraalOptions.VerifyHeapAtReturn;
 
+import com.oracle.graal.loop.phases.LoopOverflowCheckEliminationPhase;
+import com.oracle.graal.loop.phases.LoopPredicationPhase;
 import com.oracle.graal.loop.phases.LoopSafepointEliminationPhase;
 import com.oracle.graal.loop.phases.ReassociateInvariantPhase;
 import com.oracle.graal.nodes.spi.LoweringTool;
 import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.DeoptimizationGroupingPhase;
+import com.oracle.graal.phases.common.FixedNodeValueNumberingPhase;
 import com.oracle.graal.phases.common.FloatingReadPhase;
 import com.oracle.graal.phases.common.FrameStateAssignmentPhase;
 import com.oracle.graal.phases.common.GuardLoweringPhase;
 import com.oracle.graal.phases.common.IncrementalCanonicalizerPhase;
 import com.oracle.graal.phases.common.IterativeConditionalEliminationPhase;
+import com.oracle.graal.phases.common.LockCoarseningPhase;
 import com.oracle.graal.phases.common.LockEliminationPhase;
 import com.oracle.graal.phases.common.LoopSafepointInsertionPhase;
 import com.oracle.graal.phases.common.LoweringPhase;
@@ -84,6 +92,10 @@ public class MidTier extends PhaseSuite<MidTierContext> {
         }
         appendPhase(new RemoveValueProxyPhase());
 
+        if (OptFixedNodeValueNumbering.getValue()) {
+            appendPhase(new FixedNodeValueNumberingPhase());
+        }
+
         if (OptCanonicalizer.getValue()) {
             appendPhase(canonicalizer);
         }
@@ -106,6 +118,14 @@ public class MidTier extends PhaseSuite<MidTierContext> {
 
         appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopSafepointEliminationPhase()));
 
+        if (EliminateLoopOverflowChecks.getValue()) {
+            appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopOverflowCheckEliminationPhase()));
+        }
+
+        if (LoopPredication.getValue()) {
+            appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopPredicationPhase()));
+        }
+
         appendPhase(new LoopSafepointInsertionPhase());
 
         appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new GuardLoweringPhase()));
@@ -119,6 +139,10 @@ public class MidTier extends PhaseSuite<MidTierContext> {
             appendPhase(new MidTierReconcileInstrumentationPhase());
         }
 
+        if (OptLockCoarsening.getValue()) {
+            appendPhase(new LockCoarseningPhase());
+        }
+
         appendPhase(new FrameStateAssignmentPhase());
 
         if (ReassociateInvariants.getValue()) {
@@ -507,6 +507,25 @@ public class Graph {
         default void nodeAdded(Node node) {
             event(NodeEvent.NODE_ADDED, node);
         }
+
+        /**
+         * Notifies this listener of a node that was removed from the graph. Unlike the other
+         * notifications, this is not forwarded to {@link #event(NodeEvent, Node)}, as most
+         * listeners are not prepared to see deleted nodes.
+         *
+         * @param node a node that was just deleted
+         */
+        default void nodeRemoved(Node node) {
+        }
+
+        /**
+         * Notifies this listener of a change in a node's successors. This is not forwarded to
+         * {@link #event(NodeEvent, Node)}.
+         *
+         * @param node a node who has had one of its successors changed
+         */
+        default void successorChanged(Node node) {
+        }
     }
 
     /**
@@ -514,7 +533,10 @@ public class Graph {
      * {@linkplain #close() closed}.
      */
     public final class NodeEventScope implements AutoCloseable {
+        private final NodeEventListener listener;
+
         NodeEventScope(NodeEventListener listener) {
+            this.listener = listener;
             if (nodeEventListener == null) {
                 nodeEventListener = listener;
             } else {
@@ -522,17 +544,34 @@ public class Graph {
             }
         }
 
+        /**
+         * Unregisters the listener of this scope. Scopes are usually closed in the reverse order
+         * of their creation, but a scope that outlives the scopes created after it can also be
+         * closed first.
+         */
         @Override
         public void close() {
             assert nodeEventListener != null;
-            if (nodeEventListener instanceof ChainedNodeEventListener) {
-                nodeEventListener = ((ChainedNodeEventListener) nodeEventListener).next;
-            } else {
-                nodeEventListener = null;
-            }
+            nodeEventListener = removeListener(nodeEventListener, listener);
         }
     }
 
+    private static NodeEventListener removeListener(NodeEventListener chain, NodeEventListener listener) {
+        if (chain == listener) {
+            return null;
+        }
+        ChainedNodeEventListener chained = (ChainedNodeEventListener) chain;
+        if (chained.head == listener) {
+            return chained.next;
+        }
+        NodeEventListener rest = removeListener(chained.next, listener);
+        if (rest == null) {
+            return chained.head;
+        }
+        chained.next = rest;
+        return chained;
+    }
+
     private static class ChainedNodeEventListener implements NodeEventListener {
 
         NodeEventListener head;
@@ -560,6 +599,18 @@ public class Graph {
             head.usagesDroppedToZero(node);
             next.usagesDroppedToZero(node);
         }
+
+        @Override
+        public void nodeRemoved(Node node) {
+            head.nodeRemoved(node);
+            next.nodeRemoved(node);
+        }
+
+        @Override
+        public void successorChanged(Node node) {
+            head.successorChanged(node);
+            next.successorChanged(node);
+        }
     }
 
     /**
@@ -1006,6 +1057,9 @@ public class Graph {
         assert !node.isDeleted() : "cannot delete a node twice! node=" + node;
         nodes[node.id] = null;
         nodesDeletedSinceLastCompression++;
+        if (nodeEventListener != null) {
+            nodeEventListener.nodeRemoved(node);
+        }
 
         // nodes aren't removed from the type cache here - they will be removed during iteration
     }
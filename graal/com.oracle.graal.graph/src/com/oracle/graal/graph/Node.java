@@ -579,6 +579,7 @@ public abstract class Node implements Cloneable, Formattable {
                 assert assertTrue(newSuccessor.predecessor == null, "unexpected non-null predecessor in new successor (%s): %s, this=%s", newSuccessor, newSuccessor.predecessor, this);
                 newSuccessor.predecessor = this;
             }
+            maybeNotifySuccessorChanged(this);
         }
     }
 
@@ -728,6 +729,15 @@ public abstract class Node implements Cloneable, Formattable {
         }
     }
 
+    private void maybeNotifySuccessorChanged(Node node) {
+        if (graph != null) {
+            NodeEventListener listener = graph.nodeEventListener;
+            if (listener != null) {
+                listener.successorChanged(node);
+            }
+        }
+    }
+
     public void maybeNotifyZeroUsages(Node node) {
         if (graph != null) {
             assert !graph.isFrozen();
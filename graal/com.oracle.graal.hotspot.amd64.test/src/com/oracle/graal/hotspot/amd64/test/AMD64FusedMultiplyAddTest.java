@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.amd64.test;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.MulNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.replacements.amd64.AMD64FusedMultiplyAddNode;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests that {@link AMD64FusedMultiplyAddNode} rounds only once. For {@code 0.1 * 10 - 1}, the
+ * product rounds to exactly {@code 1} in two rounding steps, whereas the exact result is
+ * {@code 2^-54} for doubles and {@code 2^-26} for floats.
+ */
+public class AMD64FusedMultiplyAddTest extends GraalCompilerTest {
+
+    @Test
+    public void testFoldDouble() {
+        ValueNode folded = AMD64FusedMultiplyAddNode.tryFold(ConstantNode.forDouble(0.1), ConstantNode.forDouble(10.0), ConstantNode.forDouble(-1.0));
+        Assert.assertNotNull(folded);
+        Assert.assertEquals(0x1.0p-54, folded.asJavaConstant().asDouble(), 0.0);
+    }
+
+    @Test
+    public void testFoldFloat() {
+        ValueNode folded = AMD64FusedMultiplyAddNode.tryFold(ConstantNode.forFloat(0.1f), ConstantNode.forFloat(10.0f), ConstantNode.forFloat(-1.0f));
+        Assert.assertNotNull(folded);
+        Assert.assertEquals(0x1.0p-26f, folded.asJavaConstant().asFloat(), 0.0f);
+    }
+
+    @Test
+    public void testNoFoldOfSignedZero() {
+        Assert.assertNull(AMD64FusedMultiplyAddNode.tryFold(ConstantNode.forDouble(1.0), ConstantNode.forDouble(1.0), ConstantNode.forDouble(-1.0)));
+    }
+
+    public static double multiplyAddSnippet(double a, double b, double c) {
+        return a * b + c;
+    }
+
+    @Test
+    public void testCompiled() throws InvalidInstalledCodeException {
+        Assume.assumeTrue(getTarget().arch instanceof AMD64 && ((AMD64) getTarget().arch).getFeatures().contains(AMD64.CPUFeature.FMA));
+        ResolvedJavaMethod method = getResolvedJavaMethod("multiplyAddSnippet");
+        StructuredGraph graph = parseEager(method, AllowAssumptions.YES);
+        AddNode add = graph.getNodes().filter(AddNode.class).first();
+        MulNode mul = (MulNode) add.getX();
+        ValueNode fma = graph.addOrUnique(new AMD64FusedMultiplyAddNode(mul.getX(), mul.getY(), add.getY()));
+        add.replaceAtUsages(fma);
+        GraphUtil.killWithUnusedFloatingInputs(add);
+
+        InstalledCode code = getCode(method, graph);
+        Assert.assertEquals(0x1.0p-54, (double) code.executeVarargs(0.1, 10.0, -1.0), 0.0);
+        Assert.assertEquals(7.0, (double) code.executeVarargs(2.0, 3.0, 1.0), 0.0);
+    }
+}
@@ -23,6 +23,7 @@
 package com.oracle.graal.hotspot.amd64;
 
 import static com.oracle.graal.compiler.common.GraalOptions.CanOmitFrame;
+import static com.oracle.graal.compiler.common.GraalOptions.ShortForwardJumps;
 import static com.oracle.graal.compiler.common.GraalOptions.ZapStackOnMethodEntry;
 import static jdk.vm.ci.amd64.AMD64.r10;
 import static jdk.vm.ci.amd64.AMD64.rax;
@@ -232,14 +233,33 @@ public class AMD64HotSpotBackend extends HotSpotHostBackend {
         HotSpotVMConfig config = config();
         Label verifiedEntry = new Label();
 
-        // Emit the prefix
-        emitCodePrefix(installedCodeOwner, crb, asm, regConfig, config, verifiedEntry);
+        /*
+         * Forward jumps are emitted with 32-bit displacements unless the first emission showed
+         * that their target is close. If such a short jump does not reach its target after all,
+         * the code is emitted once more without short jumps.
+         */
+        int passes = ShortForwardJumps.getValue() ? 3 : 1;
+        for (int pass = 0; pass < passes; pass++) {
+            if (pass > 0) {
+                if (pass == 1 ? !asm.hasShortJumpCandidates() : !asm.hasShortJumpOverflow()) {
+                    break;
+                }
+                asm.setUseShortJumpHints(pass == 1);
+                crb.resetForEmittingCode();
+                lir.resetLabels();
+                verifiedEntry.reset();
+            }
 
-        // Emit code for the LIR
-        emitCodeBody(installedCodeOwner, crb, lir);
+            // Emit the prefix
+            emitCodePrefix(installedCodeOwner, crb, asm, regConfig, config, verifiedEntry);
 
-        // Emit the suffix
-        emitCodeSuffix(installedCodeOwner, crb, asm, config, frameMap);
+            // Emit code for the LIR
+            emitCodeBody(installedCodeOwner, crb, lir);
+
+            // Emit the suffix
+            emitCodeSuffix(installedCodeOwner, crb, asm, config, frameMap);
+        }
+        assert !asm.hasShortJumpOverflow();
 
         // Profile assembler instructions
         profileInstructions(lir, crb);
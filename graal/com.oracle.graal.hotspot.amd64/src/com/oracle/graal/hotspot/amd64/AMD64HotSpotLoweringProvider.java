@@ -22,12 +22,16 @@
  */
 package com.oracle.graal.hotspot.amd64;
 
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.compiler.common.LocationIdentity;
 import com.oracle.graal.compiler.common.spi.ForeignCallsProvider;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.hotspot.HotSpotGraalRuntimeProvider;
 import com.oracle.graal.hotspot.meta.DefaultHotSpotLoweringProvider;
 import com.oracle.graal.hotspot.meta.HotSpotProviders;
 import com.oracle.graal.hotspot.meta.HotSpotRegistersProvider;
+import com.oracle.graal.hotspot.replacements.arraycopy.ArrayCopyCallNode;
+import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.calc.FloatConvertNode;
 import com.oracle.graal.nodes.spi.LoweringTool;
 import com.oracle.graal.replacements.amd64.AMD64ConvertSnippets;
@@ -35,6 +39,7 @@ import com.oracle.graal.replacements.amd64.AMD64ConvertSnippets;
 import jdk.vm.ci.code.TargetDescription;
 import jdk.vm.ci.hotspot.HotSpotConstantReflectionProvider;
 import jdk.vm.ci.hotspot.HotSpotVMConfig;
+import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.MetaAccessProvider;
 
 public class AMD64HotSpotLoweringProvider extends DefaultHotSpotLoweringProvider {
@@ -56,8 +61,33 @@ public class AMD64HotSpotLoweringProvider extends DefaultHotSpotLoweringProvider
     public void lower(Node n, LoweringTool tool) {
         if (n instanceof FloatConvertNode) {
             convertSnippets.lower((FloatConvertNode) n, tool);
+        } else if (n instanceof ArrayCopyCallNode && canInlineArrayCopy((ArrayCopyCallNode) n)) {
+            inlineArrayCopy((ArrayCopyCallNode) n);
         } else {
             super.lower(n, tool);
         }
     }
+
+    /**
+     * Determines if an arraycopy call can be replaced by an inline copy loop. The stubs remain in
+     * use for object arrays, which need barriers, and for copies that may have to run backwards.
+     */
+    private static boolean canInlineArrayCopy(ArrayCopyCallNode copy) {
+        if (!GraalOptions.OptInlineArrayCopy.getValue() || !copy.graph().getGuardsStage().areFrameStatesAtDeopts()) {
+            return false;
+        }
+        if (!copy.getElementKind().isPrimitive() || copy.getLocationIdentity().equals(LocationIdentity.any()) || copy.getLength().getStackKind() != JavaKind.Int) {
+            return false;
+        }
+        copy.updateAlignedDisjoint();
+        return copy.isDisjoint();
+    }
+
+    private static void inlineArrayCopy(ArrayCopyCallNode copy) {
+        StructuredGraph graph = copy.graph();
+        AMD64ArrayCopyNode inline = graph.add(new AMD64ArrayCopyNode(copy.getSource(), copy.getSourcePosition(), copy.getDestination(), copy.getDestinationPosition(), copy.getLength(),
+                        copy.getElementKind(), copy.getLocationIdentity()));
+        inline.setStateAfter(copy.stateAfter());
+        graph.replaceFixedWithFixed(copy, inline);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.hotspot.nodes.ReservedNewObjectNode;
+import com.oracle.graal.hotspot.nodes.TlabReservationNode;
+import com.oracle.graal.hotspot.phases.AllocationMergingPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FrameStateAssignmentPhase;
+import com.oracle.graal.phases.common.GuardLoweringPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
+import com.oracle.graal.phases.common.inlining.policy.InlineEverythingPolicy;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests that {@link AllocationMergingPhase} groups consecutive allocations and that the merged
+ * allocations produce correctly initialized objects.
+ */
+public class AllocationMergingTest extends HotSpotGraalCompilerTest {
+
+    public static class Node {
+
+        public Node next;
+        public int value;
+
+        public Node(Node next, int value) {
+            this.next = next;
+            this.value = value;
+        }
+    }
+
+    public static int test1Snippet(int a, int b) {
+        Node list = new Node(new Node(null, a), b);
+        int[] array = new int[]{a, b};
+        return list.value + list.next.value + array[0] * array[1];
+    }
+
+    @Test
+    public void test1() {
+        test("test1Snippet", 3, 4);
+        testHelper("test1Snippet", 1, 3);
+    }
+
+    public static Object[] test2Snippet(Object a) {
+        Object[] result = new Object[3];
+        result[0] = a;
+        result[1] = new Object[]{a};
+        result[2] = new int[5];
+        return result;
+    }
+
+    @Test
+    public void test2() {
+        test("test2Snippet", "a");
+        testHelper("test2Snippet", 1, 3);
+    }
+
+    public static int test3Snippet(int a, Object o) {
+        Node first = new Node(null, a);
+        int hash = o.hashCode();
+        Node second = new Node(first, hash);
+        return second.next.value + second.value;
+    }
+
+    /**
+     * The call between the allocations is a safepoint, so they can not share a reservation.
+     */
+    @Test
+    public void test3() {
+        test("test3Snippet", 5, "o");
+        testHelper("test3Snippet", 0, 0);
+    }
+
+    private void testHelper(String snippetName, int expectedReservations, int expectedAllocations) {
+        ResolvedJavaMethod snippet = getResolvedJavaMethod(snippetName);
+        try (Scope s = Debug.scope("AllocationMergingTest", snippet)) {
+            StructuredGraph graph = parseEager(snippet, AllowAssumptions.NO);
+            HighTierContext highContext = getDefaultHighTierContext();
+            MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo());
+            new InliningPhase(new InlineEverythingPolicy(), new CanonicalizerPhase()).apply(graph, highContext);
+            new CanonicalizerPhase().apply(graph, highContext);
+            new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, highContext);
+            new GuardLoweringPhase().apply(graph, midContext);
+            new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.MID_TIER).apply(graph, midContext);
+            new FrameStateAssignmentPhase().apply(graph);
+            new AllocationMergingPhase(getTarget()).apply(graph);
+            Debug.dump(Debug.BASIC_LOG_LEVEL, graph, "After Allocation Merging");
+
+            Assert.assertEquals(expectedReservations, graph.getNodes().filter(TlabReservationNode.class).count());
+            Assert.assertEquals(expectedAllocations, graph.getNodes().filter(ReservedNewObjectNode.class).count());
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+}
@@ -117,6 +117,63 @@ public class ArrayCopyIntrinsificationTest extends GraalCompilerTest {
         testHelper("byteArraycopy", src);
     }
 
+    /**
+     * Tests copies that exercise the vector, 8-byte and tail paths of inline copy loops as well as
+     * copies large enough to use non-temporal stores.
+     */
+    @Test
+    public void testByteBulk() {
+        byte[] src = new byte[3 * 1024 * 1024];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) i;
+        }
+        for (int srcPos : new int[]{0, 1, 7}) {
+            for (int length : new int[]{15, 16, 17, 31, 33, 255, src.length - 8}) {
+                test("byteArraycopy", src, srcPos, new byte[src.length], 3, length);
+            }
+        }
+        test("byteArraycopy", src, 5, src, 0, src.length - 5);
+        test("byteArraycopy", src, 0, src, 5, src.length - 5);
+    }
+
+    /**
+     * Tests copies above the non-temporal threshold within one array where the source is less than
+     * one vector ahead of the destination.
+     */
+    @Test
+    public void testByteOverlappingBulk() {
+        byte[] original = new byte[2 * 1024 * 1024];
+        for (int i = 0; i < original.length; i++) {
+            original[i] = (byte) (i * 7);
+        }
+        for (int distance : new int[]{1, 5, 8, 15, 16, 17, 31, 32, 33}) {
+            test("byteOverlappingArraycopy", original, new byte[original.length], distance);
+        }
+    }
+
+    /**
+     * Tests copies whose positions and length are constants.
+     */
+    @Test
+    public void testByteConstantLength() {
+        byte[] src = new byte[100];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) (i * 3);
+        }
+        test("byteConstantLengthArraycopy", src, new byte[src.length]);
+    }
+
+    public static byte[] byteConstantLengthArraycopy(byte[] src, byte[] dest) {
+        System.arraycopy(src, 1, dest, 2, 40);
+        return dest;
+    }
+
+    public static byte[] byteOverlappingArraycopy(byte[] original, byte[] array, int distance) {
+        System.arraycopy(original, 0, array, 0, original.length);
+        System.arraycopy(array, distance, array, 0, array.length - distance);
+        return array;
+    }
+
     @Test
     public void testChar() {
         char[] src = "some string of chars".toCharArray();
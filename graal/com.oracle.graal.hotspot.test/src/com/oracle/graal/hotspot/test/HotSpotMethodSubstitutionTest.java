@@ -143,6 +143,17 @@ public class HotSpotMethodSubstitutionTest extends MethodSubstitutionTest {
         }
     }
 
+    @Test
+    public void testSystemIdentityHashCodeInflated() throws InterruptedException {
+        Object o = new Object();
+        synchronized (o) {
+            // waiting inflates the lock so the header is displaced into the monitor
+            o.wait(1);
+            test("systemIdentityHashCode", o);
+        }
+        test("systemIdentityHashCode", o);
+    }
+
     @SuppressWarnings("all")
     public static long systemTime() {
         return System.currentTimeMillis() + System.nanoTime();
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.config;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.hotspot.nodes.G1PostWriteBarrier;
+import com.oracle.graal.hotspot.nodes.G1PreWriteBarrier;
+import com.oracle.graal.hotspot.nodes.SerialWriteBarrier;
+import com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase;
+import com.oracle.graal.hotspot.phases.WriteBarrierEliminationPhase;
+import com.oracle.graal.hotspot.phases.WriteBarrierVerificationPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FrameStateAssignmentPhase;
+import com.oracle.graal.phases.common.GuardLoweringPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.hotspot.HotSpotVMConfig;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the removal of write barriers by {@link WriteBarrierEliminationPhase}. The resulting graphs
+ * are checked with {@link WriteBarrierVerificationPhase}.
+ */
+public class WriteBarrierEliminationTest extends HotSpotGraalCompilerTest {
+
+    private final HotSpotVMConfig config = config();
+
+    public static class Container {
+
+        public Container a;
+        public Container b;
+    }
+
+    public static Container test1Snippet(Container x, Container y) {
+        Container main = new Container();
+        main.a = x;
+        main.b = y;
+        return main;
+    }
+
+    /**
+     * Stores into a freshly allocated object need no barriers in G1. Otherwise, only the card mark
+     * of the last store is required.
+     */
+    @Test
+    public void test1() throws Exception {
+        testHelper("test1Snippet", config.useG1GC ? 0 : 1);
+    }
+
+    public static void test2Snippet(Container main, Container x, Container y) {
+        main.a = x;
+        main.b = y;
+    }
+
+    /**
+     * Stores into an arbitrary object keep their G1 barriers, but share a card mark.
+     */
+    @Test
+    public void test2() throws Exception {
+        testHelper("test2Snippet", config.useG1GC ? 4 : 1);
+    }
+
+    public static void test3Snippet(Container main) {
+        main.a = main;
+    }
+
+    /**
+     * A store of an object into itself never creates a cross-region reference, so only the G1
+     * pre-barrier is required.
+     */
+    @Test
+    public void test3() throws Exception {
+        testHelper("test3Snippet", 1);
+    }
+
+    public static Container test4Snippet(Container x) {
+        Container main = new Container();
+        main.a = x;
+        System.gc();
+        main.b = x;
+        return main;
+    }
+
+    /**
+     * After a call the fresh object may have been promoted, so the second store needs its barriers.
+     */
+    @Test
+    public void test4() throws Exception {
+        testHelper("test4Snippet", 2);
+    }
+
+    private void testHelper(final String snippetName, final int expectedBarriers) {
+        ResolvedJavaMethod snippet = getResolvedJavaMethod(snippetName);
+        try (Scope s = Debug.scope("WriteBarrierEliminationTest", snippet)) {
+            StructuredGraph graph = parseEager(snippet, AllowAssumptions.NO);
+            HighTierContext highContext = getDefaultHighTierContext();
+            MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo());
+            new CanonicalizerPhase().apply(graph, highContext);
+            new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, highContext);
+            new GuardLoweringPhase().apply(graph, midContext);
+            new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.MID_TIER).apply(graph, midContext);
+            new FrameStateAssignmentPhase().apply(graph);
+            new WriteBarrierAdditionPhase(config).apply(graph);
+            new WriteBarrierEliminationPhase(config).apply(graph);
+            Debug.dump(Debug.BASIC_LOG_LEVEL, graph, "After Write Barrier Elimination");
+            new WriteBarrierVerificationPhase(config).apply(graph);
+
+            int barriers;
+            if (config.useG1GC) {
+                barriers = graph.getNodes().filter(G1PreWriteBarrier.class).count() + graph.getNodes().filter(G1PostWriteBarrier.class).count();
+            } else {
+                barriers = graph.getNodes().filter(SerialWriteBarrier.class).count();
+            }
+            if (expectedBarriers != barriers) {
+                Assert.assertEquals(getScheduledGraphString(graph), expectedBarriers, barriers);
+            }
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+}
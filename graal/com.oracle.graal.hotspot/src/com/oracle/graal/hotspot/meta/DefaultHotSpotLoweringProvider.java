@@ -62,8 +62,10 @@ import com.oracle.graal.hotspot.nodes.G1ReferentFieldReadBarrier;
 import com.oracle.graal.hotspot.nodes.GetObjectAddressNode;
 import com.oracle.graal.hotspot.nodes.HotSpotDirectCallTargetNode;
 import com.oracle.graal.hotspot.nodes.HotSpotIndirectCallTargetNode;
+import com.oracle.graal.hotspot.nodes.ReservedNewObjectNode;
 import com.oracle.graal.hotspot.nodes.SerialArrayRangeWriteBarrier;
 import com.oracle.graal.hotspot.nodes.SerialWriteBarrier;
+import com.oracle.graal.hotspot.nodes.TlabReservationNode;
 import com.oracle.graal.hotspot.nodes.type.KlassPointerStamp;
 import com.oracle.graal.hotspot.nodes.type.MethodPointerStamp;
 import com.oracle.graal.hotspot.nodes.type.NarrowOopStamp;
@@ -267,6 +269,14 @@ public class DefaultHotSpotLoweringProvider extends DefaultJavaLoweringProvider
             if (graph.getGuardsStage().areFrameStatesAtDeopts()) {
                 newObjectSnippets.lower((DynamicNewArrayNode) n, registers, tool);
             }
+        } else if (n instanceof TlabReservationNode) {
+            if (graph.getGuardsStage().areFrameStatesAtDeopts()) {
+                newObjectSnippets.lower((TlabReservationNode) n, registers, tool);
+            }
+        } else if (n instanceof ReservedNewObjectNode) {
+            if (graph.getGuardsStage().areFrameStatesAtDeopts()) {
+                newObjectSnippets.lower((ReservedNewObjectNode) n, tool);
+            }
         } else if (n instanceof VerifyHeapNode) {
             if (graph.getGuardsStage().areFrameStatesAtDeopts()) {
                 newObjectSnippets.lower((VerifyHeapNode) n, registers, tool);
@@ -23,14 +23,18 @@
 package com.oracle.graal.hotspot.meta;
 
 import static com.oracle.graal.compiler.common.GraalOptions.ImmutableCode;
+import static com.oracle.graal.compiler.common.GraalOptions.OptEliminateWriteBarriers;
+import static com.oracle.graal.compiler.common.GraalOptions.OptMergeAllocations;
 import static com.oracle.graal.compiler.common.GraalOptions.VerifyPhases;
 
 import com.oracle.graal.hotspot.HotSpotBackend;
 import com.oracle.graal.hotspot.HotSpotGraalRuntimeProvider;
 import com.oracle.graal.hotspot.HotSpotInstructionProfiling;
 import com.oracle.graal.hotspot.phases.AheadOfTimeVerificationPhase;
+import com.oracle.graal.hotspot.phases.AllocationMergingPhase;
 import com.oracle.graal.hotspot.phases.LoadJavaMirrorWithKlassPhase;
 import com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase;
+import com.oracle.graal.hotspot.phases.WriteBarrierEliminationPhase;
 import com.oracle.graal.hotspot.phases.WriteBarrierVerificationPhase;
 import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.java.SuitesProviderBase;
@@ -84,9 +88,15 @@ public class HotSpotSuitesProvider extends SuitesProviderBase {
         }
 
         ret.getMidTier().appendPhase(new WriteBarrierAdditionPhase(config));
+        if (OptEliminateWriteBarriers.getValue()) {
+            ret.getMidTier().appendPhase(new WriteBarrierEliminationPhase(config));
+        }
         if (VerifyPhases.getValue()) {
             ret.getMidTier().appendPhase(new WriteBarrierVerificationPhase(config));
         }
+        if (OptMergeAllocations.getValue()) {
+            ret.getMidTier().appendPhase(new AllocationMergingPhase(runtime.getTarget()));
+        }
 
         ret.getLowTier().findPhase(ExpandLogicPhase.class).add(new AddressLoweringPhase(addressLowering));
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.nodes;
+
+import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
+
+import jdk.vm.ci.hotspot.HotSpotResolvedObjectType;
+
+/**
+ * Allocates an instance or an array with a constant length in memory reserved by a
+ * {@link TlabReservationNode}. If the reservation failed, the object is allocated by the runtime.
+ */
+@NodeInfo
+public final class ReservedNewObjectNode extends AbstractNewObjectNode {
+
+    public static final NodeClass<ReservedNewObjectNode> TYPE = NodeClass.create(ReservedNewObjectNode.class);
+
+    @Input ValueNode reservation;
+    protected final HotSpotResolvedObjectType type;
+    protected final int length;
+    protected final int size;
+    protected final int offset;
+
+    /**
+     * @param type the type of the object, which is an array class if {@code length >= 0}
+     * @param length the length of the array or -1 for an instance
+     * @param size the size of the object in bytes
+     * @param offset the offset of the object from the start of the reserved memory
+     */
+    public ReservedNewObjectNode(Stamp stamp, ValueNode reservation, HotSpotResolvedObjectType type, int length, int size, int offset, boolean fillContents, FrameState stateBefore) {
+        super(TYPE, stamp, fillContents, stateBefore);
+        assert (length >= 0) == type.isArray();
+        this.reservation = reservation;
+        this.type = type;
+        this.length = length;
+        this.size = size;
+        this.offset = offset;
+    }
+
+    public ValueNode getReservation() {
+        return reservation;
+    }
+
+    public HotSpotResolvedObjectType type() {
+        return type;
+    }
+
+    public boolean isArray() {
+        return length >= 0;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+}
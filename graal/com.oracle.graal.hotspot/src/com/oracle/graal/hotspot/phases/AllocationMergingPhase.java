@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.phases;
+
+import static com.oracle.graal.compiler.common.GraalOptions.MaxMergedAllocationSize;
+import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider.getArrayBaseOffset;
+import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider.getArrayIndexScale;
+import static jdk.vm.ci.hotspot.HotSpotMetaAccessProvider.computeArrayAllocationSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.hotspot.nodes.ReservedNewObjectNode;
+import com.oracle.graal.hotspot.nodes.TlabReservationNode;
+import com.oracle.graal.hotspot.replacements.NewObjectSnippets;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
+import com.oracle.graal.nodes.java.NewArrayNode;
+import com.oracle.graal.nodes.java.NewInstanceNode;
+import com.oracle.graal.phases.Phase;
+
+import jdk.vm.ci.code.CodeUtil;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.hotspot.HotSpotResolvedObjectType;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Groups allocations of fixed size that follow each other without an intervening safepoint, as
+ * produced for example by the materialization of several virtual objects, so that they bump the
+ * TLAB top only once. The group is preceded by a {@link TlabReservationNode} for the combined size
+ * and each allocation is replaced by a {@link ReservedNewObjectNode} that formats its part of the
+ * reserved memory.
+ *
+ * As no safepoint can occur before the last allocation of a group is formatted, the heap never
+ * contains reserved but unformatted memory that is visible to the garbage collector. If the
+ * reservation fails, all allocations of the group go to the runtime individually.
+ */
+public class AllocationMergingPhase extends Phase {
+
+    private static final DebugCounter MERGED_ALLOCATIONS = Debug.counter("MergedAllocations");
+    private static final DebugCounter ALLOCATION_GROUPS = Debug.counter("AllocationGroups");
+
+    private final TargetDescription target;
+
+    public AllocationMergingPhase(TargetDescription target) {
+        this.target = target;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        for (AbstractNewObjectNode allocation : graph.getNodes().filter(AbstractNewObjectNode.class).snapshot()) {
+            if (allocation.isAlive() && allocationSize(allocation) > 0 && !hasMergeablePredecessor(allocation)) {
+                List<AbstractNewObjectNode> group = collectGroup(allocation);
+                if (group.size() > 1) {
+                    mergeGroup(graph, group);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the size in bytes of the object allocated by {@code allocation}, or returns -1 if it
+     * is not statically known or the allocation should not be merged.
+     */
+    private int allocationSize(AbstractNewObjectNode allocation) {
+        int size = -1;
+        if (allocation instanceof NewInstanceNode) {
+            HotSpotResolvedObjectType type = (HotSpotResolvedObjectType) ((NewInstanceNode) allocation).instanceClass();
+            size = type.instanceSize();
+        } else if (allocation instanceof NewArrayNode) {
+            ValueNode length = ((NewArrayNode) allocation).length();
+            if (length.isConstant()) {
+                int constantLength = length.asJavaConstant().asInt();
+                if (constantLength >= 0 && constantLength <= NewObjectSnippets.MAX_ARRAY_FAST_PATH_ALLOCATION_LENGTH) {
+                    JavaKind elementKind = ((NewArrayNode) allocation).elementType().getJavaKind();
+                    size = computeArrayAllocationSize(constantLength, target.wordSize, getArrayBaseOffset(elementKind), CodeUtil.log2(getArrayIndexScale(elementKind)));
+                }
+            }
+        }
+        return size > 0 && size <= MaxMergedAllocationSize.getValue() ? size : -1;
+    }
+
+    /**
+     * Checks if a mergeable allocation precedes {@code allocation} without an intervening
+     * safepoint, in which case {@code allocation} is handled as part of that allocation's group.
+     */
+    private boolean hasMergeablePredecessor(AbstractNewObjectNode allocation) {
+        Node current = allocation.predecessor();
+        while (current instanceof FixedWithNextNode) {
+            if (current instanceof AbstractNewObjectNode) {
+                return allocationSize((AbstractNewObjectNode) current) > 0;
+            } else if (!WriteBarrierEliminationPhase.isSafepointFree(current)) {
+                return false;
+            }
+            current = current.predecessor();
+        }
+        return false;
+    }
+
+    private List<AbstractNewObjectNode> collectGroup(AbstractNewObjectNode first) {
+        List<AbstractNewObjectNode> group = new ArrayList<>();
+        group.add(first);
+        int groupSize = allocationSize(first);
+        Node current = first.next();
+        while (current instanceof FixedWithNextNode) {
+            if (current instanceof AbstractNewObjectNode) {
+                int size = allocationSize((AbstractNewObjectNode) current);
+                if (size < 0 || groupSize + size > MaxMergedAllocationSize.getValue()) {
+                    break;
+                }
+                group.add((AbstractNewObjectNode) current);
+                groupSize += size;
+            } else if (!WriteBarrierEliminationPhase.isSafepointFree(current)) {
+                break;
+            }
+            current = ((FixedWithNextNode) current).next();
+        }
+        return group;
+    }
+
+    private void mergeGroup(StructuredGraph graph, List<AbstractNewObjectNode> group) {
+        int[] sizes = new int[group.size()];
+        int totalSize = 0;
+        for (int i = 0; i < group.size(); i++) {
+            sizes[i] = allocationSize(group.get(i));
+            totalSize += sizes[i];
+        }
+        TlabReservationNode reservation = graph.add(new TlabReservationNode(target.wordJavaKind, totalSize));
+        graph.addBeforeFixed(group.get(0), reservation);
+
+        int offset = 0;
+        for (int i = 0; i < group.size(); i++) {
+            AbstractNewObjectNode allocation = group.get(i);
+            HotSpotResolvedObjectType type;
+            int length;
+            if (allocation instanceof NewInstanceNode) {
+                type = (HotSpotResolvedObjectType) ((NewInstanceNode) allocation).instanceClass();
+                length = -1;
+            } else {
+                ResolvedJavaType elementType = ((NewArrayNode) allocation).elementType();
+                type = (HotSpotResolvedObjectType) elementType.getArrayClass();
+                length = ((NewArrayNode) allocation).length().asJavaConstant().asInt();
+            }
+            ReservedNewObjectNode replacement = graph.add(new ReservedNewObjectNode(allocation.stamp(), reservation, type, length, sizes[i], offset, allocation.fillContents(), allocation.stateBefore()));
+            graph.replaceFixedWithFixed(allocation, replacement);
+            offset += sizes[i];
+        }
+        MERGED_ALLOCATIONS.add(group.size());
+        ALLOCATION_GROUPS.increment();
+    }
+}
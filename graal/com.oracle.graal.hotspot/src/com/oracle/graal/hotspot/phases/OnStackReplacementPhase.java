@@ -24,7 +24,13 @@ package com.oracle.graal.hotspot.phases;
 
 import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionality.Required;
 
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.compiler.common.type.ObjectStamp;
+import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.compiler.common.type.TypeReference;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.iterators.NodeIterable;
@@ -36,22 +42,66 @@ import com.oracle.graal.nodeinfo.Verbosity;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.EntryMarkerNode;
 import com.oracle.graal.nodes.EntryProxyNode;
+import com.oracle.graal.nodes.FixedGuardNode;
 import com.oracle.graal.nodes.FixedNode;
 import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.LogicConstantNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.PiNode;
 import com.oracle.graal.nodes.StartNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.extended.OSRLocalNode;
 import com.oracle.graal.nodes.extended.OSRStartNode;
+import com.oracle.graal.nodes.java.InstanceOfNode;
+import com.oracle.graal.nodes.type.StampTool;
 import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.phases.Phase;
 import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
 
 import jdk.vm.ci.code.BailoutException;
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.SpeculationLog;
+import jdk.vm.ci.meta.SpeculationLog.SpeculationReason;
 import jdk.vm.ci.runtime.JVMCICompiler;
 
 public class OnStackReplacementPhase extends Phase {
 
+    private static final DebugCounter SpeculatedLocalTypes = Debug.counter("OSRSpeculatedLocalTypes");
+
+    /**
+     * Identifies the speculation on the type of one local at an OSR entry so that a failed
+     * speculation is not repeated by the next compilation.
+     */
+    static final class OSRLocalTypeSpeculationReason implements SpeculationReason {
+        private final ResolvedJavaMethod method;
+        private final int entryBCI;
+        private final int index;
+
+        OSRLocalTypeSpeculationReason(ResolvedJavaMethod method, int entryBCI, int index) {
+            this.method = method;
+            this.entryBCI = entryBCI;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof OSRLocalTypeSpeculationReason) {
+                OSRLocalTypeSpeculationReason that = (OSRLocalTypeSpeculationReason) obj;
+                return this.method.equals(that.method) && this.entryBCI == that.entryBCI && this.index == that.index;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return method.hashCode() * 31 + entryBCI * 7 + index;
+        }
+    }
+
     @Override
     protected void run(StructuredGraph graph) {
         if (graph.getEntryBCI() == JVMCICompiler.INVOCATION_ENTRY_BCI) {
@@ -116,7 +166,12 @@ public class OnStackReplacementPhase extends Phase {
                  * we need to drop the stamp since the types we see during OSR may be too precise
                  * (if a branch was not parsed for example).
                  */
-                proxy.replaceAndDelete(graph.addOrUnique(new OSRLocalNode(i, proxy.stamp().unrestricted())));
+                Stamp parsedStamp = proxy.stamp();
+                OSRLocalNode osrLocal = graph.addOrUnique(new OSRLocalNode(i, parsedStamp.unrestricted()));
+                proxy.replaceAndDelete(osrLocal);
+                if (GraalOptions.OSRSpeculateLocalTypes.getValue()) {
+                    speculateLocalType(graph, osrStart, osrState, osrLocal, parsedStamp);
+                }
             } else {
                 assert value == null || value instanceof OSRLocalNode;
             }
@@ -129,4 +184,37 @@ public class OnStackReplacementPhase extends Phase {
         Debug.dump(Debug.INFO_LOG_LEVEL, graph, "OnStackReplacement result");
         new DeadCodeEliminationPhase(Required).apply(graph);
     }
+
+    /**
+     * Restores the type of an object local seen while parsing by checking it once at the OSR entry.
+     * The OSR state keeps referring to the unchecked local so that a failed check resumes in the
+     * interpreter at the loop header. Each speculation is recorded in the speculation log and not
+     * repeated once it has failed.
+     */
+    private static void speculateLocalType(StructuredGraph graph, OSRStartNode osrStart, FrameState osrState, OSRLocalNode osrLocal, Stamp parsedStamp) {
+        SpeculationLog speculationLog = graph.getSpeculationLog();
+        if (speculationLog == null || !(parsedStamp instanceof ObjectStamp)) {
+            return;
+        }
+        ObjectStamp objectStamp = (ObjectStamp) parsedStamp;
+        TypeReference type = StampTool.typeReferenceOrNull(objectStamp);
+        if (type == null || type.getType().isJavaLangObject() || objectStamp.alwaysNull()) {
+            return;
+        }
+        SpeculationReason reason = new OSRLocalTypeSpeculationReason(graph.method(), graph.getEntryBCI(), osrLocal.index());
+        if (!speculationLog.maySpeculate(reason)) {
+            return;
+        }
+        ObjectStamp checkedStamp = StampFactory.object(type, objectStamp.nonNull());
+        LogicNode check = graph.addOrUniqueWithInputs(InstanceOfNode.createHelper(checkedStamp, osrLocal, null, null));
+        if (check instanceof LogicConstantNode) {
+            return;
+        }
+        JavaConstant speculation = speculationLog.speculate(reason);
+        FixedGuardNode guard = graph.add(new FixedGuardNode(check, DeoptimizationReason.OptimizedTypeCheckViolated, DeoptimizationAction.InvalidateRecompile, speculation, false));
+        graph.addAfterFixed(osrStart, guard);
+        PiNode pi = graph.unique(new PiNode(osrLocal, checkedStamp, guard));
+        osrLocal.replaceAtMatchingUsages(pi, usage -> usage != pi && usage != check && usage != osrState);
+        SpeculatedLocalTypes.increment();
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.phases;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.hotspot.nodes.CompressionNode;
+import com.oracle.graal.hotspot.nodes.G1PostWriteBarrier;
+import com.oracle.graal.hotspot.nodes.G1PreWriteBarrier;
+import com.oracle.graal.hotspot.nodes.ObjectWriteBarrier;
+import com.oracle.graal.hotspot.nodes.SerialWriteBarrier;
+import com.oracle.graal.hotspot.nodes.WriteBarrier;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.AbstractMergeNode;
+import com.oracle.graal.nodes.ControlSplitNode;
+import com.oracle.graal.nodes.DeoptimizingNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.java.NewArrayNode;
+import com.oracle.graal.nodes.java.NewInstanceNode;
+import com.oracle.graal.nodes.memory.FixedAccessNode;
+import com.oracle.graal.nodes.memory.HeapAccess.BarrierType;
+import com.oracle.graal.nodes.memory.WriteNode;
+import com.oracle.graal.nodes.memory.address.AddressNode;
+import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.Phase;
+
+import jdk.vm.ci.hotspot.HotSpotVMConfig;
+
+/**
+ * Removes write barriers added by {@link WriteBarrierAdditionPhase} that are provably not needed.
+ *
+ * For G1, both barriers of a store into an object allocated in the same compilation unit are
+ * removed if no safepoint can occur between the allocation and the store. Such an object is still
+ * in a young region, which is never tracked by remembered sets, and its previous field values were
+ * not part of a marking snapshot. Objects that might be allocated as humongous objects are
+ * excluded. The post barrier of a store of an object into itself is removed as well, since it
+ * never creates a cross-region reference. Stores of null already have no post barrier.
+ *
+ * For the card marking collectors, an imprecise card mark that is followed by another imprecise
+ * card mark for the same object without an intervening safepoint is removed, so that a series of
+ * stores into one object dirties its card only once, after the last store.
+ *
+ * {@link WriteBarrierVerificationPhase} accepts the resulting graph.
+ */
+public class WriteBarrierEliminationPhase extends Phase {
+
+    private static final DebugCounter ELIMINATED_PRE_BARRIERS = Debug.counter("EliminatedG1PreWriteBarriers");
+    private static final DebugCounter ELIMINATED_POST_BARRIERS = Debug.counter("EliminatedG1PostWriteBarriers");
+    private static final DebugCounter MERGED_CARD_MARKS = Debug.counter("MergedCardMarks");
+
+    /**
+     * Arrays up to this length are small enough to never be allocated as humongous objects.
+     */
+    private static final int MAX_YOUNG_ARRAY_LENGTH = 4096;
+
+    private final HotSpotVMConfig config;
+
+    public WriteBarrierEliminationPhase(HotSpotVMConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        if (config.useG1GC) {
+            for (WriteNode write : graph.getNodes().filter(WriteNode.class).snapshot()) {
+                if (write.getBarrierType() != BarrierType.NONE) {
+                    processG1Write(graph, write);
+                }
+            }
+        } else {
+            for (SerialWriteBarrier barrier : graph.getNodes().filter(SerialWriteBarrier.class).snapshot()) {
+                if (!barrier.usePrecise() && hasLaterCardMark(barrier)) {
+                    graph.removeFixed(barrier);
+                    MERGED_CARD_MARKS.increment();
+                }
+            }
+        }
+    }
+
+    private static void processG1Write(StructuredGraph graph, WriteNode write) {
+        ValueNode object = getObject(write.getAddress());
+        if (object == null) {
+            return;
+        }
+        Node previous = write.predecessor();
+        Node next = write.next();
+        G1PreWriteBarrier preBarrier = previous instanceof G1PreWriteBarrier && ((G1PreWriteBarrier) previous).getAddress() == write.getAddress() ? (G1PreWriteBarrier) previous : null;
+        G1PostWriteBarrier postBarrier = next instanceof G1PostWriteBarrier && ((G1PostWriteBarrier) next).getAddress() == write.getAddress() ? (G1PostWriteBarrier) next : null;
+
+        if (isYoungAllocation(object) && isReachedWithoutSafepoint(write, (FixedWithNextNode) object)) {
+            if (preBarrier != null && preBarrier.stateBefore() == null && !preBarrier.getNullCheck()) {
+                graph.removeFixed(preBarrier);
+                ELIMINATED_PRE_BARRIERS.increment();
+            }
+            if (postBarrier != null) {
+                graph.removeFixed(postBarrier);
+                ELIMINATED_POST_BARRIERS.increment();
+            }
+        } else if (postBarrier != null && isSameObject(object, write.value())) {
+            graph.removeFixed(postBarrier);
+            ELIMINATED_POST_BARRIERS.increment();
+        }
+    }
+
+    /**
+     * Gets the object accessed through {@code address} or null if it is not known.
+     */
+    static ValueNode getObject(AddressNode address) {
+        if (address instanceof OffsetAddressNode) {
+            return GraphUtil.unproxify(((OffsetAddressNode) address).getBase());
+        }
+        return null;
+    }
+
+    static boolean isSameObject(ValueNode object, ValueNode value) {
+        ValueNode uncompressed = value;
+        if (uncompressed instanceof CompressionNode) {
+            uncompressed = ((CompressionNode) uncompressed).getValue();
+        }
+        return GraphUtil.unproxify(uncompressed) == object;
+    }
+
+    private static boolean isYoungAllocation(ValueNode object) {
+        if (object instanceof NewInstanceNode) {
+            return true;
+        } else if (object instanceof NewArrayNode) {
+            ValueNode length = ((NewArrayNode) object).length();
+            return length.isConstant() && length.asJavaConstant().asInt() <= MAX_YOUNG_ARRAY_LENGTH;
+        }
+        return false;
+    }
+
+    /**
+     * Determines if {@code node} can be emitted without a safepoint in between, i.e., if it can
+     * not trigger a garbage collection or deoptimize.
+     */
+    static boolean isSafepointFree(Node node) {
+        if (node instanceof DeoptimizingNode && ((DeoptimizingNode) node).canDeoptimize()) {
+            return false;
+        }
+        return node instanceof WriteBarrier || node instanceof FixedAccessNode || (node instanceof AbstractBeginNode && !(node instanceof AbstractMergeNode)) || node instanceof ControlSplitNode;
+    }
+
+    /**
+     * Determines if the only path from {@code start} to {@code write} is free of safepoints.
+     */
+    private static boolean isReachedWithoutSafepoint(FixedAccessNode write, FixedWithNextNode start) {
+        Node current = write.predecessor();
+        while (current != start) {
+            if (current == null || !isSafepointFree(current)) {
+                return false;
+            }
+            current = current.predecessor();
+        }
+        return true;
+    }
+
+    private static boolean hasLaterCardMark(SerialWriteBarrier barrier) {
+        if (!(barrier.getAddress() instanceof OffsetAddressNode)) {
+            return false;
+        }
+        ValueNode object = ((OffsetAddressNode) barrier.getAddress()).getBase();
+        Node current = barrier.next();
+        while (current instanceof FixedWithNextNode && isSafepointFree(current)) {
+            if (current instanceof SerialWriteBarrier) {
+                ObjectWriteBarrier other = (ObjectWriteBarrier) current;
+                if (!other.usePrecise() && other.getAddress() instanceof OffsetAddressNode && ((OffsetAddressNode) other.getAddress()).getBase() == object) {
+                    return true;
+                }
+            }
+            current = ((FixedWithNextNode) current).next();
+        }
+        return false;
+    }
+}
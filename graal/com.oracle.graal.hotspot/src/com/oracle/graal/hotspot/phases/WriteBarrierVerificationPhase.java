@@ -38,6 +38,7 @@ import com.oracle.graal.nodes.LoopBeginNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.extended.ArrayRangeWriteNode;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
 import com.oracle.graal.nodes.java.LoweredAtomicReadAndWriteNode;
 import com.oracle.graal.nodes.java.LoweredCompareAndSwapNode;
 import com.oracle.graal.nodes.memory.FixedAccessNode;
@@ -56,7 +57,9 @@ import jdk.vm.ci.hotspot.HotSpotVMConfig;
  * paths leading to the previous safepoint. For every write, necessitating a write barrier, a
  * bottom-up traversal of the graph is performed up to the previous safepoints via all possible
  * paths. If, for a certain path, no write barrier satisfying the processed write is found, an
- * assertion is generated.
+ * assertion is generated. Writes into an object allocated on all such paths, as well as writes
+ * whose card mark is deferred to a later write to the same object by
+ * {@link WriteBarrierEliminationPhase}, are also accepted.
  */
 public class WriteBarrierVerificationPhase extends Phase {
 
@@ -84,14 +87,22 @@ public class WriteBarrierVerificationPhase extends Phase {
          * The currently validated write is checked in order to discover if it has an appropriate
          * attached write barrier.
          */
-        if (hasAttachedBarrier((FixedWithNextNode) write)) {
+        if (hasAttachedBarrier((FixedWithNextNode) write) || hasLaterBarrier((FixedWithNextNode) write)) {
             return;
         }
+        ValueNode object = isObjectWrite(write) ? WriteBarrierEliminationPhase.getObject(((FixedAccessNode) write).getAddress()) : null;
         NodeFlood frontier = write.graph().createNodeFlood();
         expandFrontier(frontier, write);
         Iterator<Node> iterator = frontier.iterator();
         while (iterator.hasNext()) {
             Node currentNode = iterator.next();
+            if (currentNode == object && object instanceof AbstractNewObjectNode) {
+                /*
+                 * The written object has been allocated without an intervening safepoint, so no
+                 * barrier is required on this path.
+                 */
+                continue;
+            }
             if (isSafepoint(currentNode)) {
                 throw new AssertionError("Write barrier must be present " + write);
             }
@@ -117,7 +128,7 @@ public class WriteBarrierVerificationPhase extends Phase {
         final Node previous = node.predecessor();
         final boolean validatePreBarrier = useG1GC() && (isObjectWrite(node) || !((ArrayRangeWriteNode) node).isInitialization());
         if (isObjectWrite(node)) {
-            return (isObjectBarrier(node, next) || StampTool.isPointerAlwaysNull(getValueWritten(node))) && (!validatePreBarrier || isObjectBarrier(node, previous));
+            return (isObjectBarrier(node, next) || StampTool.isPointerAlwaysNull(getValueWritten(node)) || isSelfReference(node)) && (!validatePreBarrier || isObjectBarrier(node, previous));
         } else if (isObjectArrayRangeWrite(node)) {
             return (isArrayBarrier(node, next) || StampTool.isPointerAlwaysNull(getValueWritten(node))) && (!validatePreBarrier || isArrayBarrier(node, previous));
         } else {
@@ -125,6 +136,32 @@ public class WriteBarrierVerificationPhase extends Phase {
         }
     }
 
+    private boolean isSelfReference(FixedWithNextNode node) {
+        if (!useG1GC()) {
+            return false;
+        }
+        ValueNode object = WriteBarrierEliminationPhase.getObject(((FixedAccessNode) node).getAddress());
+        return object != null && WriteBarrierEliminationPhase.isSameObject(object, getValueWritten(node));
+    }
+
+    /**
+     * Checks if an imprecise card mark for the same object follows {@code node} without an
+     * intervening safepoint.
+     */
+    private boolean hasLaterBarrier(FixedWithNextNode node) {
+        if (useG1GC() || !isObjectWrite(node)) {
+            return false;
+        }
+        Node current = node.next();
+        while (current instanceof FixedWithNextNode && !isSafepoint(current)) {
+            if (current instanceof SerialWriteBarrier && validateBarrier((FixedAccessNode) node, (ObjectWriteBarrier) current)) {
+                return true;
+            }
+            current = ((FixedWithNextNode) current).next();
+        }
+        return false;
+    }
+
     private static boolean isObjectBarrier(FixedWithNextNode node, final Node next) {
         return next instanceof ObjectWriteBarrier && validateBarrier((FixedAccessNode) node, (ObjectWriteBarrier) next);
     }
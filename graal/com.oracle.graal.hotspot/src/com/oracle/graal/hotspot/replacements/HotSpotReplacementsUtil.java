@@ -26,6 +26,7 @@ import static com.oracle.graal.hotspot.meta.HotSpotForeignCallsProviderImpl.IDEN
 import static com.oracle.graal.hotspot.meta.HotSpotForeignCallsProviderImpl.VERIFY_OOP;
 import static com.oracle.graal.hotspot.replacements.UnsafeAccess.UNSAFE;
 import static com.oracle.graal.nodes.extended.BranchProbabilityNode.FAST_PATH_PROBABILITY;
+import static com.oracle.graal.nodes.extended.BranchProbabilityNode.NOT_FREQUENT_PROBABILITY;
 import static com.oracle.graal.nodes.extended.BranchProbabilityNode.probability;
 import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider.getArrayBaseOffset;
 import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider.getArrayIndexScale;
@@ -695,6 +696,50 @@ public class HotSpotReplacementsUtil {
         return config().identityHashCodeShift;
     }
 
+    /**
+     * Mask for the two lock bits of a mark word.
+     *
+     * <pre>
+     * +----------------------------------+-+-+
+     * |                                  |1|1|
+     * +----------------------------------+-+-+
+     * </pre>
+     *
+     * This mirrors {@code markOopDesc::lock_mask_in_place} which is not exported to the compiler.
+     */
+    @Fold
+    static int lockMaskInPlace() {
+        return 0x3;
+    }
+
+    /**
+     * Pattern for the mark word of an object whose lock is inflated. The remaining bits are the
+     * address of the {@code ObjectMonitor}.
+     *
+     * <pre>
+     * +----------------------------------+-+-+
+     * |                                  |1|0|
+     * +----------------------------------+-+-+
+     * </pre>
+     *
+     * This mirrors {@code markOopDesc::monitor_value} which is not exported to the compiler.
+     */
+    @Fold
+    static int monitorValue() {
+        return 0x2;
+    }
+
+    public static final LocationIdentity OBJECT_MONITOR_HEADER_LOCATION = NamedLocationIdentity.mutable("ObjectMonitor::_header");
+
+    /**
+     * Offset of the displaced mark word in an {@code ObjectMonitor}. The header is the first field
+     * of {@code ObjectMonitor} and HotSpot's own code relies on that layout.
+     */
+    @Fold
+    static int objectMonitorHeaderOffset() {
+        return 0;
+    }
+
     /**
      * Loads the hub of an object (without null checking it first).
      */
@@ -941,6 +986,17 @@ public class HotSpotReplacementsUtil {
             if (probability(FAST_PATH_PROBABILITY, hash != uninitializedIdentityHashCodeValue())) {
                 return hash;
             }
+        } else if (probability(NOT_FREQUENT_PROBABILITY, mark.and(lockMaskInPlace()).equal(Word.unsigned(monitorValue())))) {
+            /*
+             * The lock is inflated and the original header has been displaced into the
+             * ObjectMonitor. Monitors are only deflated at a safepoint and there is none between
+             * the load of the mark word and the read below, so the monitor is still live.
+             */
+            Word displacedMark = mark.subtract(monitorValue()).readWord(objectMonitorHeaderOffset(), OBJECT_MONITOR_HEADER_LOCATION);
+            int hash = (int) displacedMark.unsignedShiftRight(identityHashCodeShift()).rawValue();
+            if (probability(FAST_PATH_PROBABILITY, hash != uninitializedIdentityHashCodeValue())) {
+                return hash;
+            }
         }
 
         return identityHashCode(IDENTITY_HASHCODE, x);
@@ -43,6 +43,11 @@ class HotspotSnippetsOptions {
                     "Note that TypeCheckMinProfileHitProbability also influences whether profiling info is used in compiled type checks.", type = OptionType.Expert)
     static final OptionValue<Integer> TypeCheckMaxHints = new OptionValue<>(2);
 
+    @Option(help = "If the probability that a type check against an interface or an array type hits one of the profiled types (up to " +
+                   "TypeCheckMaxHints) is at least this value, the profiled types are tested before scanning the secondary super types. " +
+                   "Takes effect if the probability is below TypeCheckMinProfileHitProbability.", type = OptionType.Expert)
+    static final OptionValue<Double> TypeCheckMinSecondaryProfileHitProbability = new OptionValue<>(0.1);
+
     @Option(help = "Use a VM runtime call to load and clear the exception object from the thread at the start of a compiled exception handler.", type = OptionType.Debug)
     static final OptionValue<Boolean> LoadExceptionObjectInVM = new OptionValue<>(false);
 
@@ -27,6 +27,7 @@ import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.SECO
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.loadHubIntrinsic;
 import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.TypeCheckMaxHints;
 import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.TypeCheckMinProfileHitProbability;
+import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.TypeCheckMinSecondaryProfileHitProbability;
 import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.checkSecondarySubType;
 import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.checkUnknownSubType;
 import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.createHints;
@@ -277,6 +278,14 @@ public class InstanceOfSnippets implements Snippets {
                     args.add("object", object);
                     args.addConst("superCheckOffset", type.superCheckOffset());
                 } else {
+                    if (hintInfo.hints.length == 0) {
+                        /*
+                         * A miss in the secondary super cache leads to a linear scan of the
+                         * secondary supers, so a profile that is too imprecise for the other
+                         * kinds of checks still pays off as a mono- or bimorphic fast path.
+                         */
+                        hintInfo = new TypeCheckHints(instanceOf.type(), instanceOf.profile(), assumptions, TypeCheckMinSecondaryProfileHitProbability.getValue(), TypeCheckMaxHints.getValue());
+                    }
                     Hints hints = createHints(hintInfo, providers.getMetaAccess(), false, graph);
                     args = new Arguments(instanceofSecondary, graph.getGuardsStage(), tool.getLoweringStage());
                     args.add("hub", hub);
@@ -396,6 +396,7 @@ public class MonitorSnippets implements Snippets {
         // cannot float about the null check above
         final Word lock = beginLockScope(lockDepth);
         traceObject(trace, "+lock{stub}", object, true);
+        lockStub.inc();
         monitorenterStubC(MONITORENTER, object, lock);
     }
 
@@ -458,6 +459,7 @@ public class MonitorSnippets implements Snippets {
     public static void monitorexitStub(Object object, @ConstantParameter int lockDepth, @ConstantParameter boolean trace) {
         verifyOop(object);
         traceObject(trace, "-lock{stub}", object, false);
+        unlockStub.inc();
         final Word lock = CurrentLockNode.currentLock(lockDepth);
         monitorexitStubC(MONITOREXIT, object, lock);
         endLockScope();
@@ -675,6 +677,7 @@ public class MonitorSnippets implements Snippets {
     public static final SnippetCounter lockStubEpochExpired = new SnippetCounter(lockCounters, "lock{stub:epoch-expired}", "stub-locked, epoch expired");
     public static final SnippetCounter lockStubRevoke = new SnippetCounter(lockCounters, "lock{stub:revoke}", "stub-locked, biased revoked");
     public static final SnippetCounter lockStubFailedCas = new SnippetCounter(lockCounters, "lock{stub:failed-cas}", "stub-locked, failed cas");
+    public static final SnippetCounter lockStub = new SnippetCounter(lockCounters, "lock{stub}", "stub-locked, no inlined fast path");
 
     public static final SnippetCounter unbiasable = new SnippetCounter(lockCounters, "unbiasable", "object with unbiasable type");
     public static final SnippetCounter revokeBias = new SnippetCounter(lockCounters, "revokeBias", "object had bias revoked");
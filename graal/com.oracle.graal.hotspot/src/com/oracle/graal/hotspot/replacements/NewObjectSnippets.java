@@ -78,6 +78,8 @@ import com.oracle.graal.hotspot.meta.HotSpotProviders;
 import com.oracle.graal.hotspot.meta.HotSpotRegistersProvider;
 import com.oracle.graal.hotspot.nodes.DimensionsNode;
 import com.oracle.graal.hotspot.nodes.PrefetchAllocateNode;
+import com.oracle.graal.hotspot.nodes.ReservedNewObjectNode;
+import com.oracle.graal.hotspot.nodes.TlabReservationNode;
 import com.oracle.graal.hotspot.nodes.type.KlassPointerStamp;
 import com.oracle.graal.hotspot.word.KlassPointer;
 import com.oracle.graal.nodes.ConstantNode;
@@ -270,6 +272,54 @@ public class NewObjectSnippets implements Snippets {
         return result;
     }
 
+    /**
+     * Reserves {@code size} bytes in the TLAB for a group of allocations. Returns zero if the
+     * memory could not be reserved, in which case all allocations of the group call the runtime.
+     */
+    @Snippet
+    public static Word reserveTlab(@ConstantParameter int size, @ConstantParameter Register threadRegister) {
+        Word thread = registerAsWord(threadRegister);
+        Word top = readTlabTop(thread);
+        Word end = readTlabEnd(thread);
+        Word newTop = top.add(size);
+        if (useTLAB() && probability(FAST_PATH_PROBABILITY, newTop.belowOrEqual(end))) {
+            writeTlabTop(thread, newTop);
+            emitPrefetchAllocate(newTop, false);
+            return top;
+        }
+        return Word.zero();
+    }
+
+    @Snippet
+    public static Object allocateInstanceReserved(@ConstantParameter int size, @ConstantParameter int offset, Word reservation, KlassPointer hub, Word prototypeMarkWord,
+                    @ConstantParameter boolean fillContents, @ConstantParameter String typeContext) {
+        Object result;
+        if (probability(FAST_PATH_PROBABILITY, reservation.notEqual(0))) {
+            new_reserved.inc();
+            result = formatObject(hub, size, reservation.add(offset), prototypeMarkWord, fillContents, true, true);
+        } else {
+            new_stub.inc();
+            result = newInstance(HotSpotBackend.NEW_INSTANCE, hub);
+        }
+        profileAllocation("instance", size, typeContext);
+        return piCast(verifyOop(result), StampFactory.forNodeIntrinsic());
+    }
+
+    @Snippet
+    public static Object allocateArrayReserved(@ConstantParameter int allocationSize, @ConstantParameter int offset, Word reservation, KlassPointer hub, @ConstantParameter int length,
+                    Word prototypeMarkWord, @ConstantParameter int headerSize, @ConstantParameter boolean fillContents, @ConstantParameter String typeContext) {
+        Object result;
+        if (probability(FAST_PATH_PROBABILITY, reservation.notEqual(0))) {
+            newarray_reserved.inc();
+            result = formatArray(hub, allocationSize, length, headerSize, reservation.add(offset), prototypeMarkWord, fillContents, true, true);
+        } else {
+            newarray_stub.inc();
+            result = newArray(HotSpotBackend.NEW_ARRAY, hub, length, fillContents);
+        }
+        profileAllocation("array", allocationSize, typeContext);
+        return piArrayCast(verifyOop(result), length, StampFactory.forNodeIntrinsic());
+    }
+
     @NodeIntrinsic(value = ForeignCallNode.class, returnStampIsNonNull = true)
     public static native Object newArray(@ConstantNodeParameter ForeignCallDescriptor descriptor, KlassPointer hub, int length, boolean fillContents);
 
@@ -482,6 +532,11 @@ public class NewObjectSnippets implements Snippets {
                         TLAB_END_LOCATION);
         private final SnippetInfo allocateInstanceDynamic = snippet(NewObjectSnippets.class, "allocateInstanceDynamic", INIT_LOCATION, MARK_WORD_LOCATION, HUB_WRITE_LOCATION, TLAB_TOP_LOCATION,
                         TLAB_END_LOCATION);
+        private final SnippetInfo reserveTlab = snippet(NewObjectSnippets.class, "reserveTlab", TLAB_TOP_LOCATION, TLAB_END_LOCATION);
+        private final SnippetInfo allocateInstanceReserved = snippet(NewObjectSnippets.class, "allocateInstanceReserved", INIT_LOCATION, MARK_WORD_LOCATION, HUB_WRITE_LOCATION, TLAB_TOP_LOCATION,
+                        TLAB_END_LOCATION);
+        private final SnippetInfo allocateArrayReserved = snippet(NewObjectSnippets.class, "allocateArrayReserved", INIT_LOCATION, MARK_WORD_LOCATION, HUB_WRITE_LOCATION, TLAB_TOP_LOCATION,
+                        TLAB_END_LOCATION);
         private final SnippetInfo newmultiarray = snippet(NewObjectSnippets.class, "newmultiarray", INIT_LOCATION, TLAB_TOP_LOCATION, TLAB_END_LOCATION);
         private final SnippetInfo verifyHeap = snippet(NewObjectSnippets.class, "verifyHeap");
 
@@ -542,6 +597,55 @@ public class NewObjectSnippets implements Snippets {
             template.instantiate(providers.getMetaAccess(), newArrayNode, DEFAULT_REPLACER, args);
         }
 
+        /**
+         * Lowers a {@link TlabReservationNode}.
+         */
+        public void lower(TlabReservationNode reservationNode, HotSpotRegistersProvider registers, LoweringTool tool) {
+            StructuredGraph graph = reservationNode.graph();
+            Arguments args = new Arguments(reserveTlab, graph.getGuardsStage(), tool.getLoweringStage());
+            args.addConst("size", reservationNode.getSize());
+            args.addConst("threadRegister", registers.getThreadRegister());
+
+            SnippetTemplate template = template(args);
+            Debug.log("Lowering reserveTlab in %s: node=%s, template=%s, arguments=%s", graph, reservationNode, template, args);
+            template.instantiate(providers.getMetaAccess(), reservationNode, DEFAULT_REPLACER, args);
+        }
+
+        /**
+         * Lowers a {@link ReservedNewObjectNode}.
+         */
+        public void lower(ReservedNewObjectNode newObjectNode, LoweringTool tool) {
+            StructuredGraph graph = newObjectNode.graph();
+            HotSpotResolvedObjectType type = newObjectNode.type();
+            ConstantNode hub = ConstantNode.forConstant(KlassPointerStamp.klassNonNull(), type.klass(), providers.getMetaAccess(), graph);
+            String typeContext = HotspotSnippetsOptions.ProfileAllocations.getValue() ? type.toJavaName(false) : "";
+
+            Arguments args;
+            if (newObjectNode.isArray()) {
+                args = new Arguments(allocateArrayReserved, graph.getGuardsStage(), tool.getLoweringStage());
+                args.addConst("allocationSize", newObjectNode.getSize());
+                args.addConst("offset", newObjectNode.getOffset());
+                args.add("reservation", newObjectNode.getReservation());
+                args.add("hub", hub);
+                args.addConst("length", newObjectNode.length());
+                args.add("prototypeMarkWord", type.prototypeMarkWord());
+                args.addConst("headerSize", getArrayBaseOffset(type.getComponentType().getJavaKind()));
+            } else {
+                args = new Arguments(allocateInstanceReserved, graph.getGuardsStage(), tool.getLoweringStage());
+                args.addConst("size", newObjectNode.getSize());
+                args.addConst("offset", newObjectNode.getOffset());
+                args.add("reservation", newObjectNode.getReservation());
+                args.add("hub", hub);
+                args.add("prototypeMarkWord", type.prototypeMarkWord());
+            }
+            args.addConst("fillContents", newObjectNode.fillContents());
+            args.addConst("typeContext", typeContext);
+
+            SnippetTemplate template = template(args);
+            Debug.log("Lowering reserved allocation in %s: node=%s, template=%s, arguments=%s", graph, newObjectNode, template, args);
+            template.instantiate(providers.getMetaAccess(), newObjectNode, DEFAULT_REPLACER, args);
+        }
+
         public void lower(DynamicNewInstanceNode newInstanceNode, HotSpotRegistersProvider registers, LoweringTool tool) {
             Arguments args = new Arguments(allocateInstanceDynamic, newInstanceNode.graph().getGuardsStage(), tool.getLoweringStage());
             args.add("type", newInstanceNode.getInstanceType());
@@ -619,8 +723,10 @@ public class NewObjectSnippets implements Snippets {
     private static final SnippetCounter new_seqInit = new SnippetCounter(countersNew, "tlabSeqInit", "TLAB alloc with unrolled zeroing");
     private static final SnippetCounter new_loopInit = new SnippetCounter(countersNew, "tlabLoopInit", "TLAB alloc with zeroing in a loop");
     private static final SnippetCounter new_stub = new SnippetCounter(countersNew, "stub", "alloc and zeroing via stub");
+    private static final SnippetCounter new_reserved = new SnippetCounter(countersNew, "tlabReserved", "alloc in memory reserved for several allocations");
 
     private static final SnippetCounter.Group countersNewArray = SnippetCounters.getValue() ? new SnippetCounter.Group("NewArray") : null;
     private static final SnippetCounter newarray_loopInit = new SnippetCounter(countersNewArray, "tlabLoopInit", "TLAB alloc with zeroing in a loop");
     private static final SnippetCounter newarray_stub = new SnippetCounter(countersNewArray, "stub", "alloc and zeroing via stub");
+    private static final SnippetCounter newarray_reserved = new SnippetCounter(countersNewArray, "tlabReserved", "alloc in memory reserved for several allocations");
 }
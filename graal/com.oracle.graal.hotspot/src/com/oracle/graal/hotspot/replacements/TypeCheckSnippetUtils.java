@@ -64,6 +64,7 @@ public class TypeCheckSnippetUtils {
             cacheHit.inc();
             return true;
         }
+        cacheMiss.inc();
 
         return checkSelfAndSupers(t, s);
     }
@@ -106,10 +107,12 @@ public class TypeCheckSnippetUtils {
             if (probability(NOT_LIKELY_PROBABILITY, t.equal(loadSecondarySupersElement(secondarySupers, i)))) {
                 s.writeKlassPointer(secondarySuperCacheOffset(), t, SECONDARY_SUPER_CACHE_LOCATION);
                 secondariesHit.inc();
+                secondariesScanned.add(i + 1);
                 return true;
             }
         }
         secondariesMiss.inc();
+        secondariesScanned.add(length);
         return false;
     }
 
@@ -165,8 +168,10 @@ public class TypeCheckSnippetUtils {
     static final SnippetCounter exactMiss = new SnippetCounter(counters, "exactMiss", "exact type test failed");
     static final SnippetCounter isNull = new SnippetCounter(counters, "isNull", "object tested was null");
     static final SnippetCounter cacheHit = new SnippetCounter(counters, "cacheHit", "secondary type cache hit");
+    static final SnippetCounter cacheMiss = new SnippetCounter(counters, "cacheMiss", "secondary type cache miss");
     static final SnippetCounter secondariesHit = new SnippetCounter(counters, "secondariesHit", "secondaries scan succeeded");
     static final SnippetCounter secondariesMiss = new SnippetCounter(counters, "secondariesMiss", "secondaries scan failed");
+    static final SnippetCounter secondariesScanned = new SnippetCounter(counters, "secondariesScanned", "secondary types compared by scans");
     static final SnippetCounter displayHit = new SnippetCounter(counters, "displayHit", "primary type test succeeded");
     static final SnippetCounter displayMiss = new SnippetCounter(counters, "displayMiss", "primary type test failed");
     static final SnippetCounter T_equals_S = new SnippetCounter(counters, "T_equals_S", "object type was equal to secondary type");
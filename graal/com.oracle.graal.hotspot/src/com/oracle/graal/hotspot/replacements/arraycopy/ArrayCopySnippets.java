@@ -135,7 +135,12 @@ public class ArrayCopySnippets implements Snippets {
         checkLimits(nonNullSrc, srcPos, nonNullDest, destPos, length);
         counter.inc();
         copiedCounter.add(length);
-        ArrayCopyCallNode.arraycopy(nonNullSrc, srcPos, nonNullDest, destPos, length, elementKind);
+        if (nonNullSrc != nonNullDest || srcPos >= destPos) {
+            // A front to back copy cannot overwrite elements before they are read.
+            ArrayCopyCallNode.disjointArraycopy(nonNullSrc, srcPos, nonNullDest, destPos, length, elementKind);
+        } else {
+            ArrayCopyCallNode.arraycopy(nonNullSrc, srcPos, nonNullDest, destPos, length, elementKind);
+        }
         if (length == 0) {
             zeroLengthDynamicCounter.inc();
         } else {
@@ -161,7 +166,12 @@ public class ArrayCopySnippets implements Snippets {
         checkLimits(nonNullSrc, srcPos, nonNullDest, destPos, length);
         counter.inc();
         copiedCounter.add(length);
-        ArrayCopyCallNode.arraycopy(nonNullSrc, srcPos, nonNullDest, destPos, length, elementKind);
+        if (nonNullSrc != nonNullDest || srcPos >= destPos) {
+            // A front to back copy cannot overwrite elements before they are read.
+            ArrayCopyCallNode.disjointArraycopy(nonNullSrc, srcPos, nonNullDest, destPos, length, elementKind);
+        } else {
+            ArrayCopyCallNode.arraycopy(nonNullSrc, srcPos, nonNullDest, destPos, length, elementKind);
+        }
         if (length == 0) {
             zeroLengthDynamicCounter.inc();
         } else {
@@ -2318,6 +2318,10 @@ public class BytecodeParser implements GraphBuilderContext {
                 if (block.getJsrScope() != JsrScope.EMPTY_SCOPE) {
                     throw new BailoutException("OSR into a JSR scope is not supported");
                 }
+                if (bci == block.startBci) {
+                    // Only the live locals are transferred from the interpreter.
+                    frameState.clearDeadLocals(block, liveness, true);
+                }
                 EntryMarkerNode x = append(new EntryMarkerNode());
                 frameState.insertProxies(value -> graph.unique(new EntryProxyNode(value, x)));
                 x.setStateAfter(createFrameState(bci, x));
@@ -59,6 +59,7 @@ import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.ValuePhiNode;
 import com.oracle.graal.nodes.calc.FloatingNode;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderTool;
 import com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext.SideEffectsState;
@@ -613,6 +614,15 @@ public final class FrameStateBuilder implements SideEffectsState {
         if (!parser.graphBuilderConfig.clearNonLiveLocals()) {
             return;
         }
+        clearDeadLocals(block, liveness, liveIn);
+    }
+
+    /**
+     * Clears the locals that are not live regardless of
+     * {@link GraphBuilderConfiguration#clearNonLiveLocals()}. Used for the OSR entry state, where
+     * every remaining local has to be transferred from the interpreter frame.
+     */
+    public void clearDeadLocals(BciBlock block, LocalLiveness liveness, boolean liveIn) {
         if (liveIn) {
             for (int i = 0; i < locals.length; i++) {
                 if (!liveness.localIsLiveIn(block, i)) {
@@ -41,6 +41,12 @@ public interface AMD64ArithmeticLIRGeneratorTool extends ArithmeticLIRGeneratorT
 
     Value emitMathTan(Value input);
 
+    /**
+     * Emits {@code x * y + z} with a single rounding. Only available if the target supports
+     * {@code FMA}.
+     */
+    Value emitFusedMultiplyAdd(Value x, Value y, Value z);
+
     Value emitCountLeadingZeros(Value value);
 
     Value emitCountTrailingZeros(Value value);
@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits a forward copy loop for a range of primitive array elements. The source and destination
+ * ranges must not overlap in a way that a forward copy would observe its own stores.
+ *
+ * The bulk of the copy uses 32-byte AVX or 16-byte SSE moves, followed by 8-byte moves and a 4, 2
+ * and 1 byte tail as far as the element size requires. Copies of at least
+ * {@link #nonTemporalThreshold} bytes use non-temporal stores to a vector-aligned destination so
+ * that they do not evict the working set from the cache. Paths that cannot be reached for the
+ * maximum length known at compile time are not emitted.
+ */
+@Opcode("ARRAY_COPY")
+public final class AMD64ArrayCopyOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayCopyOp> TYPE = LIRInstructionClass.create(AMD64ArrayCopyOp.class);
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final int arrayIndexScale;
+
+    /**
+     * Upper bound of the number of bytes copied.
+     */
+    private final long maxBytes;
+    private final int nonTemporalThreshold;
+
+    @Alive({REG}) protected Value srcValue;
+    @Alive({REG}) protected Value srcPosValue;
+    @Alive({REG}) protected Value destValue;
+    @Alive({REG}) protected Value destPosValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp;
+
+    public AMD64ArrayCopyOp(LIRGeneratorTool tool, JavaKind kind, int arrayBaseOffset, int arrayIndexScale, Value src, Value srcPos, Value dest, Value destPos, Value length, long maxLength,
+                    int nonTemporalThreshold) {
+        super(TYPE);
+        assert kind.isPrimitive() && Scale.fromInt(arrayIndexScale) != null;
+        this.kind = kind;
+        this.arrayBaseOffset = arrayBaseOffset;
+        this.arrayIndexScale = arrayIndexScale;
+        this.maxBytes = maxLength > Long.MAX_VALUE / arrayIndexScale ? Long.MAX_VALUE : maxLength * arrayIndexScale;
+        this.nonTemporalThreshold = Math.max(nonTemporalThreshold, 4 * AVX_VECTOR_SIZE);
+
+        this.srcValue = src;
+        this.srcPosValue = srcPos;
+        this.destValue = dest;
+        this.destPosValue = destPos;
+        this.lengthValue = length;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+
+        // We only need the vector temporary if at least one vector can be copied.
+        if (maxBytes >= SSE_VECTOR_SIZE) {
+            this.vectorTemp = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        } else {
+            this.vectorTemp = Value.ILLEGAL;
+        }
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register src = asRegister(temp1);
+        Register dest = asRegister(temp2);
+        Register count = asRegister(temp3);
+        Register temp = asRegister(temp4);
+        Scale scale = Scale.fromInt(arrayIndexScale);
+
+        // Load the addresses of the first elements. The positions are known to be non-negative.
+        masm.movl(temp, asRegister(srcPosValue));
+        masm.leaq(src, new AMD64Address(asRegister(srcValue), temp, scale, arrayBaseOffset));
+        masm.movl(temp, asRegister(destPosValue));
+        masm.leaq(dest, new AMD64Address(asRegister(destValue), temp, scale, arrayBaseOffset));
+
+        // Get the number of bytes to copy.
+        masm.movl(count, asRegister(lengthValue));
+        if (scale.log2 != 0) {
+            masm.shlq(count, scale.log2);
+        }
+
+        if (maxBytes >= SSE_VECTOR_SIZE) {
+            emitVectorCopy(crb, masm, src, dest, count, temp);
+        }
+        if (maxBytes >= VECTOR_SIZE) {
+            emit8ByteCopy(masm, src, dest, count, temp);
+        }
+        emitTailCopy(masm, src, dest, count, temp);
+    }
+
+    /**
+     * Returns if the underlying AMD64 architecture supports AVX instructions.
+     *
+     * @param target target description of the underlying architecture
+     * @return true if the underlying architecture supports AVX
+     */
+    private static boolean supportsAVX(TargetDescription target) {
+        AMD64 arch = (AMD64) target.arch;
+        return arch.getFeatures().contains(CPUFeature.AVX);
+    }
+
+    /**
+     * Vector size used by SSE moves.
+     */
+    private static final int SSE_VECTOR_SIZE = 16;
+
+    /**
+     * Vector size used by AVX moves.
+     */
+    private static final int AVX_VECTOR_SIZE = 32;
+
+    private static void loadVector(AMD64MacroAssembler masm, boolean avx, Register dst, AMD64Address src) {
+        if (avx) {
+            masm.vmovdqu(dst, src);
+        } else {
+            masm.movdqu(dst, src);
+        }
+    }
+
+    private static void storeVector(AMD64MacroAssembler masm, boolean avx, AMD64Address dst, Register src) {
+        if (avx) {
+            masm.vmovdqu(dst, src);
+        } else {
+            masm.movdqu(dst, src);
+        }
+    }
+
+    /**
+     * Emits code that copies whole vectors until less than one vector of bytes is left.
+     */
+    private void emitVectorCopy(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register src, Register dest, Register count, Register temp) {
+        boolean avx = supportsAVX(crb.target) && maxBytes >= AVX_VECTOR_SIZE;
+        int vectorSize = avx ? AVX_VECTOR_SIZE : SSE_VECTOR_SIZE;
+        Register vector = asRegister(vectorTemp, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label done = new Label();
+
+        if (maxBytes >= nonTemporalThreshold) {
+            emitNonTemporalCopy(crb, masm, avx, vectorSize, src, dest, count, temp, vector);
+        }
+
+        masm.cmpq(count, vectorSize);
+        masm.jcc(ConditionFlag.Below, done);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        loadVector(masm, avx, vector, new AMD64Address(src, 0));
+        storeVector(masm, avx, new AMD64Address(dest, 0), vector);
+        masm.addq(src, vectorSize);
+        masm.addq(dest, vectorSize);
+        masm.subq(count, vectorSize);
+        masm.cmpq(count, vectorSize);
+        masm.jcc(ConditionFlag.AboveEqual, loop);
+
+        masm.bind(done);
+        if (avx) {
+            // Avoid the AVX to SSE transition penalty in the code that follows.
+            masm.vzeroupper();
+        }
+    }
+
+    /**
+     * Emits code that copies large ranges with non-temporal stores. The first vector is copied with
+     * an unaligned store, after which the destination is advanced to the next vector-aligned
+     * address. The remaining bytes are left to the regular vector loop.
+     *
+     * The unaligned store overwrites source bytes beyond the aligned start if the source is less
+     * than one vector ahead of the destination in the same array. Such copies skip this path, the
+     * regular vector loop handles them correctly.
+     */
+    private void emitNonTemporalCopy(CompilationResultBuilder crb, AMD64MacroAssembler masm, boolean avx, int vectorSize, Register src, Register dest, Register count, Register temp,
+                    Register vector) {
+        Label loop = new Label();
+        Label skip = new Label();
+
+        masm.cmpq(count, nonTemporalThreshold);
+        masm.jcc(ConditionFlag.Below, skip);
+        // skip if 0 <= src - dest < vectorSize
+        masm.movq(temp, src);
+        masm.subq(temp, dest);
+        masm.cmpq(temp, vectorSize);
+        masm.jcc(ConditionFlag.Below, skip);
+
+        loadVector(masm, avx, vector, new AMD64Address(src, 0));
+        storeVector(masm, avx, new AMD64Address(dest, 0), vector);
+        masm.movq(temp, dest);
+        masm.andq(temp, vectorSize - 1);
+        masm.negq(temp);
+        masm.addq(temp, vectorSize); // 1 to vectorSize bytes up to the next aligned address
+        masm.addq(src, temp);
+        masm.addq(dest, temp);
+        masm.subq(count, temp);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        loadVector(masm, avx, vector, new AMD64Address(src, 0));
+        if (avx) {
+            masm.vmovntdq(new AMD64Address(dest, 0), vector);
+        } else {
+            masm.movntdq(new AMD64Address(dest, 0), vector);
+        }
+        masm.addq(src, vectorSize);
+        masm.addq(dest, vectorSize);
+        masm.subq(count, vectorSize);
+        masm.cmpq(count, vectorSize);
+        masm.jcc(ConditionFlag.AboveEqual, loop);
+
+        // Non-temporal stores are weakly ordered.
+        masm.sfence();
+        masm.bind(skip);
+    }
+
+    /**
+     * Vector size used in {@link #emit8ByteCopy}.
+     */
+    private static final int VECTOR_SIZE = 8;
+
+    /**
+     * Emits code that uses 8-byte moves until less than 8 bytes are left.
+     */
+    private static void emit8ByteCopy(AMD64MacroAssembler masm, Register src, Register dest, Register count, Register temp) {
+        Label loop = new Label();
+        Label done = new Label();
+
+        masm.cmpq(count, VECTOR_SIZE);
+        masm.jccb(ConditionFlag.Below, done);
+
+        masm.bind(loop);
+        masm.movq(temp, new AMD64Address(src, 0));
+        masm.movq(new AMD64Address(dest, 0), temp);
+        masm.addq(src, VECTOR_SIZE);
+        masm.addq(dest, VECTOR_SIZE);
+        masm.subq(count, VECTOR_SIZE);
+        masm.cmpq(count, VECTOR_SIZE);
+        masm.jccb(ConditionFlag.AboveEqual, loop);
+
+        masm.bind(done);
+    }
+
+    /**
+     * Emits code to copy the remaining 1 to 7 bytes.
+     */
+    private void emitTailCopy(AMD64MacroAssembler masm, Register src, Register dest, Register count, Register temp) {
+        Label copy2Bytes = new Label();
+        Label copy1Byte = new Label();
+        Label done = new Label();
+
+        if (kind.getByteCount() <= 4) {
+            // Copy trailing 4 bytes, if any.
+            masm.testl(count, 4);
+            masm.jccb(ConditionFlag.Zero, copy2Bytes);
+            masm.movl(temp, new AMD64Address(src, 0));
+            masm.movl(new AMD64Address(dest, 0), temp);
+
+            if (kind.getByteCount() <= 2) {
+                // Move pointers forward.
+                masm.leaq(src, new AMD64Address(src, 4));
+                masm.leaq(dest, new AMD64Address(dest, 4));
+
+                // Copy trailing 2 bytes, if any.
+                masm.bind(copy2Bytes);
+                masm.testl(count, 2);
+                masm.jccb(ConditionFlag.Zero, copy1Byte);
+                masm.movzwl(temp, new AMD64Address(src, 0));
+                masm.movw(new AMD64Address(dest, 0), temp);
+
+                // The one-byte tail copy is only required for boolean and byte arrays.
+                if (kind.getByteCount() <= 1) {
+                    // Move pointers forward before we copy the last trailing byte.
+                    masm.leaq(src, new AMD64Address(src, 2));
+                    masm.leaq(dest, new AMD64Address(dest, 2));
+
+                    // Copy trailing byte, if any.
+                    masm.bind(copy1Byte);
+                    masm.testl(count, 1);
+                    masm.jccb(ConditionFlag.Zero, done);
+                    masm.movzbl(temp, new AMD64Address(src, 0));
+                    masm.movb(new AMD64Address(dest, 0), temp);
+                } else {
+                    masm.bind(copy1Byte);
+                }
+            } else {
+                masm.bind(copy2Bytes);
+            }
+        }
+        masm.bind(done);
+    }
+}
@@ -30,6 +30,7 @@ import static com.oracle.graal.lir.LIRInstruction.OperandFlag.STACK;
 import static jdk.vm.ci.code.ValueUtil.asRegister;
 import static jdk.vm.ci.code.ValueUtil.isRegister;
 
+import com.oracle.graal.asm.Assembler.LabelHint;
 import com.oracle.graal.asm.Label;
 import com.oracle.graal.asm.NumUtil;
 import com.oracle.graal.asm.amd64.AMD64Address;
@@ -80,6 +81,8 @@ public class AMD64ControlFlow {
         protected final ConditionFlag condition;
         protected final LabelRef trueDestination;
         protected final LabelRef falseDestination;
+        protected LabelHint trueDestinationHint;
+        protected LabelHint falseDestinationHint;
 
         private final double trueDestinationProbability;
 
@@ -115,15 +118,34 @@ public class AMD64ControlFlow {
                 jcc(masm, false, trueDestination);
             } else if (trueDestinationProbability < 0.5) {
                 jcc(masm, true, falseDestination);
-                masm.jmp(trueDestination.label());
+                masm.jmp(trueDestination.label(), hint(masm, trueDestination));
             } else {
                 jcc(masm, false, trueDestination);
-                masm.jmp(falseDestination.label());
+                masm.jmp(falseDestination.label(), hint(masm, falseDestination));
             }
         }
 
         protected void jcc(AMD64MacroAssembler masm, boolean negate, LabelRef target) {
-            masm.jcc(negate ? condition.negate() : condition, target.label());
+            masm.jcc(negate ? condition.negate() : condition, target.label(), hint(masm, target));
+        }
+
+        /**
+         * Gets the hint for a jump to {@code target} emitted at the current position. The hint is
+         * only {@linkplain LabelHint#isValid() valid} once the code has been emitted before.
+         */
+        protected LabelHint hint(AMD64MacroAssembler masm, LabelRef target) {
+            if (target == trueDestination) {
+                if (trueDestinationHint == null) {
+                    trueDestinationHint = masm.requestLabelHint(target.label());
+                }
+                return trueDestinationHint;
+            } else {
+                assert target == falseDestination;
+                if (falseDestinationHint == null) {
+                    falseDestinationHint = masm.requestLabelHint(target.label());
+                }
+                return falseDestinationHint;
+            }
         }
     }
 
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.HINT;
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.meta.AllocatableValue;
+
+/**
+ * Computes {@code result = x * y + z} with a single rounding using the FMA3 instructions. The
+ * addend is moved into the result register first, so {@code x} and {@code y} must stay alive
+ * until the instruction is emitted.
+ */
+@Opcode("FMA")
+public final class AMD64FusedMultiplyAddOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64FusedMultiplyAddOp> TYPE = LIRInstructionClass.create(AMD64FusedMultiplyAddOp.class);
+
+    @Def({REG, HINT}) protected AllocatableValue result;
+    @Alive({REG}) protected AllocatableValue x;
+    @Alive({REG}) protected AllocatableValue y;
+    @Use({REG}) protected AllocatableValue z;
+
+    public AMD64FusedMultiplyAddOp(AllocatableValue result, AllocatableValue x, AllocatableValue y, AllocatableValue z) {
+        super(TYPE);
+        this.result = result;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        AMD64Move.move(crb, masm, result, z);
+        switch ((AMD64Kind) result.getPlatformKind()) {
+            case SINGLE:
+                masm.vfmadd231ss(asRegister(result), asRegister(x), asRegister(y));
+                break;
+            case DOUBLE:
+                masm.vfmadd231sd(asRegister(result), asRegister(x), asRegister(y));
+                break;
+            default:
+                throw GraalError.shouldNotReachHere();
+        }
+    }
+}
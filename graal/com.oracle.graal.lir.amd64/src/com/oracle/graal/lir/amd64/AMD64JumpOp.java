@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import com.oracle.graal.asm.Assembler.LabelHint;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.LabelRef;
+import com.oracle.graal.lir.StandardOp.JumpOp;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+
+/**
+ * Unconditional jump that uses an 8-bit displacement if the destination was close enough when the
+ * code was emitted before.
+ */
+public final class AMD64JumpOp extends JumpOp {
+    public static final LIRInstructionClass<AMD64JumpOp> TYPE = LIRInstructionClass.create(AMD64JumpOp.class);
+
+    private LabelHint destinationHint;
+
+    public AMD64JumpOp(LabelRef destination) {
+        super(TYPE, destination);
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb) {
+        if (!crb.isSuccessorEdge(destination())) {
+            AMD64MacroAssembler masm = (AMD64MacroAssembler) crb.asm;
+            if (destinationHint == null) {
+                destinationHint = masm.requestLabelHint(destination().label());
+            }
+            masm.jmp(destination().label(), destinationHint);
+        }
+    }
+}
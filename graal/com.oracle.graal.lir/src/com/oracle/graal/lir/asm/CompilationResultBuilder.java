@@ -80,6 +80,12 @@ public class CompilationResultBuilder {
     // @formatter:off
     @Option(help = "Include the LIR as comments with the final assembly.", type = OptionType.Debug)
     public static final OptionValue<Boolean> PrintLIRWithAssembly = new OptionValue<>(false);
+
+    @Option(help = "Maximum number of padding bytes emitted to align a single loop header.", type = OptionType.Expert)
+    public static final OptionValue<Integer> MaxLoopAlignmentPadding = new OptionValue<>(10);
+
+    @Option(help = "Maximum number of padding bytes emitted to align loop headers in one compilation unit.", type = OptionType.Expert)
+    public static final OptionValue<Integer> LoopAlignmentBudget = new OptionValue<>(128);
     // @formatter:on
 
     private static class ExceptionInfo {
@@ -123,6 +129,11 @@ public class CompilationResultBuilder {
     private Consumer<LIRInstruction> beforeOp;
     private Consumer<LIRInstruction> afterOp;
 
+    /**
+     * The number of padding bytes emitted so far by {@link #alignBlockStart()}.
+     */
+    private int alignmentPadding;
+
     public CompilationResultBuilder(CodeCacheProvider codeCache, ForeignCallsProvider foreignCalls, FrameMap frameMap, Assembler asm, DataBuilder dataBuilder, FrameContext frameContext,
                     CompilationResult compilationResult) {
         // constants are already GVNed in the high level graph, so we can use an IdentityHashMap
@@ -448,8 +459,24 @@ public class CompilationResultBuilder {
         }
     }
 
+    /**
+     * Pads the code so that the block starting at the current position, typically a loop header,
+     * is aligned to a {@code 2 * wordSize} boundary. The alignment is omitted if it needs more than
+     * {@link #MaxLoopAlignmentPadding} bytes or if the {@link #LoopAlignmentBudget} for this
+     * compilation unit is used up.
+     */
+    public void alignBlockStart() {
+        int modulus = target.wordSize * 2;
+        int padding = (modulus - asm.position() % modulus) % modulus;
+        if (padding > 0 && padding <= MaxLoopAlignmentPadding.getValue() && alignmentPadding + padding <= LoopAlignmentBudget.getValue()) {
+            asm.align(modulus);
+            alignmentPadding += padding;
+        }
+    }
+
     public void resetForEmittingCode() {
         asm.reset();
+        alignmentPadding = 0;
         compilationResult.resetForEmittingCode();
         if (exceptionInfoList != null) {
             exceptionInfoList.clear();
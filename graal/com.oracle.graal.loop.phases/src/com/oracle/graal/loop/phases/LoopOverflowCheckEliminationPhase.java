@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.loop.MathUtil.add;
+import static com.oracle.graal.loop.MathUtil.sub;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.AbstractMergeNode;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.BinaryArithmeticNode;
+import com.oracle.graal.nodes.calc.ExactArithmeticNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.calc.IntegerConvertNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.MulNode;
+import com.oracle.graal.nodes.calc.SubNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.extended.BranchProbabilityNode;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.code.CodeUtil;
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Removes the overflow checks of {@link ExactArithmeticNode exact arithmetic} on the counter of
+ * counted loops. The range of the counter is derived from the loop bounds: if their stamps prove
+ * that an operation cannot overflow, it is replaced by its unchecked counterpart. Otherwise, an
+ * addition or subtraction with a loop invariant operand is checked once in front of the loop for
+ * both ends of the counter range, which removes the overflow branch from every iteration. If the
+ * loop body is not executed at all, the checks only apply to values that are computed anyway.
+ */
+public class LoopOverflowCheckEliminationPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugCounter OVERFLOW_CHECKS_REMOVED = Debug.counter("LoopOverflowChecksRemoved");
+    private static final DebugCounter OVERFLOW_CHECKS_HOISTED = Debug.counter("LoopOverflowChecksHoisted");
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (!graph.hasLoops()) {
+            return;
+        }
+        boolean hoistChecks = context.getOptimisticOptimizations().useLoopLimitChecks() && graph.getGuardsStage().allowsFloatingGuards();
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        for (LoopEx loop : loops.countedLoops()) {
+            CountedLoopInfo counted = loop.counted();
+            InductionVariable counter = counted.getCounter();
+            if (!(counter instanceof BasicInductionVariable) || !counter.isConstantStride() || counted.getStamp().getBits() > 32) {
+                continue;
+            }
+            List<ExactArithmeticNode> exactUsages = new ArrayList<>();
+            for (Node usage : counter.valueNode().usages()) {
+                if (usage instanceof ExactArithmeticNode && !exactUsages.contains(usage)) {
+                    exactUsages.add((ExactArithmeticNode) usage);
+                }
+            }
+            if (exactUsages.isEmpty()) {
+                continue;
+            }
+            IntegerStamp counterRange = counterRange(counted);
+            for (ExactArithmeticNode exact : exactUsages) {
+                boolean counterIsX = exact.getX() == counter.valueNode();
+                ValueNode other = counterIsX ? exact.getY() : exact.getX();
+                if (counterRange != null) {
+                    IntegerStamp x = counterIsX ? counterRange : (IntegerStamp) other.stamp();
+                    IntegerStamp y = counterIsX ? (IntegerStamp) other.stamp() : counterRange;
+                    if (!canOverflow(exact, x, y)) {
+                        Debug.log("Removing overflow check of %s in %s", exact, loop);
+                        replaceWithUnchecked(exact);
+                        OVERFLOW_CHECKS_REMOVED.increment();
+                        continue;
+                    }
+                }
+                if (hoistChecks && !(exact instanceof MulNode) && loop.isOutsideLoop(other)) {
+                    Debug.log("Hoisting overflow check of %s out of %s", exact, loop);
+                    hoistOverflowCheck(loop, exact, counterIsX, isOnlyUsedInBody(loops.getCFG(), loops.getCFG().blockFor(counted.getBody()), (ValueNode) exact));
+                    replaceWithUnchecked(exact);
+                    OVERFLOW_CHECKS_HOISTED.increment();
+                }
+            }
+        }
+        loops.deleteUnusedNodes();
+    }
+
+    /**
+     * Computes a stamp that covers all values of the loop counter, including the value that fails
+     * the loop limit test, based on the stamps of the loop bounds. Returns {@code null} if the
+     * counter could overflow according to these stamps.
+     */
+    private static IntegerStamp counterRange(CountedLoopInfo counted) {
+        IntegerStamp init = (IntegerStamp) counted.getStart().stamp();
+        IntegerStamp limit = (IntegerStamp) counted.getLimit().stamp();
+        int bits = counted.getStamp().getBits();
+        long lastOffset = lastValueOffset(counted);
+        if (counted.getDirection() == Direction.Up) {
+            long last = limit.upperBound() + lastOffset;
+            if (last > CodeUtil.maxValue(bits)) {
+                return null;
+            }
+            return StampFactory.forInteger(bits, init.lowerBound(), Math.max(init.upperBound(), last));
+        } else {
+            assert counted.getDirection() == Direction.Down;
+            long last = limit.lowerBound() + lastOffset;
+            if (last < CodeUtil.minValue(bits)) {
+                return null;
+            }
+            return StampFactory.forInteger(bits, Math.min(init.lowerBound(), last), init.upperBound());
+        }
+    }
+
+    /**
+     * Returns the distance between the loop limit and the most extreme value the counter can reach,
+     * i.e., the value for which the loop limit test fails.
+     */
+    private static long lastValueOffset(CountedLoopInfo counted) {
+        long stride = counted.getCounter().constantStride();
+        if (counted.getDirection() == Direction.Up) {
+            return counted.isLimitIncluded() ? stride : stride - 1;
+        } else {
+            return counted.isLimitIncluded() ? stride : stride + 1;
+        }
+    }
+
+    private static boolean canOverflow(ExactArithmeticNode exact, IntegerStamp x, IntegerStamp y) {
+        if (exact instanceof AddNode) {
+            return IntegerStamp.addCanOverflow(x, y);
+        } else if (exact instanceof SubNode) {
+            return IntegerStamp.subtractCanOverflow(x, y);
+        } else if (exact instanceof MulNode) {
+            return IntegerStamp.multiplicationCanOverflow(x, y);
+        }
+        return true;
+    }
+
+    /**
+     * Determines if {@code exact} is only computed after the loop limit test of an iteration
+     * passed. Floating usages are followed to the fixed nodes that need their value. A phi needs
+     * the value at the end of the corresponding predecessor.
+     */
+    private static boolean isOnlyUsedInBody(ControlFlowGraph cfg, Block body, ValueNode exact) {
+        NodeBitMap visited = exact.graph().createNodeBitMap();
+        ArrayDeque<Node> worklist = new ArrayDeque<>();
+        visited.mark(exact);
+        worklist.push(exact);
+        while (!worklist.isEmpty()) {
+            Node node = worklist.pop();
+            for (Node usage : node.usages()) {
+                if (usage instanceof FixedNode) {
+                    if (!isInBody(cfg, body, usage)) {
+                        return false;
+                    }
+                } else if (usage instanceof PhiNode) {
+                    PhiNode phi = (PhiNode) usage;
+                    AbstractMergeNode merge = phi.merge();
+                    for (int i = 0; i < phi.valueCount(); i++) {
+                        if (phi.valueAt(i) == node && !isInBody(cfg, body, merge.phiPredecessorAt(i))) {
+                            return false;
+                        }
+                    }
+                } else if (!visited.isMarked(usage)) {
+                    visited.mark(usage);
+                    worklist.push(usage);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isInBody(ControlFlowGraph cfg, Block body, Node node) {
+        Block block = cfg.blockFor(node);
+        return block != null && AbstractControlFlowGraph.dominates(body, block);
+    }
+
+    /**
+     * Guards the loop entry with a check that the operation does not overflow for the first and
+     * the last value of the counter. Additions and subtractions are monotonic in each operand, so
+     * this also covers all values in between. The checks are computed with 64 bit arithmetic,
+     * which cannot overflow for counters of at most 32 bits.
+     *
+     * If the range {@code [low, high]} of counter values for which the loop limit test passes is
+     * empty, the operation is at most computed for the first value of the counter, which fails the
+     * loop limit test. The check for the last value is then skipped, and so is the check for the
+     * first value if {@code bodyOnly} states that the operation is only computed in the body.
+     */
+    private static void hoistOverflowCheck(LoopEx loop, ExactArithmeticNode exact, boolean counterIsX, boolean bodyOnly) {
+        CountedLoopInfo counted = loop.counted();
+        StructuredGraph graph = loop.loopBegin().graph();
+        int bits = counted.getStamp().getBits();
+        // ensures that the counter itself does not overflow
+        counted.createOverFlowGuard();
+
+        Stamp longStamp = StampFactory.forKind(JavaKind.Long);
+        ValueNode first = IntegerConvertNode.convert(counted.getStart(), longStamp, graph);
+        ValueNode limit = IntegerConvertNode.convert(counted.getLimit(), longStamp, graph);
+        ValueNode last = add(graph, limit, ConstantNode.forLong(lastValueOffset(counted), graph));
+        ValueNode other = IntegerConvertNode.convert(counterIsX ? exact.getY() : exact.getX(), longStamp, graph);
+        ValueNode minValue = ConstantNode.forLong(CodeUtil.minValue(bits), graph);
+        ValueNode rangeSize = ConstantNode.forLong(1L << bits, graph);
+
+        ValueNode low;
+        ValueNode high;
+        if (counted.getDirection() == Direction.Up) {
+            low = first;
+            high = counted.isLimitIncluded() ? limit : add(graph, limit, ConstantNode.forLong(-1, graph));
+        } else {
+            assert counted.getDirection() == Direction.Down;
+            low = counted.isLimitIncluded() ? limit : add(graph, limit, ConstantNode.forLong(1, graph));
+            high = first;
+        }
+        LogicNode empty = graph.unique(new IntegerLessThanNode(high, low));
+
+        for (ValueNode counterValue : new ValueNode[]{first, last}) {
+            ValueNode x = counterIsX ? counterValue : other;
+            ValueNode y = counterIsX ? other : counterValue;
+            ValueNode result = exact instanceof AddNode ? add(graph, x, y) : sub(graph, x, y);
+            // result is representable iff (result - minValue) |<| 2^bits
+            LogicNode inRange = graph.unique(new IntegerBelowNode(sub(graph, result, minValue), rangeSize));
+            LogicNode condition = inRange;
+            if (counterValue == last || bodyOnly) {
+                condition = graph.unique(new ShortCircuitOrNode(empty, false, inRange, false, BranchProbabilityNode.NOT_FREQUENT_PROBABILITY));
+            }
+            FixedGuardNode guard = graph.add(new FixedGuardNode(condition, DeoptimizationReason.LoopLimitCheck, DeoptimizationAction.InvalidateRecompile));
+            graph.addBeforeFixed(loop.entryPoint(), guard);
+        }
+    }
+
+    private static void replaceWithUnchecked(ExactArithmeticNode exact) {
+        BinaryArithmeticNode<?> node = (BinaryArithmeticNode<?>) exact;
+        BinaryArithmeticNode<?> unchecked = node.graph().addOrUnique(exact.createUnchecked());
+        node.replaceAtUsagesAndDelete(unchecked);
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.loop.MathUtil.add;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Graph.Mark;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.DeoptimizingGuard;
+import com.oracle.graal.nodes.EndNode;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.MergeNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.calc.IntegerConvertNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.IsNullNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.extended.BranchProbabilityNode;
+import com.oracle.graal.nodes.extended.GuardingNode;
+import com.oracle.graal.nodes.memory.Access;
+import com.oracle.graal.nodes.memory.FloatingReadNode;
+import com.oracle.graal.nodes.memory.HeapAccess.BarrierType;
+import com.oracle.graal.nodes.memory.ReadNode;
+import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Replaces range checks of the counter of counted loops, such as array bounds checks, by a single
+ * predicate in front of the loop. A guard {@code i |<| length} in the loop body with a loop
+ * invariant, non-negative {@code length} holds for all iterations iff it holds for the smallest and
+ * the largest value the counter {@code i} takes in the body. Both values are derived from the loop
+ * bounds, so the predicate can be evaluated before the loop is entered.
+ *
+ * The length is typically the array length read in the loop body. Since its location is immutable,
+ * it is loop invariant if the array is. In that case the length is read again in front of the loop.
+ * If the null check of the array is in the loop body, the length is read only if the array is not
+ * null and is zero otherwise. The predicate then fails for a null array unless the loop is not
+ * entered, and it replaces the null check in the body. A null check in the loop header is executed
+ * whenever the loop is reached and is simply moved in front of the loop.
+ *
+ * The predicate may fail although no iteration would have failed the original guard, e.g., if the
+ * loop is left early. It therefore deoptimizes with {@link DeoptimizationReason#BoundsCheckException},
+ * which disables this speculation for the method once it failed too often without affecting other
+ * loop optimizations.
+ */
+public class LoopPredicationPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugCounter GUARDS_PREDICATED = Debug.counter("LoopGuardsPredicated");
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        OptimisticOptimizations optimisticOpts = context.getOptimisticOptimizations();
+        if (!graph.hasLoops() || !optimisticOpts.useLoopPredication() || !optimisticOpts.useLoopLimitChecks() || !graph.getGuardsStage().allowsFloatingGuards()) {
+            return;
+        }
+        Mark mark = graph.getMark();
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        for (LoopEx loop : loops.countedLoops()) {
+            CountedLoopInfo counted = loop.counted();
+            InductionVariable counter = counted.getCounter();
+            if (!(counter instanceof BasicInductionVariable) || !counter.isConstantStride() || counted.getStamp().getBits() > 32) {
+                continue;
+            }
+            Block body = loops.getCFG().blockFor(counted.getBody());
+            Set<ValueNode> hoistedLengths = new HashSet<>();
+            List<DeoptimizingGuard> guards = new ArrayList<>();
+            for (Node usage : counter.valueNode().usages()) {
+                if (usage instanceof IntegerBelowNode && ((IntegerBelowNode) usage).getX() == counter.valueNode() &&
+                                isPredicableLength(loops.getCFG(), loop, body, ((IntegerBelowNode) usage).getY(), mark)) {
+                    for (Node guard : usage.usages()) {
+                        if (isPredicableGuard(loops.getCFG(), loop, body, guard) && !guards.contains(guard)) {
+                            guards.add((DeoptimizingGuard) guard);
+                        }
+                    }
+                }
+            }
+            for (DeoptimizingGuard guard : guards) {
+                Debug.log("Predicating %s in front of %s", guard, loop);
+                predicate(loops.getCFG(), loop, body, guard, hoistedLengths);
+                GUARDS_PREDICATED.increment();
+            }
+        }
+        loops.deleteUnusedNodes();
+    }
+
+    /**
+     * Nodes added by predicating an enclosing or preceding loop are not part of the loop data and
+     * are not considered.
+     */
+    private static boolean isPredicableLength(ControlFlowGraph cfg, LoopEx loop, Block body, ValueNode length, Mark mark) {
+        if (length.graph().isNew(mark, length)) {
+            return false;
+        }
+        return (loop.isOutsideLoop(length) || isInvariantLengthRead(cfg, loop, body, length)) && ((IntegerStamp) length.stamp()).isPositive();
+    }
+
+    /**
+     * Determines if {@code length} is a read of an immutable location in the loop that can be
+     * repeated in front of the loop. This requires a loop invariant address and a guard that is
+     * either outside the loop or a null check of the address base in the loop header or body.
+     */
+    private static boolean isInvariantLengthRead(ControlFlowGraph cfg, LoopEx loop, Block body, ValueNode length) {
+        if (!(length instanceof ReadNode || length instanceof FloatingReadNode)) {
+            return false;
+        }
+        Access access = (Access) length;
+        if (!access.getLocationIdentity().isImmutable() || !(access.getAddress() instanceof OffsetAddressNode) || (length instanceof ReadNode && ((ReadNode) length).getNullCheck())) {
+            return false;
+        }
+        OffsetAddressNode address = (OffsetAddressNode) access.getAddress();
+        if (!loop.isOutsideLoop(address.getBase()) || !loop.isOutsideLoop(address.getOffset())) {
+            return false;
+        }
+        GuardingNode guard = access.getGuard();
+        if (guard == null || loop.isOutsideLoop(guard.asNode())) {
+            return true;
+        }
+        if (!isNullCheckOf(guard, address.getBase())) {
+            return false;
+        }
+        Block block = cfg.blockFor(guardPosition(guard));
+        return block != null && (block == cfg.blockFor(loop.loopBegin()) || AbstractControlFlowGraph.dominates(body, block));
+    }
+
+    private static Node guardPosition(GuardingNode guard) {
+        if (guard instanceof GuardNode) {
+            return ((GuardNode) guard).getAnchor().asNode();
+        }
+        return guard.asNode();
+    }
+
+    private static boolean isNullCheckOf(GuardingNode guard, ValueNode object) {
+        if (guard instanceof FixedGuardNode || guard instanceof GuardNode) {
+            DeoptimizingGuard nullCheck = (DeoptimizingGuard) guard;
+            return nullCheck.isNegated() && nullCheck.getCondition() instanceof IsNullNode && ((IsNullNode) nullCheck.getCondition()).getValue() == object;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the value of the loop invariant {@code length} in front of the loop. A length read in
+     * the loop is read again in front of the loop. A null check of the array in the loop header is
+     * moved in front of the loop. A null check in the loop body is added to {@code nullChecks} to
+     * be replaced by the predicate, and the length is only read if the array is not null.
+     */
+    private static ValueNode lengthBeforeLoop(ControlFlowGraph cfg, LoopEx loop, Block body, ValueNode length, Set<ValueNode> hoistedLengths, List<GuardingNode> nullChecks) {
+        if (hoistedLengths.contains(length) || loop.isOutsideLoop(length)) {
+            return length;
+        }
+        StructuredGraph graph = loop.loopBegin().graph();
+        Access access = (Access) length;
+        GuardingNode guard = access.getGuard();
+        ValueNode hoisted;
+        if (guard == null || loop.isOutsideLoop(guard.asNode())) {
+            hoisted = readBefore(loop.entryPoint(), access, guard);
+        } else if (AbstractControlFlowGraph.dominates(body, cfg.blockFor(guardPosition(guard)))) {
+            hoisted = readIfNotNull(loop, access, ((DeoptimizingGuard) guard).getCondition());
+            nullChecks.add(guard);
+        } else {
+            DeoptimizingGuard nullCheck = (DeoptimizingGuard) guard;
+            FixedGuardNode hoistedNullCheck = graph.add(new FixedGuardNode(nullCheck.getCondition(), nullCheck.getReason(), nullCheck.getAction(), true));
+            graph.addBeforeFixed(loop.entryPoint(), hoistedNullCheck);
+            hoisted = readBefore(loop.entryPoint(), access, hoistedNullCheck);
+            replaceGuard(guard, hoistedNullCheck);
+        }
+        length.replaceAtUsages(hoisted);
+        if (length instanceof ReadNode) {
+            graph.removeFixed((ReadNode) length);
+        } else {
+            GraphUtil.killWithUnusedFloatingInputs(length);
+        }
+        hoistedLengths.add(hoisted);
+        return hoisted;
+    }
+
+    /**
+     * Repeats {@code access} in front of {@code position}.
+     */
+    private static ValueNode readBefore(FixedNode position, Access access, GuardingNode guard) {
+        StructuredGraph graph = position.graph();
+        ValueNode length = access.asNode();
+        if (graph.isAfterFloatingReadPhase()) {
+            return graph.unique(new FloatingReadNode(access.getAddress(), access.getLocationIdentity(), null, length.stamp(), guard));
+        } else {
+            ReadNode read = graph.add(new ReadNode(access.getAddress(), access.getLocationIdentity(), length.stamp(), guard, BarrierType.NONE));
+            graph.addBeforeFixed(position, read);
+            return read;
+        }
+    }
+
+    /**
+     * Inserts {@code isNull ? 0 : length} in front of the loop, where the length is read by
+     * repeating {@code access} in the branch for a non-null array.
+     */
+    private static ValueNode readIfNotNull(LoopEx loop, Access access, LogicNode isNull) {
+        StructuredGraph graph = loop.loopBegin().graph();
+        FixedNode entry = loop.entryPoint();
+        FixedWithNextNode predecessor = (FixedWithNextNode) entry.predecessor();
+        EndNode nullEnd = graph.add(new EndNode());
+        EndNode nonNullEnd = graph.add(new EndNode());
+        MergeNode merge = graph.add(new MergeNode());
+        predecessor.setNext(null);
+        merge.setNext(entry);
+        IfNode ifNode = graph.add(new IfNode(isNull, nullEnd, nonNullEnd, BranchProbabilityNode.NOT_FREQUENT_PROBABILITY));
+        predecessor.setNext(ifNode);
+        merge.addForwardEnd(nullEnd);
+        merge.addForwardEnd(nonNullEnd);
+
+        ValueNode read = readBefore(nonNullEnd, access, ifNode.falseSuccessor());
+        ValueNode zero = ConstantNode.forInt(0, graph);
+        return graph.addWithoutUnique(new ValuePhiNode(read.stamp().meet(zero.stamp()), merge, new ValueNode[]{zero, read}));
+    }
+
+    private static void replaceGuard(GuardingNode guard, GuardingNode replacement) {
+        guard.asNode().replaceAtUsages(replacement.asNode());
+        if (guard instanceof FixedGuardNode) {
+            guard.asNode().graph().removeFixed((FixedGuardNode) guard);
+        } else {
+            GraphUtil.killWithUnusedFloatingInputs(guard.asNode());
+        }
+    }
+
+    /**
+     * Only guards that are executed after the loop limit test of an iteration can be predicated,
+     * since the counter range derived from the loop bounds holds only there.
+     */
+    private static boolean isPredicableGuard(ControlFlowGraph cfg, LoopEx loop, Block body, Node node) {
+        Node position;
+        if (node instanceof FixedGuardNode) {
+            position = node;
+        } else if (node instanceof GuardNode) {
+            position = ((GuardNode) node).getAnchor().asNode();
+        } else {
+            return false;
+        }
+        if (((DeoptimizingGuard) node).isNegated() || loop.isOutsideLoop(position)) {
+            return false;
+        }
+        Block block = cfg.blockFor(position);
+        return block != null && AbstractControlFlowGraph.dominates(body, block);
+    }
+
+    /**
+     * Guards the loop entry with {@code high < low || (low |<| length && high |<| length)}, where
+     * {@code low} and {@code high} are the smallest and the largest counter value for which the
+     * loop limit test passes. These bounds are computed with 64 bit arithmetic, which cannot
+     * overflow for counters of at most 32 bits. An empty range means that the body is never
+     * executed, so nothing needs to be checked. Otherwise, the predicate implies that the length is
+     * greater than zero and therefore that the array is not null.
+     */
+    private static void predicate(ControlFlowGraph cfg, LoopEx loop, Block body, DeoptimizingGuard guard, Set<ValueNode> hoistedLengths) {
+        CountedLoopInfo counted = loop.counted();
+        StructuredGraph graph = loop.loopBegin().graph();
+        IntegerBelowNode check = (IntegerBelowNode) guard.getCondition();
+        List<GuardingNode> nullChecks = new ArrayList<>();
+        ValueNode lengthBeforeLoop = lengthBeforeLoop(cfg, loop, body, check.getY(), hoistedLengths, nullChecks);
+        // ensures that the counter does not wrap around, i.e., stays within the computed range
+        counted.createOverFlowGuard();
+
+        Stamp longStamp = StampFactory.forKind(JavaKind.Long);
+        ValueNode first = IntegerConvertNode.convert(counted.getStart(), longStamp, graph);
+        ValueNode limit = IntegerConvertNode.convert(counted.getLimit(), longStamp, graph);
+        ValueNode low;
+        ValueNode high;
+        if (counted.getDirection() == Direction.Up) {
+            low = first;
+            high = counted.isLimitIncluded() ? limit : add(graph, limit, ConstantNode.forLong(-1, graph));
+        } else {
+            assert counted.getDirection() == Direction.Down;
+            low = counted.isLimitIncluded() ? limit : add(graph, limit, ConstantNode.forLong(1, graph));
+            high = first;
+        }
+        ValueNode length = IntegerConvertNode.convert(lengthBeforeLoop, longStamp, graph);
+
+        LogicNode empty = graph.unique(new IntegerLessThanNode(high, low));
+        LogicNode lowInRange = graph.unique(new IntegerBelowNode(low, length));
+        LogicNode highInRange = graph.unique(new IntegerBelowNode(high, length));
+        LogicNode outOfRange = graph.unique(new ShortCircuitOrNode(lowInRange, true, highInRange, true, BranchProbabilityNode.SLOW_PATH_PROBABILITY));
+        LogicNode predicate = graph.unique(new ShortCircuitOrNode(empty, false, outOfRange, true, BranchProbabilityNode.NOT_FREQUENT_PROBABILITY));
+        FixedGuardNode predicateGuard = graph.add(new FixedGuardNode(predicate, DeoptimizationReason.BoundsCheckException, DeoptimizationAction.InvalidateRecompile));
+        graph.addBeforeFixed(loop.entryPoint(), predicateGuard);
+        for (GuardingNode nullCheck : nullChecks) {
+            replaceGuard(nullCheck, predicateGuard);
+        }
+
+        guard.asNode().replaceAtUsages(predicateGuard);
+        if (guard instanceof FixedGuardNode) {
+            graph.removeFixed((FixedGuardNode) guard);
+            GraphUtil.tryKillUnused(check);
+        } else {
+            GraphUtil.killWithUnusedFloatingInputs(guard.asNode());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import static com.oracle.graal.microbenchmarks.graal.GraalBenchmark.Defaults.FORKS;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures a diamond whose branch is taken with a probability of about 50%. On random input the
+ * branch is unpredictable, which is where a conditional move pays off. On sorted input the same
+ * branch is predicted well. {@link WithoutConditionalMoves} runs the same benchmarks in a fork
+ * that disables {@code OptConditionalMoves} to compare against the branching code.
+ */
+@State(Scope.Thread)
+public class ConditionalMoveBenchmark extends GraalBenchmark {
+
+    private static final int TESTSIZE = 10000;
+
+    private int[] random;
+    private int[] sorted;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        random = new int[TESTSIZE];
+        for (int i = 0; i < TESTSIZE; i++) {
+            random[i] = r.nextInt(256);
+        }
+        sorted = Arrays.copyOf(random, TESTSIZE);
+        Arrays.sort(sorted);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TESTSIZE)
+    public int randomInput() {
+        return sum(random);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TESTSIZE)
+    public int sortedInput() {
+        return sum(sorted);
+    }
+
+    /**
+     * Runs the benchmarks with conditional moves disabled. Compiler options are read when the VM
+     * starts, so this needs a fork of its own instead of a {@code @Param}.
+     */
+    @Fork(value = FORKS, jvmArgsAppend = "-Dgraal.OptConditionalMoves=false")
+    public static class WithoutConditionalMoves extends ConditionalMoveBenchmark {
+    }
+
+    private static int sum(int[] values) {
+        int sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            int v = values[i];
+            int delta;
+            if (v >= 128) {
+                delta = v + 1;
+            } else {
+                delta = 1 - v;
+            }
+            sum += delta;
+        }
+        return sum;
+    }
+}
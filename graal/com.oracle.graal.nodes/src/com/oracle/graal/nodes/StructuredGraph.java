@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -34,6 +35,7 @@ import com.oracle.graal.compiler.common.type.Stamp;
 import com.oracle.graal.debug.JavaMethodContext;
 import com.oracle.graal.graph.Graph;
 import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.Node.IndirectCanonicalization;
 import com.oracle.graal.graph.NodeMap;
 import com.oracle.graal.graph.spi.SimplifierTool;
 import com.oracle.graal.nodes.calc.FloatingNode;
@@ -165,6 +167,71 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     private ScheduleResult lastSchedule;
 
+    /**
+     * Records the nodes that changed since the last call to {@link #recordChangedNodes()}, or
+     * {@code null} if this method was never called.
+     */
+    private ChangedNodesListener changedNodes;
+
+    private static final class ChangedNodesListener implements NodeEventListener {
+
+        private final Set<Node> nodes = Node.newSet();
+
+        /**
+         * Set when the state of the graph changed in a way that can affect any node, e.g., when
+         * the guards stage is advanced.
+         */
+        private boolean stateChanged;
+
+        @Override
+        public void event(NodeEvent e, Node node) {
+            add(node);
+        }
+
+        /**
+         * A node whose successor changed, e.g., because a fixed node after it was removed, and its
+         * predecessor, such as an {@link IfNode} with a now empty branch, may be simplified.
+         */
+        @Override
+        public void successorChanged(Node node) {
+            add(node);
+            addNeighbors(node);
+        }
+
+        /**
+         * The removed node itself is not processed again but its predecessor and usages may have
+         * become simplifiable.
+         */
+        @Override
+        public void nodeRemoved(Node node) {
+            nodes.remove(node);
+            addNeighbors(node);
+        }
+
+        private void add(Node node) {
+            nodes.add(node);
+            if (node instanceof IndirectCanonicalization) {
+                for (Node usage : node.usages()) {
+                    nodes.add(usage);
+                }
+            }
+        }
+
+        private void addNeighbors(Node node) {
+            if (node.predecessor() != null) {
+                add(node.predecessor());
+            }
+            for (Node usage : node.usages()) {
+                add(usage);
+            }
+        }
+
+        void reset() {
+            nodes.clear();
+            stateChanged = false;
+        }
+    }
+
     /**
      * Records the methods that were inlined while constructing this graph, one entry for each time
      * a specific method is inlined.
@@ -252,6 +319,39 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
         setLastSchedule(null);
     }
 
+    /**
+     * Starts recording the nodes that are added to this graph, have their inputs or successors
+     * changed or become unused, as well as the neighbors of changed and removed fixed nodes. Nodes
+     * recorded before are discarded. Once started, recording continues for the
+     * lifetime of this graph.
+     */
+    public void recordChangedNodes() {
+        if (changedNodes == null) {
+            changedNodes = new ChangedNodesListener();
+            trackNodeEvents(changedNodes);
+        } else {
+            changedNodes.reset();
+        }
+    }
+
+    /**
+     * Gets the nodes recorded since the last call to {@link #recordChangedNodes()}. Returns
+     * {@code null} if nodes are not recorded or if the state of this graph changed since in a way
+     * that can affect any node, such as its {@linkplain #getGuardsStage() guards stage}.
+     */
+    public Set<Node> getChangedNodes() {
+        if (changedNodes == null || changedNodes.stateChanged) {
+            return null;
+        }
+        return changedNodes.nodes;
+    }
+
+    private void stateChanged() {
+        if (changedNodes != null) {
+            changedNodes.stateChanged = true;
+        }
+    }
+
     @Override
     public boolean maybeCompress() {
         if (super.maybeCompress()) {
@@ -578,6 +678,9 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     public void setGuardsStage(GuardsStage guardsStage) {
         assert guardsStage.ordinal() >= this.guardsStage.ordinal();
+        if (guardsStage != this.guardsStage) {
+            stateChanged();
+        }
         this.guardsStage = guardsStage;
     }
 
@@ -587,6 +690,9 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     public void setAfterFloatingReadPhase(boolean state) {
         assert state : "cannot 'unapply' floating read phase on graph";
+        if (state != isAfterFloatingReadPhase) {
+            stateChanged();
+        }
         isAfterFloatingReadPhase = state;
     }
 
@@ -596,6 +702,9 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     public void setHasValueProxies(boolean state) {
         assert !state : "cannot 'unapply' value proxy removal on graph";
+        if (state != hasValueProxies) {
+            stateChanged();
+        }
         hasValueProxies = state;
     }
 
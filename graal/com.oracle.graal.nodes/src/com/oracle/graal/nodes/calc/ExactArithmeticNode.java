@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.calc;
+
+import com.oracle.graal.nodes.ValueNode;
+
+/**
+ * Interface for integer {@link BinaryArithmeticNode arithmetic nodes} that deoptimize or throw when
+ * their result overflows, such as the intrinsics for {@link Math#addExact(int, int)}. Once it is
+ * proven that the operation cannot overflow, the node can be replaced by its unchecked
+ * counterpart.
+ */
+public interface ExactArithmeticNode {
+
+    ValueNode getX();
+
+    ValueNode getY();
+
+    /**
+     * Creates the equivalent operation without an overflow check. The returned node is not yet
+     * added to the graph.
+     */
+    BinaryArithmeticNode<?> createUnchecked();
+}
@@ -22,12 +22,15 @@
  */
 package com.oracle.graal.nodes.java;
 
+import com.oracle.graal.compiler.common.type.IntegerStamp;
 import com.oracle.graal.compiler.common.type.Stamp;
 import com.oracle.graal.graph.NodeClass;
 import com.oracle.graal.nodeinfo.NodeInfo;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.spi.Lowerable;
 import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.nodes.spi.VirtualizerTool;
+import com.oracle.graal.nodes.virtual.VirtualArrayNode;
 
 import jdk.vm.ci.meta.JavaKind;
 
@@ -73,4 +76,29 @@ public abstract class AccessIndexedNode extends AccessArrayNode implements Lower
     public void lower(LoweringTool tool) {
         tool.getLowerer().lower(this, tool);
     }
+
+    /**
+     * Determines whether an access to {@code virtual} with the non-constant {@code index} can be
+     * expressed as a selection among the entries of the array. This is the case if the stamp of
+     * the index proves that the access is in bounds, the number of possible entries is small and
+     * all of them are primitive values.
+     *
+     * @return the stamp of the index whose bounds delimit the possibly accessed entries, or null
+     */
+    protected static IntegerStamp virtualIndexRange(VirtualizerTool tool, VirtualArrayNode virtual, ValueNode index) {
+        if (!(index.stamp() instanceof IntegerStamp) || !virtual.componentType().isPrimitive()) {
+            return null;
+        }
+        IntegerStamp stamp = (IntegerStamp) index.stamp();
+        if (stamp.lowerBound() < 0 || stamp.upperBound() >= virtual.entryCount() || stamp.upperBound() - stamp.lowerBound() >= tool.getMaximumIndexRange()) {
+            return null;
+        }
+        JavaKind stackKind = virtual.componentType().getJavaKind().getStackKind();
+        for (int i = (int) stamp.lowerBound(); i <= stamp.upperBound(); i++) {
+            if (tool.getEntry(virtual, i).getStackKind() != stackKind) {
+                return null;
+            }
+        }
+        return stamp;
+    }
 }
@@ -22,6 +22,7 @@
  */
 package com.oracle.graal.nodes.java;
 
+import com.oracle.graal.compiler.common.type.IntegerStamp;
 import com.oracle.graal.compiler.common.type.Stamp;
 import com.oracle.graal.compiler.common.type.StampFactory;
 import com.oracle.graal.compiler.common.type.TypeReference;
@@ -31,7 +32,10 @@ import com.oracle.graal.graph.spi.Canonicalizable;
 import com.oracle.graal.graph.spi.CanonicalizerTool;
 import com.oracle.graal.nodeinfo.NodeInfo;
 import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.LogicNode;
 import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerEqualsNode;
 import com.oracle.graal.nodes.spi.Virtualizable;
 import com.oracle.graal.nodes.spi.VirtualizerTool;
 import com.oracle.graal.nodes.type.StampTool;
@@ -99,6 +103,19 @@ public class LoadIndexedNode extends AccessIndexedNode implements Virtualizable,
             int idx = indexValue.isConstant() ? indexValue.asJavaConstant().asInt() : -1;
             if (idx >= 0 && idx < virtual.entryCount()) {
                 tool.replaceWith(tool.getEntry(virtual, idx));
+            } else if (!indexValue.isConstant()) {
+                IntegerStamp range = virtualIndexRange(tool, virtual, indexValue);
+                if (range != null) {
+                    int upper = (int) range.upperBound();
+                    ValueNode result = tool.getEntry(virtual, upper);
+                    for (int i = upper - 1; i >= range.lowerBound(); i--) {
+                        LogicNode equals = new IntegerEqualsNode(indexValue, ConstantNode.forInt(i, graph()));
+                        tool.addNode(equals);
+                        result = new ConditionalNode(equals, tool.getEntry(virtual, i), result);
+                        tool.addNode(result);
+                    }
+                    tool.replaceWith(result);
+                }
             }
         }
     }
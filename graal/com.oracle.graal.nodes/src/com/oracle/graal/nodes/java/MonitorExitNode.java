@@ -56,6 +56,10 @@ public final class MonitorExitNode extends AccessMonitorNode implements Virtuali
         this.escapedReturnValue = escapedReturnValue;
     }
 
+    public ValueNode getEscapedReturnValue() {
+        return escapedReturnValue;
+    }
+
     /**
      * Return value is cleared when a synchronized method graph is inlined.
      */
@@ -22,13 +22,18 @@
  */
 package com.oracle.graal.nodes.java;
 
+import com.oracle.graal.compiler.common.type.IntegerStamp;
 import com.oracle.graal.compiler.common.type.StampFactory;
 import com.oracle.graal.graph.NodeClass;
 import com.oracle.graal.nodeinfo.InputType;
 import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.ConstantNode;
 import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.LogicNode;
 import com.oracle.graal.nodes.StateSplit;
 import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerEqualsNode;
 import com.oracle.graal.nodes.spi.Lowerable;
 import com.oracle.graal.nodes.spi.Virtualizable;
 import com.oracle.graal.nodes.spi.VirtualizerTool;
@@ -89,6 +94,23 @@ public final class StoreIndexedNode extends AccessIndexedNode implements StateSp
                     tool.setVirtualEntry(virtual, idx, value(), false);
                     tool.delete();
                 }
+            } else if (!indexValue.isConstant()) {
+                IntegerStamp range = virtualIndexRange(tool, virtual, indexValue);
+                if (range != null && value().getStackKind() == virtual.componentType().getJavaKind().getStackKind()) {
+                    ValueNode newValue = tool.getAlias(value());
+                    if (range.lowerBound() == range.upperBound()) {
+                        tool.setVirtualEntry(virtual, (int) range.lowerBound(), newValue, false);
+                    } else {
+                        for (int i = (int) range.lowerBound(); i <= range.upperBound(); i++) {
+                            LogicNode equals = new IntegerEqualsNode(indexValue, ConstantNode.forInt(i, graph()));
+                            tool.addNode(equals);
+                            ValueNode entry = new ConditionalNode(equals, newValue, tool.getEntry(virtual, i));
+                            tool.addNode(entry);
+                            tool.setVirtualEntry(virtual, i, entry, false);
+                        }
+                    }
+                    tool.delete();
+                }
             }
         }
     }
@@ -58,6 +58,10 @@ public abstract class FloatableAccessNode extends FixedAccessNode {
         this.forceFixed = flag;
     }
 
+    public boolean isForceFixed() {
+        return forceFixed;
+    }
+
     /**
      * AccessNodes can float only if their location identities are not ANY_LOCATION. Furthermore, in
      * case G1 is enabled any access (read) to the java.lang.ref.Reference.referent field which has
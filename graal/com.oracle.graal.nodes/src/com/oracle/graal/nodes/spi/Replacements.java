@@ -25,6 +25,7 @@ package com.oracle.graal.nodes.spi;
 import com.oracle.graal.api.replacements.MethodSubstitution;
 import com.oracle.graal.api.replacements.SnippetTemplateCache;
 import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugin;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
@@ -99,4 +100,22 @@ public interface Replacements {
      * {@link Replacements#registerSnippetTemplateCache(SnippetTemplateCache)}.
      */
     <T extends SnippetTemplateCache> T getSnippetTemplateCache(Class<T> templatesClass);
+
+    /**
+     * Gets a new graph decoded from the graph that was {@linkplain #cacheInlineeGraph cached} under
+     * a given key.
+     *
+     * @param key identifies {@code method} and the configuration it was parsed with
+     * @return a graph that can be modified by the caller or {@code null} if there is no graph
+     *         cached under {@code key}
+     */
+    StructuredGraph getCachedInlineeGraph(ResolvedJavaMethod method, Object key, AllowAssumptions allowAssumptions);
+
+    /**
+     * Caches an encoded copy of a graph that was parsed and canonicalized for inlining. The graph
+     * must not contain any {@linkplain StructuredGraph#getAssumptions() assumptions}.
+     *
+     * @param key identifies {@code graph.method()} and the configuration it was parsed with
+     */
+    void cacheInlineeGraph(Object key, StructuredGraph graph);
 }
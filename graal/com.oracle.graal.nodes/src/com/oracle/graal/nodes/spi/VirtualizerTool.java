@@ -61,6 +61,14 @@ public interface VirtualizerTool {
      */
     int getMaximumEntryCount();
 
+    /**
+     * This method should be used to query the maximum number of entries that an array access with
+     * a non-constant index may select from before attempting to keep the array virtual.
+     *
+     * @return the maximum index range for accesses to virtualized arrays.
+     */
+    int getMaximumIndexRange();
+
     // methods working on virtualized/materialized objects
 
     /**
@@ -22,6 +22,10 @@
  */
 package com.oracle.graal.phases.common;
 
+import static com.oracle.graal.compiler.common.GraalOptions.IncrementalCanonicalization;
+
+import java.util.Set;
+
 import com.oracle.graal.compiler.common.spi.ConstantFieldProvider;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.DebugCloseable;
@@ -67,6 +71,7 @@ public class CanonicalizerPhase extends BasePhase<PhaseContext> {
     private static final DebugCounter COUNTER_STAMP_CHANGED = Debug.counter("StampChanged");
     private static final DebugCounter COUNTER_SIMPLIFICATION_CONSIDERED_NODES = Debug.counter("SimplificationConsideredNodes");
     private static final DebugCounter COUNTER_GLOBAL_VALUE_NUMBERING_HITS = Debug.counter("GlobalValueNumberingHits");
+    private static final DebugCounter COUNTER_INCREMENTAL_RUNS = Debug.counter("IncrementalCanonicalizerRuns");
 
     private boolean canonicalizeReads = true;
     private boolean simplify = true;
@@ -101,7 +106,38 @@ public class CanonicalizerPhase extends BasePhase<PhaseContext> {
 
     @Override
     protected void run(StructuredGraph graph, PhaseContext context) {
-        new Instance(context).run(graph);
+        if (IncrementalCanonicalization.getValue() && isDefaultConfiguration()) {
+            runIncremental(graph, context);
+        } else {
+            new Instance(context).run(graph);
+        }
+    }
+
+    private boolean isDefaultConfiguration() {
+        return canonicalizeReads && simplify && customCanonicalizer == null;
+    }
+
+    /**
+     * Only processes the nodes that changed since the graph was last canonicalized with the
+     * default configuration, as recorded by {@link StructuredGraph#getChangedNodes()}. These are
+     * the nodes that were added, had an input or successor changed or lost their last usage,
+     * together with the predecessors and usages of nodes whose successor changed or that were
+     * removed. All other nodes are still canonical unless a phase changed a node without a
+     * corresponding node event, e.g., by only improving its stamp. The first canonicalization of a
+     * graph processes the whole graph.
+     */
+    private void runIncremental(StructuredGraph graph, PhaseContext context) {
+        Set<Node> changedNodes = graph.getChangedNodes();
+        if (changedNodes == null) {
+            new Instance(context).run(graph);
+        } else {
+            COUNTER_INCREMENTAL_RUNS.increment();
+            if (!changedNodes.isEmpty()) {
+                new Instance(context, changedNodes).run(graph);
+            }
+        }
+        // the nodes changed by the canonicalizer itself have already been processed
+        graph.recordChangedNodes();
     }
 
     /**
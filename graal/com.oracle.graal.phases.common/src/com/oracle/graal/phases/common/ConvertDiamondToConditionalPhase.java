@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.AbstractMergeNode;
+import com.oracle.graal.nodes.BeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.EndNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.MergeNode;
+import com.oracle.graal.nodes.ParameterNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.calc.BinaryArithmeticNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerConvertNode;
+import com.oracle.graal.nodes.calc.NegateNode;
+import com.oracle.graal.nodes.calc.NotNode;
+import com.oracle.graal.nodes.calc.ShiftNode;
+import com.oracle.graal.nodes.extended.BranchProbabilityNode;
+import com.oracle.graal.phases.Phase;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Replaces diamonds whose branch is hard to predict by {@link ConditionalNode}s, which the backends
+ * emit as conditional moves. The canonicalizer only does this for diamonds that merge constants,
+ * this phase also handles diamonds that merge cheap arithmetic.
+ *
+ * A diamond is converted if both of its arms are empty, the probability of the {@link IfNode}
+ * (which reflects the profile as well as probabilities injected with a
+ * {@link BranchProbabilityNode}) lies between {@link GraalOptions#ConditionalMoveMinProbability}
+ * and its complement, and every integer value merged by it can be computed on both paths for at
+ * most the cost of a single arithmetic operation. The phase should run after all
+ * {@link com.oracle.graal.nodes.ProxyNode}s have been removed.
+ */
+public class ConvertDiamondToConditionalPhase extends Phase {
+
+    private static final DebugCounter CONVERTED_DIAMONDS = Debug.counter("ConvertedDiamonds");
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        for (IfNode ifNode : graph.getNodes(IfNode.TYPE).snapshot()) {
+            if (ifNode.isAlive() && tryConvert(graph, ifNode)) {
+                CONVERTED_DIAMONDS.increment();
+            }
+        }
+    }
+
+    private static boolean tryConvert(StructuredGraph graph, IfNode ifNode) {
+        double probability = ifNode.getTrueSuccessorProbability();
+        double minProbability = GraalOptions.ConditionalMoveMinProbability.getValue();
+        if (probability < minProbability || probability > 1 - minProbability) {
+            return false;
+        }
+        AbstractBeginNode trueBegin = ifNode.trueSuccessor();
+        AbstractBeginNode falseBegin = ifNode.falseSuccessor();
+        if (!isEmptyArm(trueBegin) || !isEmptyArm(falseBegin)) {
+            return false;
+        }
+        EndNode trueEnd = (EndNode) trueBegin.next();
+        EndNode falseEnd = (EndNode) falseBegin.next();
+        AbstractMergeNode merge = trueEnd.merge();
+        if (merge != falseEnd.merge() || !(merge instanceof MergeNode)) {
+            return false;
+        }
+
+        List<PhiNode> distinctPhis = new ArrayList<>();
+        for (PhiNode phi : merge.phis()) {
+            ValueNode trueValue = phi.valueAt(trueEnd);
+            ValueNode falseValue = phi.valueAt(falseEnd);
+            if (trueValue == falseValue) {
+                continue;
+            }
+            if (!(phi instanceof ValuePhiNode) || (phi.getStackKind() != JavaKind.Int && phi.getStackKind() != JavaKind.Long)) {
+                return false;
+            }
+            if (!isCheap(trueValue) || !isCheap(falseValue)) {
+                return false;
+            }
+            distinctPhis.add(phi);
+        }
+        if (distinctPhis.isEmpty() || distinctPhis.size() > GraalOptions.MaxConditionalMovesPerDiamond.getValue()) {
+            // Diamonds without distinct values are removed by the canonicalizer.
+            return false;
+        }
+
+        for (PhiNode phi : distinctPhis) {
+            ConditionalNode conditional = graph.unique(new ConditionalNode(ifNode.condition(), phi.valueAt(trueEnd), phi.valueAt(falseEnd)));
+            phi.setValueAt(trueEnd, conditional);
+        }
+        graph.removeSplitPropagate(ifNode, trueBegin);
+        return true;
+    }
+
+    private static boolean isEmptyArm(AbstractBeginNode begin) {
+        return begin instanceof BeginNode && begin.hasNoUsages() && begin.next() instanceof EndNode;
+    }
+
+    /**
+     * Determines if {@code value} is available or can be computed with at most one arithmetic
+     * operation on inputs that are available before the diamond.
+     */
+    private static boolean isCheap(ValueNode value) {
+        if (isAvailable(value)) {
+            return true;
+        }
+        if (value instanceof BinaryArithmeticNode || value instanceof ShiftNode || value instanceof NegateNode || value instanceof NotNode || value instanceof IntegerConvertNode) {
+            for (Node input : value.inputs()) {
+                if (!isAvailable((ValueNode) input)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isAvailable(ValueNode value) {
+        return value instanceof ConstantNode || value instanceof ParameterNode || value instanceof PhiNode || value instanceof FixedNode;
+    }
+}
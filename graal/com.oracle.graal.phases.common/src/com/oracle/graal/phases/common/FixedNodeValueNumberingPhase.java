@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
+import com.oracle.graal.compiler.common.cfg.Loop;
+import com.oracle.graal.compiler.common.type.ObjectStamp;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FieldLocationIdentity;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.ProxyNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.cfg.HIRLoop;
+import com.oracle.graal.nodes.memory.FloatableAccessNode;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.memory.ReadNode;
+import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
+import com.oracle.graal.nodes.type.StampTool;
+import com.oracle.graal.phases.Phase;
+
+/**
+ * Global value numbering and loop-invariant code motion for fixed nodes that are otherwise only
+ * optimized once they float: {@linkplain ReadNode reads} that could not be turned into floating
+ * reads and {@linkplain FixedGuardNode fixed guards}.
+ *
+ * A candidate is replaced by an equal candidate that dominates it if no
+ * {@linkplain MemoryCheckpoint memory checkpoint} on any path between them kills the location it
+ * reads. A candidate whose inputs are all defined outside its innermost loop and whose location is
+ * not killed anywhere in the loop is moved in front of the loop if it is executed in every
+ * iteration of the loop or if it {@linkplain #canExecuteSpeculatively can not fail}. The latter
+ * covers reads in the body of top-tested loops, which do not dominate the loop exits. Reads that are
+ * {@linkplain FloatableAccessNode#isForceFixed() forced to be fixed} are never moved out of a loop
+ * since they may depend on a check earlier in the iteration that is not their guard. The kill sets
+ * are the ones of {@link Block#getKillLocations()} and
+ * {@link HIRLoop#getKillLocations()}, so the phase must run after high-tier lowering, when all
+ * memory side effects are memory checkpoints, and after value proxies have been removed.
+ *
+ * Moving a guard out of a loop makes it deoptimize to a frame state before the loop, which
+ * re-executes the loop in the interpreter. A read only depends on its inputs (including its
+ * guard), just like a floating read.
+ */
+public class FixedNodeValueNumberingPhase extends Phase {
+
+    private static final DebugCounter COUNTER_FIXED_NODES_NUMBERED = Debug.counter("FixedNodesValueNumbered");
+    private static final DebugCounter COUNTER_FIXED_NODES_HOISTED = Debug.counter("FixedNodesHoisted");
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+        valueNumber(cfg.getStartBlock());
+
+        int maxRounds = 0;
+        for (Loop<Block> loop : cfg.getLoops()) {
+            maxRounds = Math.max(maxRounds, loop.getDepth());
+        }
+        /*
+         * Each round moves nodes out of their innermost loop. Nodes moved out of an inner loop may
+         * be moved out of the enclosing loop in the next round.
+         */
+        for (int round = 0; round < maxRounds; round++) {
+            if (round > 0) {
+                cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+            }
+            if (!hoistLoopInvariants(cfg)) {
+                break;
+            }
+        }
+    }
+
+    private static boolean isCandidate(FixedNode node) {
+        if (node instanceof ReadNode) {
+            ReadNode read = (ReadNode) node;
+            return !read.getNullCheck() && read.getLocationIdentity().isSingle();
+        }
+        return node instanceof FixedGuardNode;
+    }
+
+    /**
+     * Gets the location read by a candidate or {@code null} if it does not read memory.
+     */
+    private static LocationIdentity readLocation(FixedNode node) {
+        if (node instanceof ReadNode) {
+            LocationIdentity location = ((ReadNode) node).getLocationIdentity();
+            return location.isImmutable() ? null : location;
+        }
+        return null;
+    }
+
+    /**
+     * Wraps a candidate so that candidates with equal data and inputs are equal.
+     */
+    private static final class ValueKey {
+
+        private final FixedNode node;
+        private final int hash;
+
+        ValueKey(FixedNode node) {
+            this.node = node;
+            int h = node.getNodeClass().hashCode();
+            for (Node input : node.inputs()) {
+                h = h * 31 + input.hashCode();
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof ValueKey) {
+                FixedNode other = ((ValueKey) obj).node;
+                NodeClass<?> nodeClass = node.getNodeClass();
+                return nodeClass == other.getNodeClass() && nodeClass.dataEquals(node, other) && nodeClass.equalInputs(node, other);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Walks the dominator tree. Each block starts with the values available at the end of its
+     * dominator that are not killed on any path from the dominator to the block.
+     */
+    private static void valueNumber(Block startBlock) {
+        ArrayDeque<Block> blocks = new ArrayDeque<>();
+        ArrayDeque<Map<ValueKey, FixedNode>> dominatorValues = new ArrayDeque<>();
+        blocks.push(startBlock);
+        dominatorValues.push(new HashMap<>());
+        while (!blocks.isEmpty()) {
+            Block block = blocks.pop();
+            Map<ValueKey, FixedNode> values = new HashMap<>();
+            for (Map.Entry<ValueKey, FixedNode> entry : dominatorValues.pop().entrySet()) {
+                LocationIdentity location = readLocation(entry.getValue());
+                if (location == null || !block.canKillBetweenThisAndDominator(location)) {
+                    values.put(entry.getKey(), entry.getValue());
+                }
+            }
+            processBlock(block, values);
+            for (Block dominated : block.getDominated()) {
+                blocks.push(dominated);
+                dominatorValues.push(values);
+            }
+        }
+    }
+
+    private static void processBlock(Block block, Map<ValueKey, FixedNode> values) {
+        List<FixedNode> nodes = new ArrayList<>();
+        for (FixedNode node : block.getNodes()) {
+            nodes.add(node);
+        }
+        for (FixedNode node : nodes) {
+            if (node instanceof MemoryCheckpoint) {
+                kill(values, (MemoryCheckpoint) node);
+            } else if (isCandidate(node)) {
+                ValueKey key = new ValueKey(node);
+                FixedNode existing = values.get(key);
+                if (existing != null) {
+                    node.replaceAtUsages(existing);
+                    node.graph().removeFixed((FixedWithNextNode) node);
+                    COUNTER_FIXED_NODES_NUMBERED.increment();
+                } else {
+                    values.put(key, node);
+                }
+            }
+        }
+    }
+
+    private static void kill(Map<ValueKey, FixedNode> values, MemoryCheckpoint checkpoint) {
+        LocationIdentity[] killed;
+        if (checkpoint instanceof MemoryCheckpoint.Single) {
+            killed = new LocationIdentity[]{((MemoryCheckpoint.Single) checkpoint).getLocationIdentity()};
+        } else {
+            killed = ((MemoryCheckpoint.Multi) checkpoint).getLocationIdentities();
+        }
+        Iterator<FixedNode> iter = values.values().iterator();
+        while (iter.hasNext()) {
+            LocationIdentity location = readLocation(iter.next());
+            if (location != null) {
+                for (LocationIdentity kill : killed) {
+                    if (location.overlaps(kill)) {
+                        iter.remove();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean hoistLoopInvariants(ControlFlowGraph cfg) {
+        boolean progress = false;
+        for (Loop<Block> loop : cfg.getLoops()) {
+            LoopBeginNode loopBegin = (LoopBeginNode) loop.getHeader().getBeginNode();
+            if (loopBegin.forwardEndCount() != 1) {
+                continue;
+            }
+            Map<Node, Boolean> invariant = new HashMap<>();
+            for (Block block : loop.getBlocks()) {
+                if (block.getLoop() != loop) {
+                    continue;
+                }
+                boolean executedInEveryIteration = isExecutedInEveryIteration(block, loop);
+                List<FixedNode> nodes = new ArrayList<>();
+                for (FixedNode node : block.getNodes()) {
+                    nodes.add(node);
+                }
+                for (FixedNode node : nodes) {
+                    if (isCandidate(node) && !isForceFixed(node) && (executedInEveryIteration || canExecuteSpeculatively(node)) && canHoist(node, (HIRLoop) loop, cfg, invariant)) {
+                        FixedWithNextNode hoisted = (FixedWithNextNode) node;
+                        FixedNode next = hoisted.next();
+                        hoisted.setNext(null);
+                        hoisted.replaceAtPredecessor(next);
+                        hoisted.graph().addBeforeFixed(loopBegin.forwardEnd(), hoisted);
+                        invariant.put(hoisted, true);
+                        COUNTER_FIXED_NODES_HOISTED.increment();
+                        progress = true;
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    private static boolean isForceFixed(FixedNode node) {
+        return node instanceof FloatableAccessNode && ((FloatableAccessNode) node).isForceFixed();
+    }
+
+    /**
+     * Determines if {@code block} is executed in each iteration of {@code loop} that ends with a
+     * back edge or a loop exit.
+     */
+    private static boolean isExecutedInEveryIteration(Block block, Loop<Block> loop) {
+        for (Block predecessor : loop.getHeader().getPredecessors()) {
+            if (loop.getBlocks().contains(predecessor) && !AbstractControlFlowGraph.dominates(block, predecessor)) {
+                return false;
+            }
+        }
+        for (Block exit : loop.getExits()) {
+            if (!AbstractControlFlowGraph.dominates(block, exit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if {@code node} can be executed even if the path it is on is not taken. This holds
+     * for a read of a field at a constant offset from an object that is known to be non-null. Any
+     * other condition the read depends on is its guard, which must be loop invariant as well.
+     */
+    private static boolean canExecuteSpeculatively(FixedNode node) {
+        if (node instanceof ReadNode) {
+            ReadNode read = (ReadNode) node;
+            if (read.getLocationIdentity() instanceof FieldLocationIdentity && read.getAddress() instanceof OffsetAddressNode) {
+                OffsetAddressNode address = (OffsetAddressNode) read.getAddress();
+                ValueNode base = address.getBase();
+                return address.getOffset().isConstant() && base.stamp() instanceof ObjectStamp && StampTool.isPointerNonNull(base);
+            }
+        }
+        return false;
+    }
+
+    private static boolean canHoist(FixedNode node, HIRLoop loop, ControlFlowGraph cfg, Map<Node, Boolean> invariant) {
+        for (Node usage : node.usages()) {
+            if (usage instanceof ProxyNode) {
+                return false;
+            }
+        }
+        LocationIdentity location = readLocation(node);
+        if (location != null && loop.canKill(location)) {
+            return false;
+        }
+        for (Node input : node.inputs()) {
+            if (!isInvariant(input, loop, cfg, invariant)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isInvariant(Node node, HIRLoop loop, ControlFlowGraph cfg, Map<Node, Boolean> invariant) {
+        Boolean cached = invariant.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        boolean result;
+        if (node instanceof FixedNode) {
+            Block block = cfg.blockFor(node);
+            result = block != null && !loop.getBlocks().contains(block);
+        } else {
+            // assume variance while visiting the inputs to cut cycles through phis
+            invariant.put(node, false);
+            result = true;
+            for (Node input : node.inputs()) {
+                if (!isInvariant(input, loop, cfg, invariant)) {
+                    result = false;
+                    break;
+                }
+            }
+        }
+        invariant.put(node, result);
+        return result;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import static com.oracle.graal.compiler.common.GraalOptions.MaxLockCoarseningGap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.DeoptimizingNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.StateSplit;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.java.AccessMonitorNode;
+import com.oracle.graal.nodes.java.MonitorEnterNode;
+import com.oracle.graal.nodes.java.MonitorExitNode;
+import com.oracle.graal.nodes.java.RawMonitorEnterNode;
+import com.oracle.graal.nodes.memory.MemoryAnchorNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.Phase;
+
+/**
+ * Merges a synchronized region with a following region on the same object if only a short
+ * straight-line sequence of nodes lies between them, by removing the {@link MonitorExitNode} of
+ * the first region and the monitor enter of the second one. This extends
+ * {@link LockEliminationPhase}, which only handles regions that directly follow each other.
+ *
+ * The nodes between the regions must not be able to deoptimize, so no deoptimization can observe
+ * the lock being held at a point where the bytecode does not hold it. The frame states of side
+ * effects between the regions are replaced by the frame state after the removed monitor enter,
+ * which describes the execution state at the beginning of the second region with the lock held.
+ * The phase therefore has to run after guards are lowered and before frame states are assigned to
+ * deoptimization points.
+ */
+public class LockCoarseningPhase extends Phase {
+
+    private static final DebugCounter COARSENED_LOCKS = Debug.counter("CoarsenedLocks");
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        for (MonitorExitNode exit : graph.getNodes(MonitorExitNode.TYPE).snapshot()) {
+            if (exit.isAlive() && exit.getEscapedReturnValue() == null) {
+                tryCoarsen(exit);
+            }
+        }
+    }
+
+    private static void tryCoarsen(MonitorExitNode exit) {
+        List<FixedWithNextNode> gap = new ArrayList<>();
+        Node current = exit.next();
+        while (!(current instanceof MonitorEnterNode || current instanceof RawMonitorEnterNode)) {
+            if (!(current instanceof FixedWithNextNode) || gap.size() >= MaxLockCoarseningGap.getValue() || !canMoveIntoLockedRegion(current)) {
+                return;
+            }
+            gap.add((FixedWithNextNode) current);
+            current = ((FixedWithNextNode) current).next();
+        }
+
+        AccessMonitorNode enter = (AccessMonitorNode) current;
+        if (GraphUtil.unproxify(enter.object()) != GraphUtil.unproxify(exit.object()) || enter.getMonitorId().getLockDepth() != exit.getMonitorId().getLockDepth()) {
+            return;
+        }
+        FrameState lockedState = enter.stateAfter();
+        if (lockedState == null && !gap.isEmpty()) {
+            return;
+        }
+        for (FixedWithNextNode node : gap) {
+            if (node instanceof StateSplit && ((StateSplit) node).stateAfter() != null) {
+                FrameState oldState = ((StateSplit) node).stateAfter();
+                ((StateSplit) node).setStateAfter(lockedState);
+                if (oldState.hasNoUsages()) {
+                    GraphUtil.killWithUnusedFloatingInputs(oldState);
+                }
+            }
+        }
+        removeMonitorOperation(exit);
+        removeMonitorOperation(enter);
+        COARSENED_LOCKS.increment();
+    }
+
+    private static boolean canMoveIntoLockedRegion(Node node) {
+        if (node instanceof DeoptimizingNode && ((DeoptimizingNode) node).canDeoptimize()) {
+            return false;
+        }
+        return !(node instanceof Invoke || node instanceof AccessMonitorNode || node instanceof AbstractBeginNode);
+    }
+
+    /**
+     * Removes a monitor operation. Memory accesses that depend on it are anchored at its position
+     * instead.
+     */
+    private static void removeMonitorOperation(AccessMonitorNode node) {
+        if (node.hasUsages()) {
+            StructuredGraph graph = node.graph();
+            MemoryAnchorNode anchor = graph.add(new MemoryAnchorNode());
+            graph.addBeforeFixed(node, anchor);
+            node.replaceAtUsages(anchor);
+        }
+        GraphUtil.removeFixedWithUnusedInputs(node);
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common.inlining;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.ParameterNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.ReturnNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.VirtualState;
+import com.oracle.graal.nodes.java.AccessFieldNode;
+import com.oracle.graal.nodes.java.AccessIndexedNode;
+import com.oracle.graal.nodes.java.AccessMonitorNode;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.nodes.java.MethodCallTargetNode;
+import com.oracle.graal.nodes.java.StoreFieldNode;
+import com.oracle.graal.nodes.java.StoreIndexedNode;
+import com.oracle.graal.nodes.spi.ValueProxy;
+import com.oracle.graal.nodes.util.GraphUtil;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Summarizes how the object parameters of a method escape. An object passed for a parameter that
+ * does not escape (or is only returned) can be virtualized by escape analysis once the method is
+ * inlined, which the inlining policy uses to favor such call sites.
+ *
+ * Summaries are cached per method. They are only used as a heuristic, so a summary that was
+ * computed from a graph specialized to a particular call site is good enough for other sites. The
+ * summaries of statically bound callees are computed on demand, up to a depth of
+ * {@value #MAX_CALLEE_DEPTH}, so that a summary does not depend on the order in which methods are
+ * compiled. A summary that had to give up on a callee because of that limit or because of
+ * recursion is not cached. A cached summary is dropped once the bytecodes of its method change
+ * because the declaring class was redefined, and together with the method once its class is
+ * unloaded.
+ */
+public final class EscapeSummary {
+
+    private static final DebugCounter SUMMARIES_COMPUTED = Debug.counter("EscapeSummariesComputed");
+
+    /**
+     * The maximum number of nested callees whose summaries are computed for a single summary.
+     */
+    static final int MAX_CALLEE_DEPTH = 3;
+
+    /**
+     * The escape states of a parameter, ordered from least to most escaping.
+     */
+    public enum EscapeState {
+        /**
+         * The object is only read, written or compared.
+         */
+        NO_ESCAPE,
+        /**
+         * The object is returned but does not escape otherwise.
+         */
+        RETURNED,
+        /**
+         * The object is passed to a call whose escape behavior is unknown.
+         */
+        ARG_ESCAPE,
+        /**
+         * The object is stored to the heap or otherwise leaves the method.
+         */
+        GLOBAL_ESCAPE;
+
+        EscapeState merge(EscapeState other) {
+            return ordinal() >= other.ordinal() ? this : other;
+        }
+
+        /**
+         * Determines if an object in this state can be virtualized after inlining the method.
+         */
+        public boolean isVirtualizable() {
+            return this == NO_ESCAPE || this == RETURNED;
+        }
+    }
+
+    private static final Map<ResolvedJavaMethod, EscapeSummary> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final EscapeState[] states;
+
+    /**
+     * The bytecodes of the method the summary was computed for.
+     */
+    private final byte[] code;
+
+    private EscapeSummary(EscapeState[] states, byte[] code) {
+        this.states = states;
+        this.code = code;
+    }
+
+    /**
+     * Gets the cached summary for {@code method}, if any.
+     */
+    public static EscapeSummary lookup(ResolvedJavaMethod method) {
+        EscapeSummary summary = cache.get(method);
+        if (summary != null && !Arrays.equals(summary.code, method.getCode())) {
+            cache.remove(method, summary);
+            return null;
+        }
+        return summary;
+    }
+
+    /**
+     * Gets the summary for {@code method}, computing it from {@code graph} if it is not cached yet.
+     *
+     * @param parser used to get the graphs of callees whose summaries are needed but not cached.
+     *            It returns {@code null} for a callee that cannot be parsed, whose arguments are
+     *            then considered to escape.
+     */
+    public static EscapeSummary get(ResolvedJavaMethod method, StructuredGraph graph, Function<ResolvedJavaMethod, StructuredGraph> parser) {
+        EscapeSummary summary = lookup(method);
+        if (summary == null) {
+            summary = new Computation(parser).summarize(method, graph);
+        }
+        return summary;
+    }
+
+    /**
+     * Gets the escape state of the parameter at {@code index}, where index 0 is the receiver of an
+     * instance method. Primitive parameters and parameters that were removed from the graph never
+     * escape.
+     */
+    public EscapeState getState(int index) {
+        return index < states.length && states[index] != null ? states[index] : EscapeState.NO_ESCAPE;
+    }
+
+    /**
+     * The computation of a summary together with the summaries of the callees it needs.
+     */
+    private static final class Computation {
+
+        private final Function<ResolvedJavaMethod, StructuredGraph> parser;
+
+        /**
+         * The methods whose summaries are currently being computed.
+         */
+        private final Set<ResolvedJavaMethod> inProgress = new HashSet<>();
+
+        /**
+         * Determines if the summary being computed did not give up on any callee.
+         */
+        private boolean complete = true;
+
+        Computation(Function<ResolvedJavaMethod, StructuredGraph> parser) {
+            this.parser = parser;
+        }
+
+        EscapeSummary summarize(ResolvedJavaMethod method, StructuredGraph graph) {
+            boolean outerComplete = complete;
+            complete = true;
+            inProgress.add(method);
+            EscapeSummary summary = compute(method, graph);
+            inProgress.remove(method);
+            if (complete) {
+                cache.put(method, summary);
+            }
+            complete &= outerComplete;
+            return summary;
+        }
+
+        private EscapeSummary calleeSummary(ResolvedJavaMethod callee) {
+            EscapeSummary summary = lookup(callee);
+            if (summary != null) {
+                return summary;
+            }
+            if (inProgress.contains(callee) || inProgress.size() > MAX_CALLEE_DEPTH) {
+                complete = false;
+                return null;
+            }
+            StructuredGraph graph = parser.apply(callee);
+            return graph == null ? null : summarize(callee, graph);
+        }
+
+        private EscapeSummary compute(ResolvedJavaMethod method, StructuredGraph graph) {
+            SUMMARIES_COMPUTED.increment();
+            EscapeState[] states = new EscapeState[0];
+            for (ParameterNode param : graph.getNodes(ParameterNode.TYPE)) {
+                if (param.getStackKind() != JavaKind.Object) {
+                    continue;
+                }
+                if (param.index() >= states.length) {
+                    states = Arrays.copyOf(states, param.index() + 1);
+                }
+                states[param.index()] = computeState(param);
+            }
+            return new EscapeSummary(states, method.getCode());
+        }
+
+        private EscapeState computeState(ParameterNode param) {
+            EscapeState state = EscapeState.NO_ESCAPE;
+            NodeBitMap visited = param.graph().createNodeBitMap();
+            Deque<ValueNode> worklist = new ArrayDeque<>();
+            visited.mark(param);
+            worklist.push(param);
+            while (!worklist.isEmpty()) {
+                ValueNode current = worklist.pop();
+                for (Node usage : current.usages()) {
+                    if (usage instanceof VirtualState || usage instanceof LogicNode || usage instanceof ArrayLengthNode || usage instanceof AccessMonitorNode) {
+                        continue;
+                    } else if (usage instanceof AccessFieldNode || usage instanceof AccessIndexedNode) {
+                        ValueNode stored = null;
+                        ValueNode target = null;
+                        if (usage instanceof StoreFieldNode) {
+                            stored = ((StoreFieldNode) usage).value();
+                            target = ((StoreFieldNode) usage).object();
+                        } else if (usage instanceof StoreIndexedNode) {
+                            stored = ((StoreIndexedNode) usage).value();
+                            target = ((StoreIndexedNode) usage).array();
+                        }
+                        if (stored == current && (target == null || !visited.isMarked(GraphUtil.unproxify(target)))) {
+                            return EscapeState.GLOBAL_ESCAPE;
+                        }
+                    } else if (usage instanceof ValueProxy || usage instanceof PhiNode) {
+                        follow((ValueNode) usage, visited, worklist);
+                    } else if (usage instanceof ReturnNode) {
+                        state = state.merge(EscapeState.RETURNED);
+                    } else if (usage instanceof MethodCallTargetNode) {
+                        MethodCallTargetNode callTarget = (MethodCallTargetNode) usage;
+                        EscapeSummary callee = callTarget.invokeKind().isDirect() ? calleeSummary(callTarget.targetMethod()) : null;
+                        for (int i = 0; i < callTarget.arguments().size(); i++) {
+                            if (callTarget.arguments().get(i) != current) {
+                                continue;
+                            }
+                            EscapeState calleeState = callee == null ? EscapeState.ARG_ESCAPE : callee.getState(i);
+                            if (calleeState == EscapeState.RETURNED) {
+                                follow(callTarget.invoke().asNode(), visited, worklist);
+                            } else if (calleeState != EscapeState.NO_ESCAPE) {
+                                state = state.merge(calleeState);
+                            }
+                        }
+                    } else {
+                        return EscapeState.GLOBAL_ESCAPE;
+                    }
+                }
+            }
+            return state;
+        }
+
+        private static void follow(ValueNode node, NodeBitMap visited, Deque<ValueNode> worklist) {
+            if (!visited.isMarked(node)) {
+                visited.mark(node);
+                worklist.push(node);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(states);
+    }
+}
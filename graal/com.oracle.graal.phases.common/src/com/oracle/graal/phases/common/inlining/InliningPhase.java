@@ -31,6 +31,7 @@ import com.oracle.graal.options.OptionType;
 import com.oracle.graal.options.OptionValue;
 import com.oracle.graal.phases.common.AbstractInliningPhase;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.inlining.policy.CostBenefitInliningPolicy;
 import com.oracle.graal.phases.common.inlining.policy.GreedyInliningPolicy;
 import com.oracle.graal.phases.common.inlining.policy.InliningPolicy;
 import com.oracle.graal.phases.common.inlining.walker.InliningData;
@@ -50,6 +51,16 @@ public class InliningPhase extends AbstractInliningPhase {
          */
         @Option(help = "Per-compilation method inlining exploration limit before giving up (use 0 to disable)", type = OptionType.Debug)//
         public static final OptionValue<Integer> MethodInlineBailoutLimit = new OptionValue<>(5000);
+
+        /**
+         * Visits the call sites of each graph in the order of decreasing relevance and weighs the
+         * benefit of each inlining against its cost under the node budget of the compilation.
+         */
+        @Option(help = "Use a cost-benefit inlining policy that visits hot call sites first", type = OptionType.Expert)//
+        public static final OptionValue<Boolean> CostBenefitInlining = new OptionValue<>(false);
+
+        @Option(help = "Speculatively parse statically bound callees on worker threads", type = OptionType.Expert)//
+        public static final OptionValue<Boolean> ParallelInlineeParsing = new OptionValue<>(false);
     }
 
     private final InliningPolicy inliningPolicy;
@@ -58,11 +69,18 @@ public class InliningPhase extends AbstractInliningPhase {
     private int maxMethodPerInlining = Integer.MAX_VALUE;
 
     public InliningPhase(CanonicalizerPhase canonicalizer) {
-        this(new GreedyInliningPolicy(null), canonicalizer);
+        this(createPolicy(null), canonicalizer);
     }
 
     public InliningPhase(Map<Invoke, Double> hints, CanonicalizerPhase canonicalizer) {
-        this(new GreedyInliningPolicy(hints), canonicalizer);
+        this(createPolicy(hints), canonicalizer);
+    }
+
+    private static InliningPolicy createPolicy(Map<Invoke, Double> hints) {
+        if (Options.CostBenefitInlining.getValue()) {
+            return new CostBenefitInliningPolicy(hints);
+        }
+        return new GreedyInliningPolicy(hints);
     }
 
     public InliningPhase(InliningPolicy policy, CanonicalizerPhase canonicalizer) {
@@ -89,16 +107,20 @@ public class InliningPhase extends AbstractInliningPhase {
         int count = 0;
         assert data.repOK();
         int limit = Options.MethodInlineBailoutLimit.getValue();
-        while (data.hasUnprocessedGraphs()) {
-            boolean wasInlined = data.moveForward();
-            assert data.repOK();
-            count++;
-            if (!wasInlined) {
-                if (limit > 0 && count == limit) {
-                    // Limit the amount of exploration which is done
-                    break;
+        try {
+            while (data.hasUnprocessedGraphs()) {
+                boolean wasInlined = data.moveForward();
+                assert data.repOK();
+                count++;
+                if (!wasInlined) {
+                    if (limit > 0 && count == limit) {
+                        // Limit the amount of exploration which is done
+                        break;
+                    }
                 }
             }
+        } finally {
+            data.cancelPrefetching();
         }
 
         assert data.inliningDepth() == 0 || count == limit;
@@ -38,6 +38,7 @@ import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.inlining.InliningUtil;
 import com.oracle.graal.phases.common.inlining.info.elem.Inlineable;
 import com.oracle.graal.phases.common.inlining.info.elem.InlineableGraph;
+import com.oracle.graal.phases.common.inlining.info.elem.InlineeGraphPrefetcher;
 import com.oracle.graal.phases.tiers.HighTierContext;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
@@ -92,10 +93,10 @@ public abstract class AbstractInlineInfo implements InlineInfo {
 
     @Override
     @SuppressWarnings("try")
-    public final void populateInlinableElements(HighTierContext context, StructuredGraph caller, CanonicalizerPhase canonicalizer) {
+    public final void populateInlinableElements(HighTierContext context, StructuredGraph caller, CanonicalizerPhase canonicalizer, InlineeGraphPrefetcher prefetcher) {
         for (int i = 0; i < numberOfMethods(); i++) {
             try (Debug.Scope s = Debug.methodMetricsScope("InlineEnhancement", MethodMetricsInlineeScopeInfo.create(), false)) {
-                Inlineable elem = Inlineable.getInlineableElement(methodAt(i), invoke, context, canonicalizer);
+                Inlineable elem = Inlineable.getInlineableElement(methodAt(i), invoke, context, canonicalizer, prefetcher);
                 setInlinableElement(i, elem);
             }
         }
@@ -29,6 +29,7 @@ import com.oracle.graal.nodes.Invoke;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.inlining.info.elem.Inlineable;
+import com.oracle.graal.phases.common.inlining.info.elem.InlineeGraphPrefetcher;
 import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.phases.util.Providers;
 
@@ -84,7 +85,12 @@ public interface InlineInfo {
 
     boolean shouldInline();
 
-    void populateInlinableElements(HighTierContext context, StructuredGraph caller, CanonicalizerPhase canonicalizer);
+    /**
+     * Builds the graphs of the concrete methods to be inlined.
+     *
+     * @param prefetcher provides graphs that were parsed speculatively, may be {@code null}
+     */
+    void populateInlinableElements(HighTierContext context, StructuredGraph caller, CanonicalizerPhase canonicalizer, InlineeGraphPrefetcher prefetcher);
 
     int determineNodeCount();
 }
@@ -22,8 +22,10 @@
  */
 package com.oracle.graal.phases.common.inlining.info.elem;
 
+import static com.oracle.graal.compiler.common.GraalOptions.InlineeGraphCacheMatureProfilesOnly;
 import static com.oracle.graal.compiler.common.GraalOptions.OptCanonicalizer;
 import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
+import static com.oracle.graal.compiler.common.GraalOptions.UseInlineeGraphCache;
 import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionality.Optional;
 
 import java.util.ArrayList;
@@ -39,14 +41,19 @@ import com.oracle.graal.nodes.ParameterNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
+import com.oracle.graal.phases.common.inlining.EscapeSummary;
 import com.oracle.graal.phases.common.inlining.InliningUtil;
 import com.oracle.graal.phases.common.instrumentation.ExtractInstrumentationPhase;
 import com.oracle.graal.phases.graph.FixedNodeProbabilityCache;
 import com.oracle.graal.phases.tiers.HighTierContext;
 
 import jdk.vm.ci.meta.Constant;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.ProfilingInfo;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 
 /**
@@ -67,25 +74,35 @@ public class InlineableGraph implements Inlineable {
 
     private final StructuredGraph graph;
 
+    private final EscapeSummary escapeSummary;
+
     private FixedNodeProbabilityCache probabilites = new FixedNodeProbabilityCache();
 
-    public InlineableGraph(final ResolvedJavaMethod method, final Invoke invoke, final HighTierContext context, CanonicalizerPhase canonicalizer) {
-        StructuredGraph original = getOriginalGraph(method, context, canonicalizer, invoke.asNode().graph(), invoke.bci());
+    public InlineableGraph(final ResolvedJavaMethod method, final Invoke invoke, final HighTierContext context, CanonicalizerPhase canonicalizer, InlineeGraphPrefetcher prefetcher) {
+        StructuredGraph original = getOriginalGraph(method, context, canonicalizer, prefetcher, invoke.asNode().graph(), invoke.bci());
         // TODO copying the graph is only necessary if it is modified or if it contains any invokes
         this.graph = (StructuredGraph) original.copy();
+        this.escapeSummary = EscapeSummary.get(method, original, callee -> callee.hasBytecodes() && callee.canBeInlined() ? parseBytecodes(callee, context, canonicalizer, invoke.asNode().graph()) : null);
         specializeGraphToArguments(invoke, context, canonicalizer);
     }
 
     /**
-     * This method looks up in a cache the graph for the argument, if not found bytecode is parsed.
-     * The graph thus obtained is returned, ie the caller is responsible for cloning before
-     * modification.
+     * This method looks up in a cache the graph for the argument, if not found it is taken from
+     * the speculatively parsed graphs of {@code prefetcher} or the bytecode is parsed. The graph
+     * thus obtained is returned, ie the caller is responsible for cloning before modification.
      */
-    private static StructuredGraph getOriginalGraph(final ResolvedJavaMethod method, final HighTierContext context, CanonicalizerPhase canonicalizer, StructuredGraph caller, int callerBci) {
+    private static StructuredGraph getOriginalGraph(final ResolvedJavaMethod method, final HighTierContext context, CanonicalizerPhase canonicalizer, InlineeGraphPrefetcher prefetcher,
+                    StructuredGraph caller, int callerBci) {
         StructuredGraph result = InliningUtil.getIntrinsicGraph(context.getReplacements(), method, callerBci);
         if (result != null) {
             return result;
         }
+        if (prefetcher != null) {
+            result = prefetcher.take(method, caller);
+            if (result != null) {
+                return result;
+            }
+        }
         return parseBytecodes(method, context, canonicalizer, caller);
     }
 
@@ -188,17 +205,82 @@ public class InlineableGraph implements Inlineable {
         return result;
     }
 
+    /**
+     * Identifies a graph parsed for inlining in the
+     * {@linkplain com.oracle.graal.nodes.spi.Replacements#cacheInlineeGraph inlinee graph cache}.
+     * Besides the method, everything that influences parsing is part of the key. This includes the
+     * number of deoptimizations recorded in the profile of the method so that a graph speculating
+     * on a profile that was invalidated by a deoptimization is not used again.
+     */
+    static final class CacheKey {
+
+        private final ResolvedJavaMethod method;
+        private final OptimisticOptimizations optimisticOpts;
+        private final PhaseSuite<HighTierContext> graphBuilderSuite;
+        private final boolean allowAssumptions;
+        private final boolean unsafeAccessTracking;
+        private final int deoptimizationCount;
+
+        CacheKey(ResolvedJavaMethod method, HighTierContext context, StructuredGraph caller) {
+            this.method = method;
+            this.optimisticOpts = context.getOptimisticOptimizations();
+            this.graphBuilderSuite = context.getGraphBuilderSuite();
+            this.allowAssumptions = caller.getAssumptions() != null;
+            this.unsafeAccessTracking = caller.isUnsafeAccessTrackingEnabled();
+            this.deoptimizationCount = deoptimizationCount(method.getProfilingInfo());
+        }
+
+        private static int deoptimizationCount(ProfilingInfo profilingInfo) {
+            int count = 0;
+            for (DeoptimizationReason reason : DeoptimizationReason.values()) {
+                count += profilingInfo.getDeoptimizationCount(reason);
+            }
+            return count;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof CacheKey) {
+                CacheKey other = (CacheKey) obj;
+                return method.equals(other.method) && optimisticOpts.equals(other.optimisticOpts) && graphBuilderSuite == other.graphBuilderSuite &&
+                                allowAssumptions == other.allowAssumptions && unsafeAccessTracking == other.unsafeAccessTracking && deoptimizationCount == other.deoptimizationCount;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return method.hashCode() ^ optimisticOpts.hashCode();
+        }
+    }
+
     /**
      * This method builds the IR nodes for the given <code>method</code> and canonicalizes them.
-     * Provided profiling info is mature, the resulting graph is cached. The caller is responsible
-     * for cloning before modification.
-     * </p>
+     * Provided the graph {@linkplain #isCacheable is cacheable}, it is cached if
+     * {@link com.oracle.graal.compiler.common.GraalOptions#UseInlineeGraphCache} is enabled. The
+     * returned graph is never shared but the caller may still copy it before modification.
      */
-    @SuppressWarnings("try")
     private static StructuredGraph parseBytecodes(ResolvedJavaMethod method, HighTierContext context, CanonicalizerPhase canonicalizer, StructuredGraph caller) {
-        StructuredGraph newGraph = new StructuredGraph(method, AllowAssumptions.from(caller.getAssumptions() != null));
+        return parseBytecodes(new CacheKey(method, context, caller), context, canonicalizer);
+    }
+
+    /**
+     * Parses {@code key.method} in the configuration described by {@code key}. This does not
+     * access the caller graph and can therefore be used by any thread.
+     */
+    @SuppressWarnings("try")
+    static StructuredGraph parseBytecodes(CacheKey key, HighTierContext context, CanonicalizerPhase canonicalizer) {
+        ResolvedJavaMethod method = key.method;
+        boolean useCache = UseInlineeGraphCache.getValue() && context.getGraphBuilderSuite() != null;
+        if (useCache) {
+            StructuredGraph cached = context.getReplacements().getCachedInlineeGraph(method, key, AllowAssumptions.from(key.allowAssumptions));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        StructuredGraph newGraph = new StructuredGraph(method, AllowAssumptions.from(key.allowAssumptions));
         try (Debug.Scope s = Debug.scope("InlineGraph", newGraph)) {
-            if (!caller.isUnsafeAccessTrackingEnabled()) {
+            if (!key.unsafeAccessTracking) {
                 newGraph.disableUnsafeAccessTracking();
             }
             if (context.getGraphBuilderSuite() != null) {
@@ -215,12 +297,31 @@ public class InlineableGraph implements Inlineable {
                 canonicalizer.apply(newGraph, context);
             }
 
+            if (useCache && isCacheable(newGraph)) {
+                context.getReplacements().cacheInlineeGraph(key, newGraph);
+            }
             return newGraph;
         } catch (Throwable e) {
             throw Debug.handle(e);
         }
     }
 
+    /**
+     * Graphs that rely on assumptions or that contain unsafe accesses are not cached as that
+     * information would be lost. Unless
+     * {@link com.oracle.graal.compiler.common.GraalOptions#InlineeGraphCacheMatureProfilesOnly} is
+     * disabled, graphs whose profiles may still change are not cached either.
+     */
+    private static boolean isCacheable(StructuredGraph graph) {
+        if (graph.getAssumptions() != null && !graph.getAssumptions().isEmpty()) {
+            return false;
+        }
+        if (graph.hasUnsafeAccess()) {
+            return false;
+        }
+        return !InlineeGraphCacheMatureProfilesOnly.getValue() || graph.method().getProfilingInfo().isMature();
+    }
+
     @Override
     public int getNodeCount() {
         return InliningUtil.getNodeCount(graph);
@@ -239,4 +340,8 @@ public class InlineableGraph implements Inlineable {
     public StructuredGraph getGraph() {
         return graph;
     }
+
+    public EscapeSummary getEscapeSummary() {
+        return escapeSummary;
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common.inlining.info.elem;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.nodes.CallTargetNode;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.inlining.info.elem.InlineableGraph.CacheKey;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Speculatively parses the statically bound callees of a graph on a pool of daemon threads owned by
+ * the compiler while the inliner is still busy with other call sites. When a callee is later considered for inlining, its graph is
+ * {@linkplain #take(ResolvedJavaMethod, StructuredGraph) taken} from here instead of being parsed
+ * by the compiler thread.
+ *
+ * Every parse produces a fresh graph, so the only state shared with the worker threads is the
+ * (thread-safe) providers and phases of the {@link HighTierContext}. Option overrides of the
+ * compiler thread are re-established in the worker. A parse that fails is simply repeated by the
+ * compiler thread so that errors surface there.
+ *
+ * Instances are confined to the compiler thread that created them.
+ */
+public final class InlineeGraphPrefetcher {
+
+    private static final DebugCounter counterPrefetched = Debug.counter("InlineeGraphsPrefetched");
+    private static final DebugCounter counterPrefetchUsed = Debug.counter("InlineeGraphsPrefetchUsed");
+
+    /**
+     * The worker threads shared by all prefetchers. They are created lazily and terminate after
+     * being idle for a while, so the pool costs nothing unless
+     * {@link com.oracle.graal.phases.common.inlining.InliningPhase.Options#ParallelInlineeParsing}
+     * is enabled.
+     */
+    private static final class Workers {
+
+        private static final ExecutorService POOL = createPool();
+
+        private static ExecutorService createPool() {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+                Thread thread = new Thread(r, "InlineeGraphPrefetcher-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    private final HighTierContext context;
+    private final CanonicalizerPhase canonicalizer;
+    private final Map<OptionValue<?>, Object> overrides;
+    private final Map<CacheKey, Future<StructuredGraph>> pending = new HashMap<>();
+
+    public InlineeGraphPrefetcher(HighTierContext context, CanonicalizerPhase canonicalizer) {
+        this.context = context;
+        this.canonicalizer = canonicalizer;
+        this.overrides = OptionValue.getOverrides();
+    }
+
+    /**
+     * Starts parsing the callees of all invokes in {@code caller} whose target is statically bound
+     * and that are not substituted.
+     */
+    public void prefetch(StructuredGraph caller) {
+        if (context.getGraphBuilderSuite() == null) {
+            return;
+        }
+        for (Invoke invoke : caller.getInvokes()) {
+            CallTargetNode callTarget = invoke.callTarget();
+            ResolvedJavaMethod method = callTarget.targetMethod();
+            if (method == null || !(callTarget.invokeKind().isDirect() || method.canBeStaticallyBound())) {
+                continue;
+            }
+            if (!method.hasBytecodes() || !method.canBeInlined() || context.getReplacements().hasSubstitution(method, invoke.bci())) {
+                continue;
+            }
+            CacheKey key = new CacheKey(method, context, caller);
+            if (!pending.containsKey(key)) {
+                pending.put(key, Workers.POOL.submit(() -> parse(key)));
+                counterPrefetched.increment();
+            }
+        }
+    }
+
+    @SuppressWarnings("try")
+    private StructuredGraph parse(CacheKey key) {
+        try (OverrideScope s = OptionValue.override(overrides)) {
+            return InlineableGraph.parseBytecodes(key, context, canonicalizer);
+        }
+    }
+
+    /**
+     * Gets the speculatively parsed graph of {@code method}, waiting for the parse to complete if
+     * necessary.
+     *
+     * @return a graph that is not shared with anyone else or {@code null} if {@code method} was not
+     *         prefetched for {@code caller} or parsing it failed
+     */
+    public StructuredGraph take(ResolvedJavaMethod method, StructuredGraph caller) {
+        Future<StructuredGraph> future = pending.remove(new CacheKey(method, context, caller));
+        if (future == null) {
+            return null;
+        }
+        try {
+            StructuredGraph graph = future.get();
+            counterPrefetchUsed.increment();
+            return graph;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cancels all parses whose graphs were not taken, interrupting the ones that are in progress.
+     */
+    public void cancel() {
+        for (Future<StructuredGraph> future : pending.values()) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+}
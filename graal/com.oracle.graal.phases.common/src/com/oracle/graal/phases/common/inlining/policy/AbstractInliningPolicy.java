@@ -24,14 +24,19 @@ package com.oracle.graal.phases.common.inlining.policy;
 
 import static com.oracle.graal.phases.common.inlining.InliningPhase.Options.AlwaysInlineIntrinsics;
 
+import java.util.BitSet;
 import java.util.Map;
 
 import com.oracle.graal.nodes.Invoke;
 import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.spi.Replacements;
+import com.oracle.graal.phases.common.inlining.EscapeSummary;
 import com.oracle.graal.phases.common.inlining.InliningUtil;
 import com.oracle.graal.phases.common.inlining.info.InlineInfo;
 import com.oracle.graal.phases.common.inlining.info.elem.Inlineable;
+import com.oracle.graal.phases.common.inlining.info.elem.InlineableGraph;
+import com.oracle.graal.phases.common.inlining.walker.MethodInvocation;
 
 import jdk.vm.ci.meta.ProfilingInfo;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
@@ -96,6 +101,36 @@ public abstract class AbstractInliningPolicy implements InliningPolicy {
         return size;
     }
 
+    /**
+     * Counts the freshly instantiated objects that the invocation passes to parameters that do not
+     * escape the callee, i.e., allocations that escape analysis can remove after inlining.
+     */
+    protected static int countVirtualizableArguments(MethodInvocation invocation) {
+        BitSet freshArguments = invocation.getFreshlyInstantiatedArguments();
+        InlineInfo info = invocation.callee();
+        if (freshArguments == null || info.numberOfMethods() != 1 || !(info.inlineableElementAt(0) instanceof InlineableGraph)) {
+            return 0;
+        }
+        EscapeSummary summary = ((InlineableGraph) info.inlineableElementAt(0)).getEscapeSummary();
+        int count = 0;
+        for (int i = freshArguments.nextSetBit(0); i >= 0; i = freshArguments.nextSetBit(i + 1)) {
+            if (summary.getState(i).isVirtualizable()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    protected static int countConstantArguments(InlineInfo info) {
+        int count = 0;
+        for (ValueNode argument : info.invoke().callTarget().arguments()) {
+            if (argument.isConstant()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     protected static double determineInvokeProbability(InlineInfo info) {
         double invokeProbability = 0;
         for (int i = 0; i < info.numberOfMethods(); i++) {
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common.inlining.policy;
+
+import static com.oracle.graal.compiler.common.GraalOptions.InlineEverything;
+import static com.oracle.graal.compiler.common.GraalOptions.LimitInlinedInvokes;
+import static com.oracle.graal.compiler.common.GraalOptions.MaximumDesiredSize;
+import static com.oracle.graal.compiler.common.GraalOptions.MaximumInliningSize;
+import static com.oracle.graal.compiler.common.GraalOptions.TrivialInliningSize;
+
+import java.util.Map;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.spi.Replacements;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.phases.common.inlining.InliningUtil;
+import com.oracle.graal.phases.common.inlining.info.InlineInfo;
+import com.oracle.graal.phases.common.inlining.walker.MethodInvocation;
+
+/**
+ * An inlining policy that weighs the expected benefit of inlining a call site against its cost
+ * under a node budget for the whole compilation.
+ *
+ * The benefit of a call site is its relevance, which is derived from the invoke frequency, scaled
+ * up for every constant argument (which lets the callee fold) and every fresh allocation passed to
+ * a parameter that does not escape the callee (which escape analysis can then remove). The cost is
+ * the node count of the callee. The benefit must outweigh the cost by a factor that grows as the
+ * graph fills up the budget ({@link com.oracle.graal.compiler.common.GraalOptions#MaximumDesiredSize}
+ * ), so the cheapest and most profitable call sites are inlined while budget remains.
+ *
+ * Together with visiting call sites in the order of decreasing frequency (see
+ * {@link com.oracle.graal.phases.common.inlining.walker.CallsiteHolderExplorable}), this
+ * approximates taking decisions in priority order.
+ */
+public class CostBenefitInliningPolicy extends AbstractInliningPolicy {
+
+    public static class Options {
+        @Option(help = "Benefit of inlining added for each constant argument of a call site.", type = OptionType.Expert)//
+        public static final OptionValue<Double> InliningConstantArgumentBenefit = new OptionValue<>(0.5);
+
+        @Option(help = "Benefit of inlining added for each fresh allocation passed to a non-escaping parameter.", type = OptionType.Expert)//
+        public static final OptionValue<Double> InliningVirtualizableArgumentBenefit = new OptionValue<>(1.0);
+    }
+
+    private static final DebugCounter inliningStoppedByBudgetCounter = Debug.counter("InliningStoppedByBudget");
+
+    public CostBenefitInliningPolicy(Map<Invoke, Double> hints) {
+        super(hints);
+    }
+
+    @Override
+    public boolean continueInlining(StructuredGraph currentGraph) {
+        if (InliningUtil.getNodeCount(currentGraph) >= MaximumDesiredSize.getValue()) {
+            InliningUtil.logInliningDecision("inlining is cut off by MaximumDesiredSize");
+            inliningStoppedByBudgetCounter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed) {
+
+        final InlineInfo info = invocation.callee();
+        final double probability = invocation.probability();
+        final double relevance = invocation.relevance();
+
+        if (InlineEverything.getValue()) {
+            InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "inline everything");
+            return true;
+        }
+
+        if (isIntrinsic(replacements, info)) {
+            InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "intrinsic");
+            return true;
+        }
+
+        if (info.shouldInline()) {
+            InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "forced inlining");
+            return true;
+        }
+
+        double inliningBonus = getInliningBonus(info);
+        int nodes = info.determineNodeCount();
+
+        if (nodes < TrivialInliningSize.getValue() * inliningBonus) {
+            InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "trivial (relevance=%f, probability=%f, bonus=%f, nodes=%d)", relevance, probability, inliningBonus, nodes);
+            return true;
+        }
+
+        // the budget is shared by the whole compilation, not only by the graph containing the invoke
+        int used = InliningUtil.getNodeCount(invocation.rootGraph());
+        int budget = MaximumDesiredSize.getValue();
+        if (used + nodes > budget) {
+            InliningUtil.logNotInlinedMethod(info, inliningDepth, "exceeds budget (used=%d, nodes=%d, budget=%d)", used, nodes, budget);
+            return false;
+        }
+
+        double invokes = determineInvokeProbability(info);
+        if (LimitInlinedInvokes.getValue() > 0 && fullyProcessed && invokes > LimitInlinedInvokes.getValue() * inliningBonus) {
+            InliningUtil.logNotInlinedMethod(info, inliningDepth, "callee invoke probability is too high (invokeP=%f, relevance=%f, probability=%f, bonus=%f, nodes=%d)", invokes, relevance,
+                            probability, inliningBonus, nodes);
+            return false;
+        }
+
+        double simplification = 1 + countConstantArguments(info) * Options.InliningConstantArgumentBenefit.getValue() +
+                        countVirtualizableArguments(invocation) * Options.InliningVirtualizableArgumentBenefit.getValue();
+        double benefit = Math.min(RelevanceCapForInlining, relevance) * simplification * inliningBonus * MaximumInliningSize.getValue();
+        double cost = nodes * (1 + (double) used / budget);
+        if (benefit >= cost) {
+            InliningUtil.logInlinedMethod(info, inliningDepth, fullyProcessed, "cost-benefit (relevance=%f, probability=%f, bonus=%f, benefit=%f >= cost=%f)", relevance, probability,
+                            inliningBonus, benefit, cost);
+            return true;
+        }
+
+        InliningUtil.logNotInlinedMethod(info, inliningDepth, "cost-benefit (relevance=%f, probability=%f, bonus=%f, benefit=%f < cost=%f)", relevance, probability, inliningBonus, benefit, cost);
+        return false;
+    }
+}
@@ -22,6 +22,7 @@
  */
 package com.oracle.graal.phases.common.inlining.policy;
 
+import static com.oracle.graal.compiler.common.GraalOptions.EscapeSummaryInliningBonus;
 import static com.oracle.graal.compiler.common.GraalOptions.InlineEverything;
 import static com.oracle.graal.compiler.common.GraalOptions.LimitInlinedInvokes;
 import static com.oracle.graal.compiler.common.GraalOptions.MaximumDesiredSize;
@@ -43,6 +44,7 @@ import com.oracle.graal.phases.common.inlining.walker.MethodInvocation;
 public class GreedyInliningPolicy extends AbstractInliningPolicy {
 
     private static final DebugCounter inliningStoppedByMaxDesiredSizeCounter = Debug.counter("InliningStoppedByMaxDesiredSize");
+    private static final DebugCounter escapeSummaryBonusCounter = Debug.counter("InliningEscapeSummaryBonus");
 
     public GreedyInliningPolicy(Map<Invoke, Double> hints) {
         super(hints);
@@ -81,6 +83,10 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
         }
 
         double inliningBonus = getInliningBonus(info);
+        if (countVirtualizableArguments(invocation) > 0) {
+            escapeSummaryBonusCounter.increment();
+            inliningBonus *= EscapeSummaryInliningBonus.getValue();
+        }
         int nodes = info.determineNodeCount();
         int lowLevelGraphSize = previousLowLevelGraphSize(info);
 
@@ -34,6 +34,7 @@ import com.oracle.graal.nodes.Invoke;
 import com.oracle.graal.nodes.ParameterNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
 import com.oracle.graal.phases.common.inlining.policy.AbstractInliningPolicy;
 import com.oracle.graal.phases.graph.FixedNodeProbabilityCache;
 
@@ -89,6 +90,9 @@ public final class CallsiteHolderExplorable extends CallsiteHolder {
             probabilities = new FixedNodeProbabilityCache();
             computeInliningRelevance = new ComputeInliningRelevance(graph, probabilities);
             computeProbabilities();
+            if (InliningPhase.Options.CostBenefitInlining.getValue()) {
+                remainingInvokes.sort((a, b) -> Double.compare(invokeRelevance(b), invokeRelevance(a)));
+            }
         }
         assert repOK();
     }
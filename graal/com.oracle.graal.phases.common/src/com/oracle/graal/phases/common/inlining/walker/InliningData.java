@@ -52,6 +52,7 @@ import com.oracle.graal.nodes.virtual.AllocatedObjectNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 import com.oracle.graal.phases.OptimisticOptimizations;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
 import com.oracle.graal.phases.common.inlining.InliningUtil;
 import com.oracle.graal.phases.common.inlining.info.AssumptionInlineInfo;
 import com.oracle.graal.phases.common.inlining.info.ExactInlineInfo;
@@ -60,6 +61,7 @@ import com.oracle.graal.phases.common.inlining.info.MultiTypeGuardInlineInfo;
 import com.oracle.graal.phases.common.inlining.info.TypeGuardInlineInfo;
 import com.oracle.graal.phases.common.inlining.info.elem.Inlineable;
 import com.oracle.graal.phases.common.inlining.info.elem.InlineableGraph;
+import com.oracle.graal.phases.common.inlining.info.elem.InlineeGraphPrefetcher;
 import com.oracle.graal.phases.common.inlining.policy.InliningPolicy;
 import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.phases.util.Providers;
@@ -113,6 +115,7 @@ public class InliningData {
     private final CanonicalizerPhase canonicalizer;
     private final InliningPolicy inliningPolicy;
     private final StructuredGraph rootGraph;
+    private final InlineeGraphPrefetcher prefetcher;
 
     private int maxGraphs;
 
@@ -124,9 +127,30 @@ public class InliningData {
         this.inliningPolicy = inliningPolicy;
         this.maxGraphs = 1;
         this.rootGraph = rootGraph;
+        this.prefetcher = InliningPhase.Options.ParallelInlineeParsing.getValue() ? new InlineeGraphPrefetcher(context, canonicalizer) : null;
 
-        invocationQueue.push(new MethodInvocation(null, 1.0, 1.0, null));
-        graphQueue.push(new CallsiteHolderExplorable(rootGraph, 1.0, 1.0, null));
+        invocationQueue.push(new MethodInvocation(null, 1.0, 1.0, null, rootGraph));
+        pushGraph(new CallsiteHolderExplorable(rootGraph, 1.0, 1.0, null));
+    }
+
+    /**
+     * Pushes a graph to explore and starts parsing its callees speculatively if
+     * {@link InliningPhase.Options#ParallelInlineeParsing} is enabled.
+     */
+    private void pushGraph(CallsiteHolder callsiteHolder) {
+        graphQueue.push(callsiteHolder);
+        if (prefetcher != null && callsiteHolder.hasRemainingInvokes()) {
+            prefetcher.prefetch(callsiteHolder.graph());
+        }
+    }
+
+    /**
+     * Abandons the callee graphs that were parsed speculatively but not used.
+     */
+    public void cancelPrefetching() {
+        if (prefetcher != null) {
+            prefetcher.cancel();
+        }
     }
 
     public static boolean isFreshInstantiation(ValueNode arg) {
@@ -476,10 +500,10 @@ public class InliningData {
         InlineInfo info = getInlineInfo(invoke);
 
         if (info != null) {
-            info.populateInlinableElements(context, currentGraph().graph(), canonicalizer);
+            info.populateInlinableElements(context, currentGraph().graph(), canonicalizer, prefetcher);
             double invokeProbability = callsiteHolder.invokeProbability(invoke);
             double invokeRelevance = callsiteHolder.invokeRelevance(invoke);
-            MethodInvocation methodInvocation = new MethodInvocation(info, invokeProbability, invokeRelevance, freshlyInstantiatedArguments(invoke, callsiteHolder.getFixedParams()));
+            MethodInvocation methodInvocation = new MethodInvocation(info, invokeProbability, invokeRelevance, freshlyInstantiatedArguments(invoke, callsiteHolder.getFixedParams()), rootGraph);
             pushInvocationAndGraphs(methodInvocation);
         }
     }
@@ -580,7 +604,7 @@ public class InliningData {
         for (int i = 0; i < info.numberOfMethods(); i++) {
             CallsiteHolder ch = methodInvocation.buildCallsiteHolderForElement(i);
             assert !contains(ch.graph());
-            graphQueue.push(ch);
+            pushGraph(ch);
             assert graphQueue.size() <= maxGraphs;
         }
     }
@@ -25,6 +25,7 @@ package com.oracle.graal.phases.common.inlining.walker;
 import java.util.BitSet;
 
 import com.oracle.graal.nodes.CallTargetNode;
+import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.java.MethodCallTargetNode;
 import com.oracle.graal.phases.common.inlining.info.InlineInfo;
 import com.oracle.graal.phases.common.inlining.info.elem.Inlineable;
@@ -49,6 +50,11 @@ public class MethodInvocation {
     private final double probability;
     private final double relevance;
 
+    /**
+     * The graph of the compilation unit, into which the callee is eventually inlined.
+     */
+    private final StructuredGraph rootGraph;
+
     private int processedGraphs;
 
     /**
@@ -77,10 +83,11 @@ public class MethodInvocation {
 
     private final int sizeFreshArgs;
 
-    public MethodInvocation(InlineInfo info, double probability, double relevance, BitSet freshlyInstantiatedArguments) {
+    public MethodInvocation(InlineInfo info, double probability, double relevance, BitSet freshlyInstantiatedArguments, StructuredGraph rootGraph) {
         this.callee = info;
         this.probability = probability;
         this.relevance = relevance;
+        this.rootGraph = rootGraph;
         this.freshlyInstantiatedArguments = freshlyInstantiatedArguments;
         this.sizeFreshArgs = freshlyInstantiatedArguments == null ? 0 : freshlyInstantiatedArguments.cardinality();
     }
@@ -111,6 +118,10 @@ public class MethodInvocation {
         return relevance;
     }
 
+    public StructuredGraph rootGraph() {
+        return rootGraph;
+    }
+
     public boolean isRoot() {
         return callee == null;
     }
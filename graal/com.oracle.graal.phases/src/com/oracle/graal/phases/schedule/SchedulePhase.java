@@ -22,6 +22,7 @@
  */
 package com.oracle.graal.phases.schedule;
 
+import static com.oracle.graal.compiler.common.GraalOptions.IncrementalScheduling;
 import static com.oracle.graal.compiler.common.GraalOptions.OptScheduleOutOfLoops;
 import static com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph.strictlyDominates;
 
@@ -36,6 +37,7 @@ import com.oracle.graal.compiler.common.SuppressFBWarnings;
 import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
 import com.oracle.graal.compiler.common.cfg.BlockMap;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.graph.Graph.NodeEvent;
 import com.oracle.graal.graph.Graph.NodeEventListener;
 import com.oracle.graal.graph.Graph.NodeEventScope;
@@ -75,6 +77,9 @@ import com.oracle.graal.phases.Phase;
 
 public final class SchedulePhase extends Phase {
 
+    private static final DebugCounter SCHEDULES_REUSED = Debug.counter("SchedulesReused");
+    private static final DebugCounter SCHEDULE_CFGS_REUSED = Debug.counter("ScheduleCFGsReused");
+
     public enum SchedulingStrategy {
         EARLIEST,
         LATEST,
@@ -122,8 +127,127 @@ public final class SchedulePhase extends Phase {
     @SuppressWarnings("try")
     protected void run(StructuredGraph graph) {
         try (NodeEventScope scope = verifyImmutableGraph(graph)) {
-            Instance inst = new Instance();
-            inst.run(graph, selectedStrategy, immutableGraph);
+            if (IncrementalScheduling.getValue()) {
+                runIncremental(graph);
+            } else {
+                Instance inst = new Instance();
+                inst.run(graph, selectedStrategy, immutableGraph);
+            }
+        }
+    }
+
+    /**
+     * Schedules the graph based on its last schedule, if that schedule was also computed
+     * incrementally. If the graph did not change since, the last schedule is kept as is. If only
+     * floating nodes changed, the floating nodes are placed again, but the control flow graph is
+     * reused. Within a block, the order of floating reads depends on the position of all memory
+     * checkpoints in the block, so nodes are not re-placed individually.
+     */
+    private void runIncremental(StructuredGraph graph) {
+        ControlFlowGraph reusableCFG = null;
+        ScheduleResult last = graph.getLastSchedule();
+        if (last instanceof TrackedScheduleResult) {
+            TrackedScheduleResult tracked = (TrackedScheduleResult) last;
+            if (tracked.isUnchanged(selectedStrategy)) {
+                SCHEDULES_REUSED.increment();
+                return;
+            }
+            tracked.stopTracking();
+            if (tracked.isControlFlowUnchanged()) {
+                SCHEDULE_CFGS_REUSED.increment();
+                reusableCFG = tracked.getCFG();
+            }
+        }
+        Instance inst = new Instance();
+        inst.run(graph, selectedStrategy, immutableGraph, reusableCFG);
+        graph.setLastSchedule(new TrackedScheduleResult(graph, selectedStrategy, inst));
+    }
+
+    /**
+     * A schedule that records the changes made to its graph after it was computed. Changes to
+     * fixed nodes or to successor edges invalidate the control flow graph, all other changes only
+     * invalidate the placement of floating nodes. Tracking stops as soon as the graph has a
+     * different {@linkplain StructuredGraph#getLastSchedule() last schedule}, e.g., because it was
+     * compressed.
+     */
+    private static final class TrackedScheduleResult extends ScheduleResult implements NodeEventListener {
+
+        private final StructuredGraph graph;
+        private final SchedulingStrategy strategy;
+        private final GuardsStage guardsStage;
+        private NodeEventScope scope;
+        private boolean floatingNodesChanged;
+        private boolean controlFlowChanged;
+
+        TrackedScheduleResult(StructuredGraph graph, SchedulingStrategy strategy, Instance inst) {
+            super(inst.cfg, inst.nodeToBlockMap, inst.blockToNodesMap);
+            this.graph = graph;
+            this.strategy = strategy;
+            this.guardsStage = graph.getGuardsStage();
+            this.scope = graph.trackNodeEvents(this);
+        }
+
+        boolean isUnchanged(SchedulingStrategy newStrategy) {
+            return scope != null && strategy == newStrategy && guardsStage == graph.getGuardsStage() && !floatingNodesChanged && !controlFlowChanged;
+        }
+
+        boolean isControlFlowUnchanged() {
+            return !controlFlowChanged;
+        }
+
+        void stopTracking() {
+            if (scope != null) {
+                scope.close();
+                scope = null;
+            }
+        }
+
+        private boolean isTracking() {
+            if (graph.getLastSchedule() != this) {
+                stopTracking();
+            }
+            return scope != null;
+        }
+
+        private void changed(Node node) {
+            if (isTracking()) {
+                if (node instanceof FixedNode) {
+                    controlFlowChanged = true;
+                } else {
+                    floatingNodesChanged = true;
+                }
+            }
+        }
+
+        @Override
+        public void nodeAdded(Node node) {
+            changed(node);
+        }
+
+        @Override
+        public void nodeRemoved(Node node) {
+            changed(node);
+        }
+
+        @Override
+        public void inputChanged(Node node) {
+            if (isTracking()) {
+                floatingNodesChanged = true;
+            }
+        }
+
+        @Override
+        public void usagesDroppedToZero(Node node) {
+            if (isTracking()) {
+                floatingNodesChanged = true;
+            }
+        }
+
+        @Override
+        public void successorChanged(Node node) {
+            if (isTracking()) {
+                controlFlowChanged = true;
+            }
         }
     }
 
@@ -136,10 +260,24 @@ public final class SchedulePhase extends Phase {
         protected BlockMap<List<Node>> blockToNodesMap;
         protected NodeMap<Block> nodeToBlockMap;
 
-        @SuppressWarnings("try")
         public void run(StructuredGraph graph, SchedulingStrategy selectedStrategy, boolean immutableGraph) {
+            run(graph, selectedStrategy, immutableGraph, null);
+        }
+
+        /**
+         * Schedules {@code graph}, reusing {@code reusableCFG} if it is non-null. The fixed nodes
+         * and successor edges of the graph must not have changed since {@code reusableCFG} was
+         * computed.
+         */
+        @SuppressWarnings("try")
+        public void run(StructuredGraph graph, SchedulingStrategy selectedStrategy, boolean immutableGraph, ControlFlowGraph reusableCFG) {
             // assert GraphOrder.assertNonCyclicGraph(graph);
-            cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+            if (reusableCFG == null) {
+                cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+            } else {
+                cfg = reusableCFG;
+                resetNodeToBlock(graph, cfg);
+            }
 
             NodeMap<Block> currentNodeMap = graph.createNodeMap();
             NodeBitMap visited = graph.createNodeBitMap();
@@ -170,6 +308,20 @@ public final class SchedulePhase extends Phase {
             graph.setLastSchedule(new ScheduleResult(this.cfg, this.nodeToBlockMap, this.blockToNodesMap));
         }
 
+        /**
+         * Restores the mapping of a reused control flow graph to the state after its construction,
+         * in which only the fixed nodes are assigned to blocks.
+         */
+        private static void resetNodeToBlock(StructuredGraph graph, ControlFlowGraph cfg) {
+            NodeMap<Block> nodeToBlock = graph.createNodeMap();
+            for (Block b : cfg.getBlocks()) {
+                for (FixedNode node : b.getNodes()) {
+                    nodeToBlock.set(node, b);
+                }
+            }
+            cfg.setNodeToBlock(nodeToBlock);
+        }
+
         @SuppressFBWarnings(value = "RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE", justification = "false positive found by findbugs")
         private BlockMap<ArrayList<FloatingReadNode>> calcLatestBlocks(SchedulingStrategy strategy, NodeMap<Block> currentNodeMap, BlockMap<List<Node>> earliestBlockToNodesMap, NodeBitMap visited,
                         BlockMap<List<Node>> latestBlockToNodesMap, boolean immutableGraph) {
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.amd64;
+
+import java.math.BigDecimal;
+
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.spi.Canonicalizable;
+import com.oracle.graal.graph.spi.CanonicalizerTool;
+import com.oracle.graal.lir.amd64.AMD64ArithmeticLIRGeneratorTool;
+import com.oracle.graal.lir.gen.ArithmeticLIRGeneratorTool;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.FloatingNode;
+import com.oracle.graal.nodes.spi.ArithmeticLIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Computes {@code x * y + z} with a single rounding, as specified by {@code Math.fma}, using the
+ * {@code vfmadd231sd} or {@code vfmadd231ss} instructions.
+ */
+@NodeInfo
+public final class AMD64FusedMultiplyAddNode extends FloatingNode implements ArithmeticLIRLowerable, Canonicalizable {
+    public static final NodeClass<AMD64FusedMultiplyAddNode> TYPE = NodeClass.create(AMD64FusedMultiplyAddNode.class);
+
+    @Input protected ValueNode x;
+    @Input protected ValueNode y;
+    @Input protected ValueNode z;
+
+    public AMD64FusedMultiplyAddNode(ValueNode x, ValueNode y, ValueNode z) {
+        super(TYPE, x.stamp().unrestricted());
+        assert x.getStackKind().isNumericFloat() && x.getStackKind() == y.getStackKind() && x.getStackKind() == z.getStackKind();
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public ValueNode getX() {
+        return x;
+    }
+
+    public ValueNode getY() {
+        return y;
+    }
+
+    public ValueNode getZ() {
+        return z;
+    }
+
+    /**
+     * Folds constant inputs by computing the exact result with {@link BigDecimal}. Infinities, NaNs
+     * and signed zeros cannot be represented that way, so inputs or results involving them are
+     * left to the generated code.
+     */
+    public static ValueNode tryFold(ValueNode x, ValueNode y, ValueNode z) {
+        if (x.isConstant() && y.isConstant() && z.isConstant()) {
+            JavaConstant a = x.asJavaConstant();
+            JavaConstant b = y.asJavaConstant();
+            JavaConstant c = z.asJavaConstant();
+            if (a.getJavaKind() == JavaKind.Double) {
+                double ad = a.asDouble();
+                double bd = b.asDouble();
+                double cd = c.asDouble();
+                if (isFiniteNonZero(ad) && isFiniteNonZero(bd) && isFinite(cd)) {
+                    BigDecimal exact = new BigDecimal(ad).multiply(new BigDecimal(bd)).add(new BigDecimal(cd));
+                    if (exact.signum() != 0) {
+                        return ConstantNode.forDouble(exact.doubleValue());
+                    }
+                }
+            } else {
+                assert a.getJavaKind() == JavaKind.Float;
+                float af = a.asFloat();
+                float bf = b.asFloat();
+                float cf = c.asFloat();
+                if (isFiniteNonZero(af) && isFiniteNonZero(bf) && isFinite(cf)) {
+                    BigDecimal exact = new BigDecimal(af).multiply(new BigDecimal(bf)).add(new BigDecimal(cf));
+                    if (exact.signum() != 0) {
+                        return ConstantNode.forFloat(exact.floatValue());
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+
+    private static boolean isFiniteNonZero(double value) {
+        return isFinite(value) && value != 0.0;
+    }
+
+    @Override
+    public ValueNode canonical(CanonicalizerTool tool) {
+        ValueNode folded = tryFold(x, y, z);
+        return folded != null ? folded : this;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool builder, ArithmeticLIRGeneratorTool gen) {
+        builder.setResult(this, ((AMD64ArithmeticLIRGeneratorTool) gen).emitFusedMultiplyAdd(builder.operand(x), builder.operand(y), builder.operand(z)));
+    }
+}
@@ -60,7 +60,7 @@ public class AMD64GraphBuilderPlugins {
                 registerIntegerLongPlugins(invocationPlugins, IntegerSubstitutions.class, JavaKind.Int, arch);
                 registerIntegerLongPlugins(invocationPlugins, LongSubstitutions.class, JavaKind.Long, arch);
                 registerUnsafePlugins(invocationPlugins);
-                registerMathPlugins(invocationPlugins, foreignCalls);
+                registerMathPlugins(invocationPlugins, foreignCalls, arch);
             }
         });
     }
@@ -113,7 +113,7 @@ public class AMD64GraphBuilderPlugins {
         }
     }
 
-    private static void registerMathPlugins(InvocationPlugins plugins, ForeignCallsProvider foreignCalls) {
+    private static void registerMathPlugins(InvocationPlugins plugins, ForeignCallsProvider foreignCalls, AMD64 arch) {
         Registration r = new Registration(plugins, Math.class);
         r.register1("log", Double.TYPE, new InvocationPlugin() {
             @Override
@@ -134,6 +134,24 @@ public class AMD64GraphBuilderPlugins {
         r.registerMethodSubstitution(AMD64MathSubstitutions.class, "tan", double.class);
         r.registerMethodSubstitution(AMD64MathSubstitutions.class, "pow", double.class, double.class);
         r.register1("exp", Double.TYPE, new ForeignCallPlugin(foreignCalls, ARITHMETIC_EXP));
+        if (arch.getFeatures().contains(AMD64.CPUFeature.FMA)) {
+            // Math.fma only exists since JDK 9
+            for (JavaKind kind : new JavaKind[]{JavaKind.Float, JavaKind.Double}) {
+                Class<?> type = kind.toJavaClass();
+                r.registerOptional3("fma", type, type, type, new InvocationPlugin() {
+                    @Override
+                    public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode x, ValueNode y, ValueNode z) {
+                        ValueNode folded = AMD64FusedMultiplyAddNode.tryFold(x, y, z);
+                        if (folded != null) {
+                            b.addPush(kind, folded);
+                        } else {
+                            b.addPush(kind, new AMD64FusedMultiplyAddNode(x, y, z));
+                        }
+                        return true;
+                    }
+                });
+            }
+        }
     }
 
     private static void registerUnsafePlugins(InvocationPlugins plugins) {
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.loop.phases.LoopOverflowCheckEliminationPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.calc.ExactArithmeticNode;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests that exact arithmetic on loop counters still detects overflows after
+ * {@link LoopOverflowCheckEliminationPhase} removed or hoisted the checks.
+ */
+public class ExactArithmeticLoopTest extends GraalCompilerTest {
+
+    public static int addConstantSnippet(int[] array) {
+        int sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            sum += array[Math.addExact(i, 1) - 1];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testAddConstant() {
+        assertChecksEliminated("addConstantSnippet");
+        test("addConstantSnippet", new int[]{1, 2, 3, 4});
+    }
+
+    public static int addInvariantSnippet(int start, int end, int offset) {
+        int sum = 0;
+        for (int i = start; i < end; i++) {
+            sum ^= Math.addExact(i, offset);
+        }
+        return sum;
+    }
+
+    @Test
+    public void testAddInvariant() {
+        assertChecksEliminated("addInvariantSnippet");
+        test("addInvariantSnippet", 0, 100, 42);
+        test("addInvariantSnippet", 0, 100, Integer.MAX_VALUE - 200);
+        test("addInvariantSnippet", 0, 100, Integer.MAX_VALUE - 50);
+        test("addInvariantSnippet", -100, 0, Integer.MIN_VALUE + 50);
+        test("addInvariantSnippet", 100, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The operation would overflow for the bounds of the counter range, but the range is empty, so
+     * the hoisted checks must not deoptimize.
+     */
+    @Test
+    public void testAddInvariantEmptyRange() throws InvalidInstalledCodeException {
+        ResolvedJavaMethod method = getResolvedJavaMethod("addInvariantSnippet");
+        InstalledCode code = getCode(method, null, true);
+        Assert.assertEquals(0, code.executeVarargs(0, Integer.MIN_VALUE, -1));
+        Assert.assertEquals(0, code.executeVarargs(Integer.MAX_VALUE, 0, 1));
+        Assert.assertTrue(code.isValid());
+    }
+
+    public static int subInvariantSnippet(int start, int end, int offset) {
+        int sum = 0;
+        for (int i = end; i > start; i--) {
+            sum ^= Math.subtractExact(offset, i);
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSubInvariant() {
+        assertChecksEliminated("subInvariantSnippet");
+        test("subInvariantSnippet", 0, 100, 42);
+        test("subInvariantSnippet", 0, 100, Integer.MIN_VALUE + 200);
+        test("subInvariantSnippet", 0, 100, Integer.MIN_VALUE + 50);
+    }
+
+    public static long mulSnippet(int n) {
+        long sum = 0;
+        for (int i = 0; i < (n & 0xFFFF); i++) {
+            sum += Math.multiplyExact(i, 1000);
+        }
+        return sum;
+    }
+
+    @Test
+    public void testMul() {
+        assertChecksEliminated("mulSnippet");
+        test("mulSnippet", 1000);
+        test("mulSnippet", -1);
+    }
+
+    /**
+     * Asserts that the loop of {@code snippet} contains an exact arithmetic node before the phase
+     * and none afterwards, i.e., that the checks were removed or moved in front of the loop.
+     */
+    private void assertChecksEliminated(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        PhaseContext context = new PhaseContext(getProviders());
+        CanonicalizerPhase canonicalizer = new CanonicalizerPhase();
+        canonicalizer.apply(graph, context);
+        Assert.assertNotEquals(0, exactArithmeticInLoops(graph));
+
+        MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo());
+        new LoopOverflowCheckEliminationPhase().apply(graph, midContext);
+        canonicalizer.apply(graph, context);
+        Assert.assertEquals(0, exactArithmeticInLoops(graph));
+    }
+
+    private static int exactArithmeticInLoops(StructuredGraph graph) {
+        int count = 0;
+        for (LoopEx loop : new LoopsData(graph).loops()) {
+            count += loop.whole().nodes().filter(n -> n instanceof ExactArithmeticNode).count();
+        }
+        return count;
+    }
+}
@@ -23,6 +23,7 @@
 package com.oracle.graal.replacements;
 
 import static com.oracle.graal.compiler.common.GraalOptions.DeoptALot;
+import static com.oracle.graal.compiler.common.GraalOptions.InlineeGraphCacheSize;
 import static com.oracle.graal.compiler.common.GraalOptions.OptCanonicalizer;
 import static com.oracle.graal.compiler.common.GraalOptions.UseSnippetGraphCache;
 import static com.oracle.graal.java.BytecodeParserOptions.InlineDuringParsing;
@@ -32,6 +33,12 @@ import static com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext.Compilati
 import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionality.Required;
 import static java.lang.String.format;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -46,6 +53,7 @@ import com.oracle.graal.compiler.common.spi.ConstantFieldProvider;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.DebugCloseable;
+import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.debug.DebugTimer;
 import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.graph.Node;
@@ -53,6 +61,9 @@ import com.oracle.graal.graph.Node.NodeIntrinsic;
 import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.java.GraphBuilderPhase.Instance;
 import com.oracle.graal.nodes.CallTargetNode;
+import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.nodes.GraphDecoder;
+import com.oracle.graal.nodes.GraphEncoder;
 import com.oracle.graal.nodes.Invoke;
 import com.oracle.graal.nodes.StateSplit;
 import com.oracle.graal.nodes.StructuredGraph;
@@ -97,6 +108,52 @@ public class ReplacementsImpl implements Replacements, InlineInvokePlugin {
      */
     protected final ConcurrentMap<ResolvedJavaMethod, StructuredGraph> graphs;
 
+    /**
+     * The encoded graphs of inlining candidates. The least recently used graph is evicted once the
+     * cache holds more than {@link GraalOptions#InlineeGraphCacheSize} graphs. This also drops the
+     * entries that are no longer hit because their method was deoptimized.
+     */
+    protected final Map<Object, CachedInlineeGraph> inlineeGraphs;
+
+    /**
+     * An encoded inlinee graph together with the state of the methods it was parsed from. The graph
+     * is dropped once a class declaring one of these methods was unloaded or the bytecodes of one
+     * of the methods changed because its class was redefined.
+     */
+    protected static final class CachedInlineeGraph {
+
+        private final EncodedGraph encodedGraph;
+        private final ResolvedJavaMethod[] methods;
+        private final byte[][] codes;
+        private final WeakReference<?>[] declaringClasses;
+
+        CachedInlineeGraph(EncodedGraph encodedGraph, List<ResolvedJavaMethod> methods, List<Class<?>> declaringClasses) {
+            this.encodedGraph = encodedGraph;
+            this.methods = methods.toArray(new ResolvedJavaMethod[methods.size()]);
+            this.codes = new byte[methods.size()][];
+            this.declaringClasses = new WeakReference<?>[methods.size()];
+            for (int i = 0; i < this.methods.length; i++) {
+                this.codes[i] = this.methods[i].getCode();
+                this.declaringClasses[i] = new WeakReference<>(declaringClasses.get(i));
+            }
+        }
+
+        boolean isValid() {
+            // check the classes first since the methods of an unloaded class must not be accessed
+            for (WeakReference<?> declaringClass : declaringClasses) {
+                if (declaringClass.get() == null) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < methods.length; i++) {
+                if (!Arrays.equals(codes[i], methods[i].getCode())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     public void setGraphBuilderPlugins(GraphBuilderConfiguration.Plugins plugins) {
         assert this.graphBuilderPlugins == null;
         this.graphBuilderPlugins = plugins;
@@ -175,10 +232,19 @@ public class ReplacementsImpl implements Replacements, InlineInvokePlugin {
         this.snippetReflection = snippetReflection;
         this.target = target;
         this.graphs = new ConcurrentHashMap<>();
+        this.inlineeGraphs = Collections.synchronizedMap(new LinkedHashMap<Object, CachedInlineeGraph>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedInlineeGraph> eldest) {
+                return size() > InlineeGraphCacheSize.getValue();
+            }
+        });
         this.snippetTemplateCache = CollectionsFactory.newMap();
     }
 
     private static final DebugTimer SnippetPreparationTime = Debug.timer("SnippetPreparationTime");
+    private static final DebugCounter InlineeGraphCacheHits = Debug.counter("InlineeGraphCacheHits");
 
     @Override
     public StructuredGraph getSnippet(ResolvedJavaMethod method, Object[] args) {
@@ -425,4 +491,40 @@ public class ReplacementsImpl implements Replacements, InlineInvokePlugin {
         SnippetTemplateCache ret = snippetTemplateCache.get(templatesClass.getName());
         return templatesClass.cast(ret);
     }
+
+    @Override
+    public StructuredGraph getCachedInlineeGraph(ResolvedJavaMethod method, Object key, AllowAssumptions allowAssumptions) {
+        CachedInlineeGraph cached = inlineeGraphs.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (!cached.isValid()) {
+            inlineeGraphs.remove(key, cached);
+            return null;
+        }
+        InlineeGraphCacheHits.increment();
+        EncodedGraph encodedGraph = cached.encodedGraph;
+        StructuredGraph graph = new StructuredGraph(method, allowAssumptions);
+        new GraphDecoder(target.arch).decode(graph, encodedGraph);
+        for (ResolvedJavaMethod inlinedMethod : encodedGraph.getInlinedMethods()) {
+            graph.recordInlinedMethod(inlinedMethod);
+        }
+        return graph;
+    }
+
+    @Override
+    public void cacheInlineeGraph(Object key, StructuredGraph graph) {
+        assert graph.getAssumptions() == null || graph.getAssumptions().isEmpty() : "assumptions of " + graph + " would be lost";
+        if (snippetReflection == null) {
+            return;
+        }
+        List<ResolvedJavaMethod> methods = new ArrayList<>();
+        methods.add(graph.method());
+        methods.addAll(graph.getInlinedMethods());
+        List<Class<?>> declaringClasses = new ArrayList<>();
+        for (ResolvedJavaMethod m : methods) {
+            declaringClasses.add(snippetReflection.asObject(Class.class, providers.getConstantReflection().asJavaClass(m.getDeclaringClass())));
+        }
+        inlineeGraphs.putIfAbsent(key, new CachedInlineeGraph(GraphEncoder.encodeSingleGraph(graph, target.arch), methods, declaringClasses));
+    }
 }
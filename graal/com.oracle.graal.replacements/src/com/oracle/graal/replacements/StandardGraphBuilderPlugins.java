@@ -22,6 +22,7 @@
  */
 package com.oracle.graal.replacements;
 
+import static com.oracle.graal.compiler.common.GraalOptions.OptEliminateExceptionStackTraces;
 import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
 import static jdk.vm.ci.code.MemoryBarriers.JMM_POST_VOLATILE_READ;
 import static jdk.vm.ci.code.MemoryBarriers.JMM_POST_VOLATILE_WRITE;
@@ -100,6 +101,7 @@ import com.oracle.graal.phases.common.instrumentation.nodes.RootNameNode;
 import com.oracle.graal.phases.common.instrumentation.nodes.RuntimePathNode;
 import com.oracle.graal.replacements.nodes.DirectReadNode;
 import com.oracle.graal.replacements.nodes.DirectStoreNode;
+import com.oracle.graal.replacements.nodes.FillInStackTraceNode;
 import com.oracle.graal.replacements.nodes.ReverseBytesNode;
 import com.oracle.graal.replacements.nodes.VirtualizableInvokeMacroNode;
 import com.oracle.graal.replacements.nodes.arithmetic.IntegerAddExactNode;
@@ -142,6 +144,7 @@ public class StandardGraphBuilderPlugins {
         registerBoxingPlugins(plugins);
         registerJMHBlackholePlugins(plugins);
         registerJFRThrowablePlugins(plugins);
+        registerThrowablePlugins(plugins);
     }
 
     private static final Field STRING_VALUE_FIELD;
@@ -861,4 +864,18 @@ public class StandardGraphBuilderPlugins {
             }
         });
     }
+
+    private static void registerThrowablePlugins(InvocationPlugins plugins) {
+        Registration r = new Registration(plugins, Throwable.class);
+        r.register1("fillInStackTrace", Receiver.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
+                if (!OptEliminateExceptionStackTraces.getValue()) {
+                    return false;
+                }
+                b.addPush(JavaKind.Object, new FillInStackTraceNode(b.getInvokeKind(), targetMethod, b.bci(), b.getInvokeReturnStamp(b.getAssumptions()), receiver.get()));
+                return true;
+            }
+        });
+    }
 }
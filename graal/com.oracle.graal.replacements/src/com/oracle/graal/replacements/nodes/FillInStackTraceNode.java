@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.oracle.graal.compiler.common.type.StampPair;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.CallTargetNode.InvokeKind;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.VirtualState;
+import com.oracle.graal.nodes.java.AccessFieldNode;
+import com.oracle.graal.nodes.java.StoreFieldNode;
+import com.oracle.graal.nodes.spi.ValueProxy;
+import com.oracle.graal.nodes.spi.Virtualizable;
+import com.oracle.graal.nodes.spi.VirtualizerTool;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.nodes.virtual.VirtualObjectNode;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Macro node for {@link Throwable#fillInStackTrace()}. If escape analysis has virtualized the
+ * receiver and the exception object never escapes the compilation unit, for example because it is
+ * thrown to a handler in the same method and only inspected there, the stack trace can never be
+ * observed and the (expensive) stack walk is omitted.
+ *
+ * Note that a deoptimization after this point rematerializes the exception without a stack trace,
+ * which is why this is only done when
+ * {@link com.oracle.graal.compiler.common.GraalOptions#OptEliminateExceptionStackTraces} is
+ * enabled.
+ */
+@NodeInfo
+public final class FillInStackTraceNode extends MacroStateSplitNode implements Virtualizable {
+
+    public static final NodeClass<FillInStackTraceNode> TYPE = NodeClass.create(FillInStackTraceNode.class);
+
+    private static final DebugCounter ELIMINATED_STACK_TRACES = Debug.counter("EliminatedExceptionStackTraces");
+
+    public FillInStackTraceNode(InvokeKind invokeKind, ResolvedJavaMethod targetMethod, int bci, StampPair returnStamp, ValueNode receiver) {
+        super(TYPE, invokeKind, targetMethod, bci, returnStamp, receiver);
+    }
+
+    @Override
+    public void virtualize(VirtualizerTool tool) {
+        ValueNode receiver = arguments.get(0);
+        ValueNode alias = tool.getAlias(receiver);
+        if (alias instanceof VirtualObjectNode && isThrowableFillInStackTrace((VirtualObjectNode) alias) && !escapes(GraphUtil.unproxify(receiver))) {
+            ELIMINATED_STACK_TRACES.increment();
+            tool.replaceWithVirtual((VirtualObjectNode) alias);
+        }
+    }
+
+    /**
+     * The call can only be omitted if it is not dispatched to an override of
+     * {@link Throwable#fillInStackTrace()}, which may have other side effects.
+     */
+    private boolean isThrowableFillInStackTrace(VirtualObjectNode virtual) {
+        ResolvedJavaType type = virtual.type();
+        ResolvedJavaMethod concrete = type.resolveConcreteMethod(getTargetMethod(), type);
+        return getTargetMethod().equals(concrete);
+    }
+
+    /**
+     * Conservatively determines whether {@code object} can be observed outside of the current
+     * compilation unit. Only field accesses on the object, type and identity tests and frame
+     * states are considered non-escaping.
+     */
+    private static boolean escapes(ValueNode object) {
+        NodeBitMap visited = object.graph().createNodeBitMap();
+        Deque<ValueNode> worklist = new ArrayDeque<>();
+        visited.mark(object);
+        worklist.push(object);
+        while (!worklist.isEmpty()) {
+            ValueNode current = worklist.pop();
+            for (Node usage : current.usages()) {
+                if (usage instanceof VirtualState || usage instanceof LogicNode) {
+                    continue;
+                } else if (usage instanceof AccessFieldNode) {
+                    if (usage instanceof StoreFieldNode) {
+                        StoreFieldNode store = (StoreFieldNode) usage;
+                        // storing the object into itself (e.g., Throwable.cause) does not escape it
+                        if (store.value() == current && !visited.isMarked(GraphUtil.unproxify(store.object()))) {
+                            return true;
+                        }
+                    }
+                } else if (usage instanceof ValueProxy || usage instanceof PhiNode || usage instanceof FillInStackTraceNode) {
+                    if (!visited.isMarked(usage)) {
+                        visited.mark(usage);
+                        worklist.push((ValueNode) usage);
+                    }
+                } else {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
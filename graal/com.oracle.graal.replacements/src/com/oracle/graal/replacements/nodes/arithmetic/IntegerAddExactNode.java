@@ -128,6 +128,9 @@ public final class IntegerAddExactNode extends AddNode implements IntegerExactAr
                 return forX;
             }
         }
+        if (!IntegerStamp.addCanOverflow((IntegerStamp) forX.stamp(), (IntegerStamp) forY.stamp())) {
+            return new AddNode(forX, forY);
+        }
         return null;
     }
 
@@ -150,6 +153,11 @@ public final class IntegerAddExactNode extends AddNode implements IntegerExactAr
         return null;
     }
 
+    @Override
+    public AddNode createUnchecked() {
+        return new AddNode(getX(), getY());
+    }
+
     @Override
     public IntegerExactArithmeticSplitNode createSplit(AbstractBeginNode next, AbstractBeginNode deopt) {
         return graph().add(new IntegerAddExactSplitNode(stamp(), getX(), getY(), next, deopt));
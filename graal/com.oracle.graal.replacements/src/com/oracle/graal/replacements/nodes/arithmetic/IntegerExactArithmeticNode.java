@@ -23,9 +23,10 @@
 package com.oracle.graal.replacements.nodes.arithmetic;
 
 import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.calc.ExactArithmeticNode;
 import com.oracle.graal.nodes.spi.Lowerable;
 
-interface IntegerExactArithmeticNode extends Lowerable {
+interface IntegerExactArithmeticNode extends ExactArithmeticNode, Lowerable {
 
     IntegerExactArithmeticSplitNode createSplit(AbstractBeginNode next, AbstractBeginNode deopt);
 }
@@ -70,6 +70,9 @@ public final class IntegerMulExactNode extends MulNode implements IntegerExactAr
                 return ConstantNode.forIntegerStamp(stamp(), 0);
             }
         }
+        if (!IntegerStamp.multiplicationCanOverflow((IntegerStamp) forX.stamp(), (IntegerStamp) forY.stamp())) {
+            return new MulNode(forX, forY);
+        }
         return this;
     }
 
@@ -90,6 +93,11 @@ public final class IntegerMulExactNode extends MulNode implements IntegerExactAr
         return this;
     }
 
+    @Override
+    public MulNode createUnchecked() {
+        return new MulNode(getX(), getY());
+    }
+
     @Override
     public IntegerExactArithmeticSplitNode createSplit(AbstractBeginNode next, AbstractBeginNode deopt) {
         return graph().add(new IntegerMulExactSplitNode(stamp(), getX(), getY(), next, deopt));
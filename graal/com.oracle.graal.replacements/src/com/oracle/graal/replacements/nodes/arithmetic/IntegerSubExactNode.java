@@ -69,6 +69,9 @@ public final class IntegerSubExactNode extends SubNode implements IntegerExactAr
                 return forX;
             }
         }
+        if (!IntegerStamp.subtractCanOverflow((IntegerStamp) forX.stamp(), (IntegerStamp) forY.stamp())) {
+            return new SubNode(forX, forY);
+        }
         return this;
     }
 
@@ -89,6 +92,11 @@ public final class IntegerSubExactNode extends SubNode implements IntegerExactAr
         return this;
     }
 
+    @Override
+    public SubNode createUnchecked() {
+        return new SubNode(getX(), getY());
+    }
+
     @Override
     public IntegerExactArithmeticSplitNode createSplit(AbstractBeginNode next, AbstractBeginNode deopt) {
         return graph().add(new IntegerSubExactSplitNode(stamp(), getX(), getY(), next, deopt));
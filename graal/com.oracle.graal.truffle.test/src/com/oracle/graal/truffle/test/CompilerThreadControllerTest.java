@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.oracle.graal.truffle.CompilerThreadController;
+
+@RunWith(Parameterized.class)
+public class CompilerThreadControllerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long TARGET_DELAY = 10 * MS;
+    private static final int PROCESSORS = 8;
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                        // description, current, min, max, backlog, median latency, load, expected
+                        {"empty backlog shrinks", 4, 1, 8, 0, MS, 1.0, 3},
+                        {"empty backlog clamped at min", 2, 2, 8, 0, MS, 1.0, 2},
+                        {"saturated system shrinks", 4, 1, 8, 100, MS, 8.0, 3},
+                        {"saturated system clamped at min", 2, 2, 8, 100, MS, 9.0, 2},
+                        {"long expected delay grows", 2, 1, 8, 100, MS, 2.0, 3},
+                        {"long expected delay clamped at max", 8, 1, 8, 100, MS, 2.0, 8},
+                        {"short expected delay keeps", 4, 1, 8, 2, MS, 2.0, 4},
+                        {"expected delay at target keeps", 2, 1, 8, 2, TARGET_DELAY, 2.0, 2},
+                        {"unknown latency grows", 2, 1, 8, 1, 0L, 2.0, 3},
+                        {"unknown load grows", 2, 1, 8, 100, MS, -1.0, 3},
+                        {"no spare processor keeps", 4, 1, 8, 100, MS, 7.5, 4},
+                        {"one spare processor grows", 4, 1, 8, 100, MS, 7.0, 5},
+        });
+    }
+
+    @Parameter(value = 0) public String description;
+    @Parameter(value = 1) public int current;
+    @Parameter(value = 2) public int min;
+    @Parameter(value = 3) public int max;
+    @Parameter(value = 4) public int backlog;
+    @Parameter(value = 5) public long medianLatency;
+    @Parameter(value = 6) public double loadAverage;
+    @Parameter(value = 7) public int expected;
+
+    @Test
+    public void testComputeThreadCount() {
+        Assert.assertEquals(expected, CompilerThreadController.computeThreadCount(current, min, max, backlog, medianLatency, loadAverage, PROCESSORS, TARGET_DELAY));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilerThreadsTargetDelay;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Arrays;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adjusts the number of threads of a compile queue between a minimum and a maximum. Threads are
+ * added while the expected queueing delay, estimated from the backlog and the median compile time,
+ * exceeds {@link TruffleCompilerOptions#TruffleCompilerThreadsTargetDelay} and the system has
+ * spare processors. They are given back when the queue is empty or the system is saturated, so that
+ * warm-up gets more cores than the steady state.
+ */
+public final class CompilerThreadController {
+
+    /**
+     * Minimum time between two adjustments.
+     */
+    private static final long ADJUST_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * Number of recent compile times used for the latency percentiles.
+     */
+    private static final int LATENCY_SAMPLES = 64;
+
+    private final ThreadPoolExecutor executor;
+    private final int minThreads;
+    private final int maxThreads;
+    private final int processors;
+    private final OperatingSystemMXBean os;
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyIndex;
+    private long lastAdjustment;
+
+    CompilerThreadController(ThreadPoolExecutor executor, int minThreads, int maxThreads) {
+        assert 0 < minThreads && minThreads <= maxThreads;
+        this.executor = executor;
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.processors = Runtime.getRuntime().availableProcessors();
+        this.os = ManagementFactory.getOperatingSystemMXBean();
+    }
+
+    /**
+     * Notifies the controller that a compilation was queued.
+     */
+    void compilationQueued() {
+        adjust(System.nanoTime());
+    }
+
+    /**
+     * Notifies the controller that a compilation finished after {@code elapsedNanos}.
+     */
+    void compilationFinished(long elapsedNanos) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            latencies[latencyIndex] = elapsedNanos;
+            latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+        }
+        adjust(now);
+    }
+
+    private synchronized void adjust(long now) {
+        if (now - lastAdjustment < ADJUST_INTERVAL_NANOS) {
+            return;
+        }
+        lastAdjustment = now;
+        int current = executor.getCorePoolSize();
+        int target = computeThreadCount(current, minThreads, maxThreads, executor.getQueue().size(), latencyPercentile(50), os.getSystemLoadAverage(), processors,
+                        TimeUnit.MILLISECONDS.toNanos(TruffleCompilerThreadsTargetDelay.getValue()));
+        if (target != current) {
+            executor.setCorePoolSize(target);
+        }
+    }
+
+    /**
+     * Returns the given percentile of the recent compile times or 0 if there are none.
+     */
+    private long latencyPercentile(int percentile) {
+        if (latencyCount == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        return sorted[Math.min(latencyCount - 1, latencyCount * percentile / 100)];
+    }
+
+    /**
+     * Computes the new number of compiler threads. At most one thread is added or removed per step.
+     *
+     * @param current the current number of threads
+     * @param backlog the number of queued compilations
+     * @param medianLatency the median compile time in nanoseconds or 0 if unknown
+     * @param loadAverage the system load average or a negative value if unavailable
+     * @param targetDelay the queueing delay in nanoseconds above which threads are added
+     */
+    public static int computeThreadCount(int current, int min, int max, int backlog, long medianLatency, double loadAverage, int processors, long targetDelay) {
+        boolean saturated = loadAverage >= processors;
+        if (backlog == 0 || saturated) {
+            return Math.max(min, current - 1);
+        }
+        boolean spareProcessors = loadAverage < 0 || loadAverage + 1 <= processors;
+        long expectedDelay = medianLatency == 0 ? Long.MAX_VALUE : medianLatency * backlog / current;
+        if (expectedDelay > targetDelay && spareProcessors) {
+            return Math.min(max, current + 1);
+        }
+        return current;
+    }
+}
@@ -36,6 +36,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -92,6 +93,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
 
     protected abstract static class BackgroundCompileQueue implements CompilerThreadFactory.DebugConfigAccess {
         private final ExecutorService compileQueue;
+        private final CompilerThreadController threadController;
 
         protected BackgroundCompileQueue() {
             CompilerThreadFactory factory = new CompilerThreadFactory("TruffleCompilerThread", this);
@@ -107,7 +109,19 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
                 }
             }
             selectedProcessors = Math.max(1, selectedProcessors);
-            compileQueue = Executors.newFixedThreadPool(selectedProcessors, factory);
+            if (TruffleCompilerOptions.TruffleCompilerThreads.getValue() == 0 && TruffleCompilerOptions.TruffleAdaptiveCompilerThreads.getValue()) {
+                int maxProcessors = TruffleCompilerOptions.TruffleMaxCompilerThreads.getValue();
+                if (maxProcessors == 0) {
+                    maxProcessors = Runtime.getRuntime().availableProcessors() / 2;
+                }
+                maxProcessors = Math.max(selectedProcessors, maxProcessors);
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(selectedProcessors, maxProcessors, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+                compileQueue = executor;
+                threadController = new CompilerThreadController(executor, selectedProcessors, maxProcessors);
+            } else {
+                compileQueue = Executors.newFixedThreadPool(selectedProcessors, factory);
+                threadController = null;
+            }
         }
     }
 
@@ -447,15 +461,27 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
     public Future<?> submitForCompilation(OptimizedCallTarget optimizedCallTarget) {
         BackgroundCompileQueue l = getCompileQueue();
         final WeakReference<OptimizedCallTarget> weakCallTarget = new WeakReference<>(optimizedCallTarget);
-        return l.compileQueue.submit(new Runnable() {
+        final CompilerThreadController controller = l.threadController;
+        Future<?> future = l.compileQueue.submit(new Runnable() {
             @Override
             public void run() {
                 OptimizedCallTarget callTarget = weakCallTarget.get();
                 if (callTarget != null) {
-                    doCompile(callTarget);
+                    long start = System.nanoTime();
+                    try {
+                        doCompile(callTarget);
+                    } finally {
+                        if (controller != null) {
+                            controller.compilationFinished(System.nanoTime() - start);
+                        }
+                    }
                 }
             }
         });
+        if (controller != null) {
+            controller.compilationQueued();
+        }
+        return future;
     }
 
     public void finishCompilation(OptimizedCallTarget optimizedCallTarget, Future<?> future, boolean mayBeAsynchronous) {
@@ -92,6 +92,15 @@ public class TruffleCompilerOptions {
     @Option(help = "Manually set the number of compiler threads", type = OptionType.Expert)
     public static final OptionValue<Integer> TruffleCompilerThreads = new OptionValue<>(0);
 
+    @Option(help = "Adapt the number of compiler threads to the compilation backlog and the system load if TruffleCompilerThreads is not set", type = OptionType.Expert)
+    public static final OptionValue<Boolean> TruffleAdaptiveCompilerThreads = new OptionValue<>(true);
+
+    @Option(help = "Maximum number of compiler threads with adaptive compiler threads (0 uses half of the available processors)", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleMaxCompilerThreads = new OptionValue<>(0);
+
+    @Option(help = "Expected queueing delay in milliseconds above which adaptive compiler threads are added", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleCompilerThreadsTargetDelay = new OptionValue<>(100);
+
     @Option(help = "Enable inlining across Truffle boundary", type = OptionType.Expert)
     public static final OptionValue<Boolean> TruffleInlineAcrossTruffleBoundary = new OptionValue<>(false);
 
@@ -60,4 +60,36 @@ public class PartialEscapeBench extends GraalBenchmark {
         Thing thing = cache.getOrAdd(new Thing(42, "the answer!"));
         return thing.name;
     }
+
+    private static class Sum {
+        final long total;
+        final int count;
+
+        Sum(long total, int count) {
+            this.total = total;
+            this.count = count;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Values {
+
+        private int[] values = new int[100];
+
+        public Values() {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = i * 31;
+            }
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 30)
+    public long benchLoopPhiMerge(Values values) {
+        Sum sum = new Sum(0, 0);
+        for (int value : values.values) {
+            sum = new Sum(sum.total + value, sum.count + 1);
+        }
+        return sum.total / sum.count;
+    }
 }
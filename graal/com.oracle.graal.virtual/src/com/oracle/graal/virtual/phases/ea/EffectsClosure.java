@@ -315,7 +315,7 @@ public abstract class EffectsClosure<BlockT extends EffectsBlockState<BlockT>> e
 
     protected class MergeProcessor {
 
-        private final Block mergeBlock;
+        protected final Block mergeBlock;
         private final AbstractMergeNode merge;
 
         protected final GraphEffectList mergeEffects;
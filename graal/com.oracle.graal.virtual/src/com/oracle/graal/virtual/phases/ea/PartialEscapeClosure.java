@@ -27,6 +27,7 @@ import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentat
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
@@ -35,6 +36,7 @@ import java.util.Set;
 import java.util.function.IntFunction;
 
 import com.oracle.graal.compiler.common.CollectionsFactory;
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
 import com.oracle.graal.compiler.common.cfg.Loop;
 import com.oracle.graal.compiler.common.spi.ConstantFieldProvider;
 import com.oracle.graal.compiler.common.type.Stamp;
@@ -69,6 +71,7 @@ import com.oracle.graal.nodes.spi.NodeWithState;
 import com.oracle.graal.nodes.spi.Virtualizable;
 import com.oracle.graal.nodes.spi.VirtualizableAllocation;
 import com.oracle.graal.nodes.spi.VirtualizerTool;
+import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 import com.oracle.graal.phases.common.instrumentation.nodes.InstrumentationNode;
 
@@ -86,6 +89,7 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
     public static final DebugCounter COUNTER_MATERIALIZATIONS_LOOP_REITERATION = Debug.counter("MaterializationsLoopReiteration");
     public static final DebugCounter COUNTER_MATERIALIZATIONS_LOOP_END = Debug.counter("MaterializationsLoopEnd");
     public static final DebugCounter COUNTER_ALLOCATION_REMOVED = Debug.counter("AllocationsRemoved");
+    public static final DebugCounter COUNTER_IDENTITY_OBJECTS_MERGED = Debug.counter("IdentityObjectsMerged");
     public static final DebugCounter COUNTER_MEMORYCHECKPOINT = Debug.counter("MemoryCheckpoint");
 
     private final NodeBitMap hasVirtualInputs;
@@ -490,6 +494,7 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
         private Map<ValueNode, ValuePhiNode[]> valuePhis;
         private Map<ValuePhiNode, VirtualObjectNode> valueObjectVirtuals;
         private final boolean needsCaching;
+        private BitSet reachableFromMerge;
 
         public MergeProcessor(Block mergeBlock) {
             super(mergeBlock);
@@ -843,8 +848,8 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
         /**
          * Examine a PhiNode and try to replace it with merging of virtual objects if all its inputs
          * refer to virtual object states. In order for the merging to happen, all incoming object
-         * states need to be compatible and without object identity (meaning that their object
-         * identity if not used later on).
+         * states need to be compatible, and the identity of incoming objects that have one must not
+         * be observable after the merge (see {@link #identityEndsAtMerge}).
          *
          * @param phi the PhiNode that should be processed
          * @param states the predecessor block states of the merge
@@ -890,7 +895,7 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
                     for (int i = 0; i < states.length; i++) {
                         VirtualObjectNode virtual = virtualObjs[i];
                         hasIdentity |= virtual.hasIdentity();
-                        boolean identitySurvives = virtual.hasIdentity() && Arrays.asList(mergedVirtualObjects).contains(virtual.getObjectId());
+                        boolean identitySurvives = virtual.hasIdentity() && !identityEndsAtMerge(phi, i, virtual, states, mergedVirtualObjects);
                         if (identitySurvives || !firstVirtual.type().equals(virtual.type()) || firstVirtual.entryCount() != virtual.entryCount()) {
                             compatible = false;
                             break;
@@ -900,7 +905,10 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
                             break;
                         }
                     }
-                    if (compatible && !hasIdentity) {
+                    if (compatible) {
+                        if (hasIdentity) {
+                            COUNTER_IDENTITY_OBJECTS_MERGED.increment();
+                        }
                         VirtualObjectNode virtual = getValueObjectVirtual(phi, virtualObjs[0]);
                         mergeEffects.addFloatingNode(virtual, "valueObjectNode");
                         mergeEffects.deleteNode(phi);
@@ -934,6 +942,102 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
             }
             return materialized;
         }
+
+        /**
+         * Determines if a virtual object with identity that flows into {@code phi} from the
+         * predecessor at {@code index} can be replaced by a new virtual object at the merge. This
+         * is the case if the object cannot be observed after the merge except through {@code phi},
+         * for example because it is allocated anew in every iteration of a loop.
+         */
+        private boolean identityEndsAtMerge(ValuePhiNode phi, int index, VirtualObjectNode virtual, PartialEscapeBlockState<?>[] states, int[] mergedVirtualObjects) {
+            for (PhiNode other : getPhis()) {
+                if (other != phi && getAlias(getPhiValueAt(other, index)) == virtual) {
+                    return false;
+                }
+            }
+            for (int object : mergedVirtualObjects) {
+                ObjectState objectState = states[index].getObjectState(object);
+                if (objectState.isVirtual() && Arrays.asList(objectState.getEntries()).contains(virtual)) {
+                    return false;
+                }
+            }
+            ValueNode value = GraphUtil.unproxify(getPhiValueAt(phi, index));
+            if (value == phi) {
+                // the object merged into this phi in a previous iteration of the loop
+                return true;
+            }
+            Block valueBlock = blockOf(value);
+            if (valueBlock == null) {
+                return false;
+            }
+            if (AbstractControlFlowGraph.strictlyDominates(mergeBlock, valueBlock)) {
+                // every path from the merge to a usage of the value computes a new object
+                return true;
+            }
+            // the value is defined before the merge, so any usage reachable from the merge counts
+            NodeBitMap visited = cfg.graph.createNodeBitMap();
+            visited.mark(phi);
+            return !isUsedAfterMerge(value, visited);
+        }
+
+        private boolean isUsedAfterMerge(Node node, NodeBitMap visited) {
+            for (Node usage : node.usages()) {
+                if (visited.isNew(usage) || visited.isMarked(usage)) {
+                    continue;
+                }
+                visited.mark(usage);
+                if (usage instanceof PhiNode) {
+                    // the value is used at the end of the corresponding predecessors of the phi
+                    PhiNode usagePhi = (PhiNode) usage;
+                    for (int i = 0; i < usagePhi.valueCount(); i++) {
+                        if (usagePhi.valueAt(i) == node && isReachableFromMerge(blockOf(usagePhi.merge().phiPredecessorAt(i)))) {
+                            return true;
+                        }
+                    }
+                } else if (usage instanceof FixedNode && isReachableFromMerge(blockOf(usage))) {
+                    return true;
+                }
+                // fixed nodes producing an object, e.g., type checks, can be aliases of the value
+                boolean mayAlias = !(usage instanceof FixedNode) || (usage instanceof ValueNode && ((ValueNode) usage).getStackKind() == JavaKind.Object);
+                if (mayAlias && isUsedAfterMerge(usage, visited)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Determines if {@code block} can be executed after the merge. A {@code null} block is
+         * conservatively treated as reachable.
+         */
+        private boolean isReachableFromMerge(Block block) {
+            if (block == null) {
+                return true;
+            }
+            if (reachableFromMerge == null) {
+                reachableFromMerge = new BitSet(cfg.getBlocks().length);
+                ArrayDeque<Block> worklist = new ArrayDeque<>();
+                reachableFromMerge.set(mergeBlock.getId());
+                worklist.push(mergeBlock);
+                while (!worklist.isEmpty()) {
+                    for (Block successor : worklist.pop().getSuccessors()) {
+                        if (!reachableFromMerge.get(successor.getId())) {
+                            reachableFromMerge.set(successor.getId());
+                            worklist.push(successor);
+                        }
+                    }
+                }
+            }
+            return reachableFromMerge.get(block.getId());
+        }
+
+        private Block blockOf(Node node) {
+            Node fixed = node instanceof PhiNode ? ((PhiNode) node).merge() : node;
+            if (!(fixed instanceof FixedNode) || cfg.getNodeToBlock().isNew(fixed)) {
+                return null;
+            }
+            return cfg.blockFor(fixed);
+        }
     }
 
     public ObjectState getObjectState(PartialEscapeBlockState<?> state, ValueNode value) {
@@ -23,6 +23,7 @@
 package com.oracle.graal.virtual.phases.ea;
 
 import static com.oracle.graal.compiler.common.GraalOptions.MaximumEscapeAnalysisArrayLength;
+import static com.oracle.graal.compiler.common.GraalOptions.MaximumEscapeAnalysisIndexRange;
 
 import java.util.List;
 
@@ -191,6 +192,11 @@ class VirtualizerToolImpl implements VirtualizerTool, CanonicalizerTool {
         return MaximumEscapeAnalysisArrayLength.getValue();
     }
 
+    @Override
+    public int getMaximumIndexRange() {
+        return MaximumEscapeAnalysisIndexRange.getValue();
+    }
+
     @Override
     public void replaceWith(ValueNode node) {
         if (node instanceof VirtualObjectNode) {
@@ -342,6 +342,7 @@ suite = {
       "dependencies" : [
         "com.oracle.graal.asm.amd64",
         "com.oracle.graal.hotspot.test",
+        "com.oracle.graal.replacements.amd64",
       ],
       "annotationProcessors" : ["GRAAL_NODEINFO_PROCESSOR"],
       "checkstyle" : "com.oracle.graal.graph",